@@ -0,0 +1,78 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.client.render;
+
+import dan200.computercraft.core.terminal.Terminal;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of updating a {@link TerminalMesh} after a single character changes, on a terminal the size of an
+ * 8x6 monitor at text scale 0.5.
+ *
+ * A band height equal to the terminal's height is equivalent to the previous behaviour of rebuilding the whole
+ * monitor. The {@link Counters#vertices} counter reports the number of vertices regenerated.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class TerminalMeshBenchmark
+{
+    private static final int WIDTH = 164;
+    private static final int HEIGHT = 81;
+
+    @Param( { "1", "4", "81" } )
+    public int bandHeight;
+
+    private final Random random = new Random( 0 );
+    private Terminal terminal;
+    private TerminalMesh mesh;
+
+    @AuxCounters( AuxCounters.Type.EVENTS )
+    @State( Scope.Thread )
+    public static class Counters
+    {
+        public long vertices;
+    }
+
+    @Setup
+    public void setup()
+    {
+        terminal = new Terminal( WIDTH, HEIGHT );
+        char[] text = new char[WIDTH], colours = new char[WIDTH];
+        for( int y = 0; y < HEIGHT; y++ )
+        {
+            for( int x = 0; x < WIDTH; x++ )
+            {
+                text[x] = (char) ('a' + random.nextInt( 26 ));
+                colours[x] = "0123456789abcdef".charAt( random.nextInt( 16 ) );
+            }
+
+            terminal.setCursorPos( 0, y );
+            terminal.blit( new String( text ), new String( colours ), new String( colours ) );
+        }
+
+        mesh = new TerminalMesh( bandHeight );
+        mesh.update( terminal, terminal.pollDirtyRows(), true, false, 1, 1 );
+    }
+
+    @Benchmark
+    public boolean writeCharacter( Counters counters )
+    {
+        terminal.setCursorPos( random.nextInt( WIDTH ), random.nextInt( HEIGHT ) );
+        terminal.write( "x" );
+
+        boolean changed = mesh.update( terminal, terminal.pollDirtyRows(), false, false, 1, 1 );
+        counters.vertices += mesh.getRebuiltVertices();
+        return changed;
+    }
+}
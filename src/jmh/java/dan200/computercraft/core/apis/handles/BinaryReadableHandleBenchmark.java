@@ -0,0 +1,102 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.apis.handles;
+
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.core.apis.ObjectWrapper;
+import dan200.computercraft.core.filesystem.FileMount;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures reading a large file from a {@link FileMount} through a {@link BinaryReadableHandle}.
+ *
+ * Each operation is a single byte of the file, so when run with {@code -prof gc}, {@code gc.alloc.rate.norm} is the
+ * number of bytes allocated per byte read.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+@OperationsPerInvocation( BinaryReadableHandleBenchmark.FILE_SIZE )
+public class BinaryReadableHandleBenchmark
+{
+    static final int FILE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The number of bytes passed to each {@code read} call.
+     */
+    @Param( { "16", "8192", "65536", "4194304" } )
+    public int chunk;
+
+    private File root;
+    private FileMount mount;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        root = Files.createTempDirectory( "cc-bench" ).toFile();
+        File file = new File( root, "mount/data.bin" );
+        file.getParentFile().mkdirs();
+
+        byte[] contents = new byte[FILE_SIZE];
+        new Random( 0 ).nextBytes( contents );
+        Files.write( file.toPath(), contents );
+
+        mount = new FileMount( new File( root, "mount" ), Long.MAX_VALUE );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        try( Stream<Path> paths = Files.walk( root.toPath() ) )
+        {
+            for( Path path : (Iterable<Path>) paths.sorted( Comparator.reverseOrder() )::iterator ) Files.delete( path );
+        }
+    }
+
+    @Benchmark
+    public int read() throws IOException, LuaException
+    {
+        ObjectWrapper handle = new ObjectWrapper( new BinaryReadableHandle( mount.openChannelForRead( "data.bin" ) ) );
+        try
+        {
+            int total = 0;
+            Object[] result;
+            while( (result = handle.call( "read", chunk )) != null ) total += ((byte[]) result[0]).length;
+            return total;
+        }
+        finally
+        {
+            handle.call( "close" );
+        }
+    }
+
+    @Benchmark
+    public int readAll() throws IOException, LuaException
+    {
+        ObjectWrapper handle = new ObjectWrapper( new BinaryReadableHandle( mount.openChannelForRead( "data.bin" ) ) );
+        try
+        {
+            return handle.<byte[]>callOf( "readAll" ).length;
+        }
+        finally
+        {
+            handle.call( "close" );
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.computer;
+
+import dan200.computercraft.ComputerCraft;
+import dan200.computercraft.api.lua.ILuaAPI;
+import dan200.computercraft.api.lua.ILuaContext;
+import dan200.computercraft.core.filesystem.MemoryMount;
+import dan200.computercraft.core.terminal.Terminal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A computer running in a {@link BasicEnvironment} (and so without Minecraft), for use in benchmarks.
+ *
+ * Once booted, the computer runs a small program which responds to events queued by the benchmark through the
+ * {@code bench} API:
+ *
+ * <ul>
+ * <li>{@code bench_echo}: Reply immediately.</li>
+ * <li>{@code bench_call}: Call {@code bench.noop()} {@code n} times, and then reply.</li>
+ * </ul>
+ */
+public final class BenchmarkComputer
+{
+    private static final String STARTUP = String.join( "\n",
+        "local noop, reply = bench.noop, bench.reply",
+        "bench.ready()",
+        "while true do",
+        "  local event, n = os.pullEvent()",
+        "  if event == 'bench_echo' then reply()",
+        "  elseif event == 'bench_call' then",
+        "    for _ = 1, n do noop() end",
+        "    reply()",
+        "  end",
+        "end"
+    );
+
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos( 60 );
+
+    private final Computer computer;
+    private final BenchApi api = new BenchApi();
+
+    public BenchmarkComputer( int id )
+    {
+        MemoryMount mount = new MemoryMount().addFile( "startup.lua", STARTUP );
+        Terminal terminal = new Terminal( ComputerCraft.terminalWidth_computer, ComputerCraft.terminalHeight_computer );
+
+        computer = new Computer( new BasicEnvironment( mount ), terminal, id );
+        computer.addApi( api );
+    }
+
+    @Nonnull
+    public Computer getComputer()
+    {
+        return computer;
+    }
+
+    /**
+     * Turn on several computers, and wait until they have all finished booting.
+     *
+     * @param computers The computers to boot.
+     */
+    public static void boot( BenchmarkComputer... computers )
+    {
+        for( BenchmarkComputer computer : computers ) computer.computer.turnOn();
+
+        long deadline = System.nanoTime() + TIMEOUT;
+        while( true )
+        {
+            boolean ready = true;
+            for( BenchmarkComputer computer : computers )
+            {
+                computer.computer.tick();
+                ready &= computer.api.ready;
+            }
+            MainThread.executePendingTasks();
+
+            if( ready ) return;
+            if( System.nanoTime() > deadline ) throw new IllegalStateException( "Computers did not boot in time" );
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Shut down several computers, and wait until they are all off.
+     *
+     * @param computers The computers to shut down.
+     */
+    public static void shutdown( BenchmarkComputer... computers )
+    {
+        for( BenchmarkComputer computer : computers ) computer.computer.shutdown();
+
+        long deadline = System.nanoTime() + TIMEOUT;
+        while( true )
+        {
+            boolean on = false;
+            for( BenchmarkComputer computer : computers )
+            {
+                computer.computer.tick();
+                on |= computer.computer.isOn();
+            }
+            MainThread.executePendingTasks();
+
+            if( !on ) return;
+            if( System.nanoTime() > deadline ) throw new IllegalStateException( "Computers did not shut down in time" );
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Queue an event on this computer, and wait for it to reply.
+     *
+     * @param event The event to queue, either {@code bench_echo} or {@code bench_call}.
+     * @param count The argument to this event.
+     * @throws InterruptedException If interrupted while waiting for a reply.
+     */
+    public void send( String event, int count ) throws InterruptedException
+    {
+        computer.queueEvent( event, new Object[] { count } );
+        if( !api.replies.tryAcquire( TIMEOUT, TimeUnit.NANOSECONDS ) )
+        {
+            throw new IllegalStateException( "Computer did not reply to " + event );
+        }
+    }
+
+    private static final class BenchApi implements ILuaAPI
+    {
+        final Semaphore replies = new Semaphore( 0 );
+        volatile boolean ready;
+
+        @Override
+        public String[] getNames()
+        {
+            return new String[] { "bench" };
+        }
+
+        @Nonnull
+        @Override
+        public String[] getMethodNames()
+        {
+            return new String[] { "ready", "reply", "noop" };
+        }
+
+        @Nullable
+        @Override
+        public Object[] callMethod( @Nonnull ILuaContext context, int method, @Nonnull Object[] arguments )
+        {
+            switch( method )
+            {
+                case 0: // ready
+                    ready = true;
+                    return null;
+                case 1: // reply
+                    replies.release();
+                    return null;
+                default: // noop
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.computer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to boot several computers at once, from being turned on to running their startup file.
+ *
+ * This includes loading the bios and the ROM's APIs, and running the shell's startup scripts.
+ */
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class BootBenchmark
+{
+    @Param( { "1", "10", "100" } )
+    public int computers;
+
+    private BenchmarkComputer[] instances;
+
+    @Setup( Level.Invocation )
+    public void setup()
+    {
+        instances = new BenchmarkComputer[computers];
+        for( int i = 0; i < computers; i++ ) instances[i] = new BenchmarkComputer( i );
+    }
+
+    @TearDown( Level.Invocation )
+    public void tearDown()
+    {
+        BenchmarkComputer.shutdown( instances );
+    }
+
+    @TearDown( Level.Trial )
+    public void stop()
+    {
+        ComputerThread.stop();
+    }
+
+    @Benchmark
+    public void boot()
+    {
+        BenchmarkComputer.boot( instances );
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.computer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of communicating with a running computer.
+ *
+ * <ul>
+ * <li>{@link #echo()}: The round trip of an event through {@link ComputerExecutor#queueEvent(String, Object[])}, the
+ * computer thread and back to Java.</li>
+ * <li>{@link #call()}: The cost of calling a method on an {@link dan200.computercraft.api.lua.ILuaObject} from Lua.</li>
+ * </ul>
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ComputerBenchmark
+{
+    private static final int CALLS = 1000;
+
+    private BenchmarkComputer computer;
+
+    @Setup
+    public void setup()
+    {
+        computer = new BenchmarkComputer( 0 );
+        BenchmarkComputer.boot( computer );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        BenchmarkComputer.shutdown( computer );
+        ComputerThread.stop();
+    }
+
+    @Benchmark
+    public void echo() throws InterruptedException
+    {
+        computer.send( "bench_echo", 0 );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( CALLS )
+    public void call() throws InterruptedException
+    {
+        computer.send( "bench_call", CALLS );
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.computer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of a single server tick using the {@link TimerWheel}, against scanning every computer's timers (as
+ * {@code OSAPI.update()} used to do).
+ *
+ * Timers are spread over computers with {@link #TIMERS_PER_COMPUTER} timers each, and are restarted with a new delay
+ * as soon as they fire, so the number of active timers stays constant.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class TimerWheelBenchmark
+{
+    private static final int TIMERS_PER_COMPUTER = 32;
+
+    /**
+     * The maximum delay of a timer, in ticks. This is equivalent to a {@code sleep(10)}.
+     */
+    private static final int MAX_DELAY = 200;
+
+    @Param( { "10000", "100000", "1000000" } )
+    public int timers;
+
+    private final Random random = new Random( 0 );
+
+    private TimerWheel wheel;
+    private int fired;
+
+    private ScanComputer[] computers;
+
+    @Setup
+    public void setup()
+    {
+        wheel = new TimerWheel();
+        for( int i = 0; i < timers; i++ ) scheduleWheel();
+
+        computers = new ScanComputer[(timers + TIMERS_PER_COMPUTER - 1) / TIMERS_PER_COMPUTER];
+        for( int i = 0; i < computers.length; i++ ) computers[i] = new ScanComputer();
+        for( int i = 0; i < timers; i++ ) computers[i % computers.length].startTimer( nextDelay() );
+    }
+
+    @Benchmark
+    public int wheel()
+    {
+        wheel.tick();
+        return fired;
+    }
+
+    @Benchmark
+    public int scan()
+    {
+        int fired = 0;
+        for( ScanComputer computer : computers ) fired += computer.update();
+        return fired;
+    }
+
+    private int nextDelay()
+    {
+        return 1 + random.nextInt( MAX_DELAY );
+    }
+
+    private void scheduleWheel()
+    {
+        wheel.schedule( nextDelay(), () -> {
+            fired++;
+            scheduleWheel();
+        } );
+    }
+
+    /**
+     * A copy of the original per-computer timer scan.
+     */
+    private final class ScanComputer
+    {
+        private final Map<Integer, int[]> timers = new HashMap<>();
+        private int nextToken;
+
+        void startTimer( int ticks )
+        {
+            synchronized( timers )
+            {
+                timers.put( nextToken++, new int[] { ticks } );
+            }
+        }
+
+        int update()
+        {
+            int fired = 0;
+            synchronized( timers )
+            {
+                Iterator<Map.Entry<Integer, int[]>> it = timers.entrySet().iterator();
+                while( it.hasNext() )
+                {
+                    int[] timer = it.next().getValue();
+                    if( --timer[0] <= 0 )
+                    {
+                        it.remove();
+                        fired++;
+                    }
+                }
+
+                // Restart any timers which fired, as the wheel benchmark does.
+                for( int i = 0; i < fired; i++ ) timers.put( nextToken++, new int[] { nextDelay() } );
+            }
+            return fired;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.filesystem;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures common {@link FileSystem} operations on an in-memory mount, so that we only measure the cost of the file
+ * system layer itself.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class FileSystemBenchmark
+{
+    private static final int FILE_SIZE = 4096;
+    private static final int DIRECTORY_SIZE = 100;
+
+    private FileSystem fs;
+    private final ByteBuffer buffer = ByteBuffer.allocate( FILE_SIZE );
+
+    @Setup
+    public void setup() throws FileSystemException
+    {
+        MemoryMount mount = new MemoryMount().addFile( "data.bin", new String( new char[FILE_SIZE] ) );
+        mount.makeDirectory( "dir" );
+        for( int i = 0; i < DIRECTORY_SIZE; i++ ) mount.addFile( "dir/file_" + i + ".lua", "" );
+
+        fs = new FileSystem( "hdd", mount );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        fs.close();
+    }
+
+    @Benchmark
+    public int read() throws FileSystemException, IOException
+    {
+        try( FileSystemWrapper<ReadableByteChannel> wrapper = fs.openForRead( "data.bin", Function.identity() ) )
+        {
+            ReadableByteChannel channel = wrapper.get();
+            int total = 0;
+            buffer.clear();
+            int read;
+            while( (read = channel.read( buffer )) > 0 )
+            {
+                total += read;
+                buffer.clear();
+            }
+            return total;
+        }
+    }
+
+    @Benchmark
+    public void write() throws FileSystemException, IOException
+    {
+        try( FileSystemWrapper<WritableByteChannel> wrapper = fs.openForWrite( "out.bin", false, Function.identity() ) )
+        {
+            buffer.clear();
+            wrapper.get().write( buffer );
+        }
+    }
+
+    @Benchmark
+    public String[] list() throws FileSystemException
+    {
+        return fs.list( "dir" );
+    }
+
+    @Benchmark
+    public boolean exists() throws FileSystemException
+    {
+        return fs.exists( "dir/file_50.lua" );
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.filesystem;
+
+import dan200.computercraft.api.filesystem.IMount;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link FileSystem#find(String)} against the original implementation, which compiled a regular expression
+ * and searched every directory below the first wildcard.
+ *
+ * Files are stored in a synthetic mount with {@link #FANOUT}<sup>{@link #DEPTH}</sup> directories, each containing
+ * {@link #FILES} files (100,000 in total).
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class FindBenchmark
+{
+    private static final int DEPTH = 3;
+    private static final int FANOUT = 10;
+    private static final int FILES = 100;
+
+    @Param( { "*/startup*", "d1/*/d2/f5*", "*/*/*/f99.lua", "d3/d4/*" } )
+    public String pattern;
+
+    private FileSystem fs;
+
+    @Setup
+    public void setup() throws FileSystemException
+    {
+        fs = new FileSystem( "hdd", new TreeMount() );
+    }
+
+    @Benchmark
+    public String[] find() throws FileSystemException
+    {
+        return fs.find( pattern );
+    }
+
+    @Benchmark
+    public String[] scan() throws FileSystemException
+    {
+        int starIndex = pattern.indexOf( '*' );
+        if( starIndex == -1 ) return fs.exists( pattern ) ? new String[] { pattern } : new String[0];
+
+        int prevDir = pattern.substring( 0, starIndex ).lastIndexOf( '/' );
+        String startDir = prevDir == -1 ? "" : pattern.substring( 0, prevDir );
+        if( !fs.isDir( startDir ) ) return new String[0];
+
+        Pattern wildPattern = Pattern.compile( "^\\Q" + pattern.replaceAll( "\\*", "\\\\E[^\\\\/]*\\\\Q" ) + "\\E$" );
+        List<String> matches = new ArrayList<>();
+        scanIn( startDir, matches, wildPattern );
+        return matches.toArray( new String[0] );
+    }
+
+    private void scanIn( String dir, List<String> matches, Pattern wildPattern ) throws FileSystemException
+    {
+        for( String entry : fs.list( dir ) )
+        {
+            String entryPath = dir.isEmpty() ? entry : dir + "/" + entry;
+            if( wildPattern.matcher( entryPath ).matches() ) matches.add( entryPath );
+            if( fs.isDir( entryPath ) ) scanIn( entryPath, matches, wildPattern );
+        }
+    }
+
+    /**
+     * A read-only mount whose contents are computed from the path, rather than stored. Directories are named
+     * {@code d0} to {@code d9}, and files {@code f0.lua} to {@code f99.lua}.
+     */
+    private static final class TreeMount implements IMount
+    {
+        @Override
+        public boolean exists( @Nonnull String path )
+        {
+            return depth( path, true ) >= 0;
+        }
+
+        @Override
+        public boolean isDirectory( @Nonnull String path )
+        {
+            int depth = depth( path, false );
+            return depth >= 0 && depth <= DEPTH;
+        }
+
+        @Override
+        public void list( @Nonnull String path, @Nonnull List<String> contents )
+        {
+            int depth = depth( path, false );
+            if( depth < DEPTH )
+            {
+                for( int i = 0; i < FANOUT; i++ ) contents.add( "d" + i );
+            }
+            else
+            {
+                for( int i = 0; i < FILES; i++ ) contents.add( "f" + i + ".lua" );
+            }
+        }
+
+        @Override
+        public long getSize( @Nonnull String path )
+        {
+            return 0;
+        }
+
+        @Nonnull
+        @Override
+        @Deprecated
+        public InputStream openForRead( @Nonnull String path )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Get the depth of a path, or {@code -1} if it does not exist.
+         */
+        private static int depth( String path, boolean allowFile )
+        {
+            if( path.isEmpty() ) return 0;
+
+            String[] parts = path.split( "/" );
+            for( int i = 0; i < parts.length; i++ )
+            {
+                String part = parts[i];
+                if( i == DEPTH && allowFile && parts.length == DEPTH + 1 )
+                {
+                    if( !part.startsWith( "f" ) || !part.endsWith( ".lua" ) ) return -1;
+                    if( !isIndex( part.substring( 1, part.length() - 4 ), FILES ) ) return -1;
+                }
+                else if( i >= DEPTH || !part.startsWith( "d" ) || !isIndex( part.substring( 1 ), FANOUT ) )
+                {
+                    return -1;
+                }
+            }
+            return parts.length;
+        }
+
+        private static boolean isIndex( String value, int limit )
+        {
+            try
+            {
+                int index = Integer.parseInt( value );
+                return index >= 0 && index < limit;
+            }
+            catch( NumberFormatException e )
+            {
+                return false;
+            }
+        }
+    }
+}
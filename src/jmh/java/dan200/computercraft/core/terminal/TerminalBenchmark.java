@@ -0,0 +1,95 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.terminal;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the basic {@link Terminal} drawing operations, on both a computer-sized terminal and the largest possible
+ * monitor.
+ *
+ * Each operation writes a full line of the terminal, moving down a row each time.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class TerminalBenchmark
+{
+    @Param( { "51x19", "164x81" } )
+    public String size;
+
+    private Terminal terminal;
+    private String text;
+    private String textColour;
+    private String backgroundColour;
+    private int row;
+
+    @Setup
+    public void setup()
+    {
+        String[] parts = size.split( "x" );
+        int width = Integer.parseInt( parts[0] ), height = Integer.parseInt( parts[1] );
+        terminal = new Terminal( width, height );
+
+        StringBuilder text = new StringBuilder( width );
+        StringBuilder textColour = new StringBuilder( width );
+        StringBuilder backgroundColour = new StringBuilder( width );
+        for( int i = 0; i < width; i++ )
+        {
+            text.append( (char) ('a' + i % 26) );
+            textColour.append( "0123456789abcdef".charAt( i % 16 ) );
+            backgroundColour.append( "fedcba9876543210".charAt( i % 16 ) );
+        }
+        this.text = text.toString();
+        this.textColour = textColour.toString();
+        this.backgroundColour = backgroundColour.toString();
+    }
+
+    @Benchmark
+    public Terminal write()
+    {
+        nextRow();
+        terminal.write( text );
+        return terminal;
+    }
+
+    @Benchmark
+    public Terminal blit()
+    {
+        nextRow();
+        terminal.blit( text, textColour, backgroundColour );
+        return terminal;
+    }
+
+    @Benchmark
+    public Terminal scroll()
+    {
+        terminal.scroll( 1 );
+        return terminal;
+    }
+
+    @Benchmark
+    public Terminal writeAndScroll()
+    {
+        // Emulates print() once the terminal is full.
+        terminal.setCursorPos( 0, terminal.getHeight() - 1 );
+        terminal.write( text );
+        terminal.scroll( 1 );
+        return terminal;
+    }
+
+    private void nextRow()
+    {
+        terminal.setCursorPos( 0, row );
+        row = (row + 1) % terminal.getHeight();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.tracking;
+
+import dan200.computercraft.core.computer.BasicEnvironment;
+import dan200.computercraft.core.computer.Computer;
+import dan200.computercraft.core.terminal.Terminal;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the cost of recording a value with tracking enabled, when several computer threads record values at once.
+ *
+ * {@link #striped(ComputerState)} uses {@link Tracking#addValue(Computer, TrackingField, long)}, which updates
+ * per-computer counters. {@link #locked(Contexts, ComputerState)} reproduces the previous implementation, which wrote
+ * to every context under a single global lock.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@Threads( 4 )
+public class TrackingBenchmark
+{
+    private static final Object LOCK = new Object();
+
+    @State( Scope.Benchmark )
+    public static class Contexts
+    {
+        private final AtomicInteger ids = new AtomicInteger();
+
+        List<TrackingContext> contexts;
+        private TrackingContext context;
+
+        @Setup
+        public void setup()
+        {
+            Tracking.reset();
+            context = Tracking.getContext( UUID.randomUUID() );
+            context.start();
+            contexts = Collections.singletonList( context );
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            context.stop();
+            Tracking.reset();
+        }
+
+        Computer createComputer()
+        {
+            return new Computer( new BasicEnvironment(), new Terminal( 51, 19 ), ids.incrementAndGet() );
+        }
+    }
+
+    /**
+     * Each benchmark thread acts as a separate computer thread, running a different computer.
+     */
+    @State( Scope.Thread )
+    public static class ComputerState
+    {
+        Computer computer;
+
+        @Setup
+        public void setup( Contexts contexts )
+        {
+            computer = contexts.createComputer();
+        }
+    }
+
+    @Benchmark
+    public void striped( ComputerState state )
+    {
+        Tracking.addValue( state.computer, TrackingField.FS_OPS, 1 );
+    }
+
+    @Benchmark
+    public void locked( Contexts contexts, ComputerState state )
+    {
+        synchronized( LOCK )
+        {
+            for( TrackingContext context : contexts.contexts ) context.addValue( state.computer, TrackingField.FS_OPS, 1 );
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.shared.peripheral.modem.wireless;
+
+import dan200.computercraft.api.network.IPacketReceiver;
+import dan200.computercraft.api.network.IPacketSender;
+import dan200.computercraft.api.network.Packet;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sending a packet through the {@link WirelessNetwork}'s spatial index against checking every receiver (as
+ * {@code WirelessNetwork} used to do).
+ *
+ * Receivers are spread uniformly over a {@link #AREA}x{@link #AREA} block area of a single world, and each packet is
+ * sent from a random position with the default modem range.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class WirelessNetworkBenchmark
+{
+    private static final int AREA = 4096;
+    private static final double RANGE = 64;
+
+    @Param( { "300", "3000", "30000" } )
+    public int receivers;
+
+    private final Random random = new Random( 0 );
+    private final Set<IPacketReceiver> scanReceivers = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+    private WirelessNetwork network;
+    private int received;
+
+    @Setup
+    public void setup()
+    {
+        network = new WirelessNetwork();
+        for( int i = 0; i < receivers; i++ )
+        {
+            Receiver receiver = new Receiver( new Vec3d( random.nextInt( AREA ), 64, random.nextInt( AREA ) ) );
+            network.addReceiver( receiver );
+            scanReceivers.add( receiver );
+        }
+    }
+
+    @Benchmark
+    public int index()
+    {
+        network.transmitSameDimension( nextPacket(), RANGE );
+        return received;
+    }
+
+    @Benchmark
+    public int scan()
+    {
+        Packet packet = nextPacket();
+        for( IPacketReceiver receiver : scanReceivers )
+        {
+            IPacketSender sender = packet.getSender();
+            if( receiver.getWorld() == sender.getWorld() )
+            {
+                double receiveRange = Math.max( RANGE, receiver.getRange() );
+                double distanceSq = receiver.getPosition().squaredDistanceTo( sender.getPosition() );
+                if( receiver.isInterdimensional() || distanceSq <= receiveRange * receiveRange )
+                {
+                    receiver.receiveSameDimension( packet, Math.sqrt( distanceSq ) );
+                }
+            }
+        }
+        return received;
+    }
+
+    private Packet nextPacket()
+    {
+        return new Packet( 1, 1, null, new Sender( new Vec3d( random.nextInt( AREA ), 64, random.nextInt( AREA ) ) ) );
+    }
+
+    private static final class Sender implements IPacketSender
+    {
+        private final Vec3d position;
+
+        Sender( Vec3d position )
+        {
+            this.position = position;
+        }
+
+        @Nonnull
+        @Override
+        @SuppressWarnings( "ConstantConditions" )
+        public World getWorld()
+        {
+            return null;
+        }
+
+        @Nonnull
+        @Override
+        public Vec3d getPosition()
+        {
+            return position;
+        }
+
+        @Nonnull
+        @Override
+        public String getSenderID()
+        {
+            return "sender";
+        }
+    }
+
+    private final class Receiver implements IPacketReceiver
+    {
+        private final Vec3d position;
+
+        Receiver( Vec3d position )
+        {
+            this.position = position;
+        }
+
+        @Nonnull
+        @Override
+        @SuppressWarnings( "ConstantConditions" )
+        public World getWorld()
+        {
+            return null;
+        }
+
+        @Nonnull
+        @Override
+        public Vec3d getPosition()
+        {
+            return position;
+        }
+
+        @Override
+        public double getRange()
+        {
+            return RANGE;
+        }
+
+        @Override
+        public boolean isInterdimensional()
+        {
+            return false;
+        }
+
+        @Override
+        public void receiveSameDimension( @Nonnull Packet packet, double distance )
+        {
+            received++;
+        }
+
+        @Override
+        public void receiveDifferentDimension( @Nonnull Packet packet )
+        {
+        }
+    }
+}
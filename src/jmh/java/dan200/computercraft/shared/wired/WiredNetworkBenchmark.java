@@ -0,0 +1,169 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.shared.wired;
+
+import dan200.computercraft.api.network.IPacketReceiver;
+import dan200.computercraft.api.network.Packet;
+import dan200.computercraft.api.network.wired.IWiredElement;
+import dan200.computercraft.api.network.wired.IWiredNode;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures transmitting a packet along a line of cables, with a modem every {@link #RECEIVER_SPACING} blocks.
+ *
+ * {@link #cached()} uses the network's cached routes (as {@link WiredNode#transmitSameDimension(Packet, double)}
+ * does), while {@link #search()} searches the network for every packet.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class WiredNetworkBenchmark
+{
+    private static final int RECEIVER_SPACING = 8;
+
+    @Param( { "10", "100", "1000" } )
+    public int nodes;
+
+    private WiredNode start;
+    private Packet packet;
+    private int received;
+
+    @Setup
+    public void setup()
+    {
+        WiredNode previous = null;
+        for( int i = 0; i < nodes; i++ )
+        {
+            WiredNode node = (WiredNode) new Element( new Vec3d( i, 0, 0 ) ).getNode();
+            if( i % RECEIVER_SPACING == 0 ) node.addReceiver( new Receiver( node.element.getPosition() ) );
+
+            if( previous == null )
+            {
+                start = node;
+            }
+            else
+            {
+                previous.getNetwork().connect( previous, node );
+            }
+            previous = node;
+        }
+
+        packet = new Packet( 0, 0, null, start.element );
+    }
+
+    @Benchmark
+    public int cached()
+    {
+        start.transmitSameDimension( packet, 0 );
+        return received;
+    }
+
+    @Benchmark
+    public int search()
+    {
+        for( WiredNetwork.TransmitPoint point : WiredNetwork.computeRoutes( start, 0, false ).values() )
+        {
+            point.node.tryTransmit( packet, point.distance, point.interdimensional, 0, false );
+        }
+        return received;
+    }
+
+    private static final class Element implements IWiredElement
+    {
+        private final Vec3d position;
+        private final WiredNode node;
+
+        Element( Vec3d position )
+        {
+            this.position = position;
+            node = new WiredNode( this );
+        }
+
+        @Nonnull
+        @Override
+        public IWiredNode getNode()
+        {
+            return node;
+        }
+
+        @Nonnull
+        @Override
+        public World getWorld()
+        {
+            return null;
+        }
+
+        @Nonnull
+        @Override
+        public Vec3d getPosition()
+        {
+            return position;
+        }
+
+        @Nonnull
+        @Override
+        public String getSenderID()
+        {
+            return "cable";
+        }
+    }
+
+    private final class Receiver implements IPacketReceiver
+    {
+        private final Vec3d position;
+
+        Receiver( Vec3d position )
+        {
+            this.position = position;
+        }
+
+        @Nonnull
+        @Override
+        public World getWorld()
+        {
+            return null;
+        }
+
+        @Nonnull
+        @Override
+        public Vec3d getPosition()
+        {
+            return position;
+        }
+
+        @Override
+        public double getRange()
+        {
+            return Double.MAX_VALUE;
+        }
+
+        @Override
+        public boolean isInterdimensional()
+        {
+            return false;
+        }
+
+        @Override
+        public void receiveSameDimension( @Nonnull Packet packet, double distance )
+        {
+            received++;
+        }
+
+        @Override
+        public void receiveDifferentDimension( @Nonnull Packet packet )
+        {
+        }
+    }
+}
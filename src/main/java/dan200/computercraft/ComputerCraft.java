@@ -76,6 +76,10 @@ public final class ComputerCraft implements ModInitializer
     public static int computer_threads = 1;
     public static long maxMainGlobalTime = TimeUnit.MILLISECONDS.toNanos( 10 );
     public static long maxMainComputerTime = TimeUnit.MILLISECONDS.toNanos( 5 );
+    public static String coroutineExecutor = "pool";
+    public static int coroutineMaxThreads = 1024;
+    public static int coroutineLimit = 0;
+    public static int computerTickThreads = 1;
 
     public static boolean http_enable = true;
     public static boolean http_websocket_enable = true;
@@ -103,6 +107,10 @@ public final class ComputerCraft implements ModInitializer
     public static boolean turtlesCanPush = true;
     public static EnumSet<TurtleAction> turtleDisabledActions = EnumSet.noneOf( TurtleAction.class );
 
+    public static boolean metricsEnabled = false;
+    public static String metricsFile = "computercraft-metrics.prom";
+    public static int metricsInterval = 15;
+
     public static final int terminalWidth_computer = 51;
     public static final int terminalHeight_computer = 19;
 
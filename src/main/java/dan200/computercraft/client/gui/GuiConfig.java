@@ -79,6 +79,31 @@ public final class GuiConfig
                 .setSaveConsumer( v -> config.execution.max_main_computer_time = v )
                 .setDefaultValue( Config.defaultConfig.execution.max_main_computer_time )
                 .setMin( 1 )
+                .build() )
+
+            .addEntry( entryBuilder.startStrField( key( "execution.coroutine_executor" ), config.execution.coroutine_executor )
+                .setSaveConsumer( v -> config.execution.coroutine_executor = v )
+                .setDefaultValue( Config.defaultConfig.execution.coroutine_executor )
+                .requireRestart()
+                .build() )
+
+            .addEntry( entryBuilder.startIntField( key( "execution.coroutine_max_threads" ), config.execution.coroutine_max_threads )
+                .setSaveConsumer( v -> config.execution.coroutine_max_threads = v )
+                .setDefaultValue( Config.defaultConfig.execution.coroutine_max_threads )
+                .setMin( 1 )
+                .requireRestart()
+                .build() )
+
+            .addEntry( entryBuilder.startIntField( key( "execution.coroutine_limit" ), config.execution.coroutine_limit )
+                .setSaveConsumer( v -> config.execution.coroutine_limit = v )
+                .setDefaultValue( Config.defaultConfig.execution.coroutine_limit )
+                .setMin( 0 )
+                .build() )
+
+            .addEntry( entryBuilder.startIntField( key( "execution.tick_threads" ), config.execution.tick_threads )
+                .setSaveConsumer( v -> config.execution.tick_threads = v )
+                .setDefaultValue( Config.defaultConfig.execution.tick_threads )
+                .setMin( 1 )
                 .build() );
 
         builder.getOrCreateCategory( key( "http" ) )
@@ -210,6 +235,24 @@ public final class GuiConfig
                 .setDefaultValue( Arrays.asList( Config.defaultConfig.turtle.disabled_actions ) )
                 .build() );
 
+        builder.getOrCreateCategory( key( "metrics" ) )
+
+            .addEntry( entryBuilder.startBooleanToggle( key( "metrics.enabled" ), config.metrics.enabled )
+                .setSaveConsumer( v -> config.metrics.enabled = v )
+                .setDefaultValue( Config.defaultConfig.metrics.enabled )
+                .build() )
+
+            .addEntry( entryBuilder.startStrField( key( "metrics.file" ), config.metrics.file )
+                .setSaveConsumer( v -> config.metrics.file = v )
+                .setDefaultValue( Config.defaultConfig.metrics.file )
+                .build() )
+
+            .addEntry( entryBuilder.startIntField( key( "metrics.interval" ), config.metrics.interval )
+                .setSaveConsumer( v -> config.metrics.interval = v )
+                .setDefaultValue( Config.defaultConfig.metrics.interval )
+                .setMin( 1 )
+                .build() );
+
         return builder.build();
     }
 
@@ -0,0 +1,340 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.client.render;
+
+import dan200.computercraft.core.terminal.Terminal;
+import dan200.computercraft.core.terminal.TextBuffer;
+import dan200.computercraft.shared.util.Palette;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.BitSet;
+
+import static dan200.computercraft.client.gui.FixedWidthFontRenderer.FONT_HEIGHT;
+import static dan200.computercraft.client.gui.FixedWidthFontRenderer.FONT_WIDTH;
+
+/**
+ * The vertices for a monitor's terminal, split into bands of consecutive rows.
+ *
+ * When the terminal changes, only the bands containing a modified row are regenerated, rather than the whole
+ * terminal. Each band is then uploaded to its own display list by {@link TileEntityMonitorRenderer}. This class does
+ * no rendering itself, so may be used (and tested) without an OpenGL context.
+ *
+ * Vertices are emitted as triangles, in terminal pixel coordinates (so one character is {@link
+ * dan200.computercraft.client.gui.FixedWidthFontRenderer#FONT_WIDTH} units wide). Background vertices are stored as
+ * {@code x, y, r, g, b}, and text vertices as {@code x, y, u, v, r, g, b}.
+ */
+public final class TerminalMesh
+{
+    public static final int BACKGROUND_STRIDE = 5;
+    public static final int TEXT_STRIDE = 7;
+
+    /**
+     * The default number of rows in each band. A single-block monitor at the smallest text scale is 12 rows tall, so
+     * this is a band per third of a block.
+     */
+    public static final int DEFAULT_BAND_HEIGHT = 4;
+
+    private static final int VERTICES_PER_QUAD = 6;
+    private static final String BASE16 = "0123456789abcdef";
+
+    private final int bandHeight;
+
+    private Band[] bands = new Band[0];
+    private Terminal terminal;
+    private int width;
+    private int height;
+    private boolean greyscale;
+    private double marginX;
+    private double marginY;
+
+    private int rebuiltVertices;
+
+    public TerminalMesh()
+    {
+        this( DEFAULT_BAND_HEIGHT );
+    }
+
+    public TerminalMesh( int bandHeight )
+    {
+        if( bandHeight <= 0 ) throw new IllegalArgumentException( "bandHeight must be positive" );
+        this.bandHeight = bandHeight;
+    }
+
+    /**
+     * Regenerate any bands which have changed.
+     *
+     * @param terminal  The terminal to build vertices for.
+     * @param dirtyRows The rows which have changed since the last update, as returned by {@link
+     *                  Terminal#pollDirtyRows()}.
+     * @param full      Whether to rebuild every band, such as when the palette has changed.
+     * @param greyscale Whether this terminal should be rendered in greyscale.
+     * @param marginX   The size of the left and right margins, in terminal pixels.
+     * @param marginY   The size of the top and bottom margins, in terminal pixels.
+     * @return Whether any band was regenerated.
+     */
+    public boolean update( @Nonnull Terminal terminal, @Nullable BitSet dirtyRows, boolean full, boolean greyscale, double marginX, double marginY )
+    {
+        rebuiltVertices = 0;
+
+        synchronized( terminal )
+        {
+            int width = terminal.getWidth(), height = terminal.getHeight();
+            if( terminal != this.terminal || width != this.width || height != this.height || greyscale != this.greyscale
+                || marginX != this.marginX || marginY != this.marginY )
+            {
+                this.terminal = terminal;
+                this.width = width;
+                this.height = height;
+                this.greyscale = greyscale;
+                this.marginX = marginX;
+                this.marginY = marginY;
+
+                int bandCount = (height + bandHeight - 1) / bandHeight;
+                if( bands.length != bandCount )
+                {
+                    bands = new Band[bandCount];
+                    for( int i = 0; i < bandCount; i++ ) bands[i] = new Band();
+                }
+                full = true;
+            }
+
+            boolean changed = false;
+            Palette palette = terminal.getPalette();
+            for( int i = 0; i < bands.length; i++ )
+            {
+                int start = i * bandHeight;
+                int end = Math.min( start + bandHeight, height );
+                if( !full )
+                {
+                    int dirty = dirtyRows == null ? -1 : dirtyRows.nextSetBit( start );
+                    if( dirty < 0 || dirty >= end ) continue;
+                }
+
+                bands[i].build( terminal, palette, start, end );
+                rebuiltVertices += bands[i].backgroundVertices + bands[i].textVertices;
+                changed = true;
+            }
+
+            return changed;
+        }
+    }
+
+    /**
+     * Mark every band as needing to be uploaded again, without regenerating it. This should be called when the
+     * display lists have been recreated.
+     */
+    public void markAllDirty()
+    {
+        for( Band band : bands ) band.dirty = true;
+    }
+
+    @Nonnull
+    public Band[] getBands()
+    {
+        return bands;
+    }
+
+    /**
+     * Get the number of vertices which were generated by the last call to {@link #update}.
+     *
+     * @return The number of regenerated vertices.
+     */
+    public int getRebuiltVertices()
+    {
+        return rebuiltVertices;
+    }
+
+    private void buildRow( Band band, Palette palette, int y, double top, double bottom, TextBuffer text, TextBuffer foreground, TextBuffer background )
+    {
+        if( width == 0 ) return;
+
+        // Merge runs of cells with the same background into a single quad. The margins share a colour with the
+        // first and last cell, so extend those runs to cover them.
+        int runStart = 0;
+        int runColour = getColour( background.charAt( 0 ), 15 );
+        for( int x = 1; x <= width; x++ )
+        {
+            int colour = x < width ? getColour( background.charAt( x ), 15 ) : -1;
+            if( colour == runColour ) continue;
+
+            double left = runStart == 0 ? -marginX : runStart * FONT_WIDTH;
+            double right = x == width ? width * FONT_WIDTH + marginX : x * FONT_WIDTH;
+            band.backgroundQuad( left, top, right, bottom, palette, runColour, greyscale );
+
+            runStart = x;
+            runColour = colour;
+        }
+
+        if( text == null ) return;
+
+        for( int x = 0; x < width; x++ )
+        {
+            int index = text.charAt( x );
+            if( index == ' ' ) continue;
+            if( index < 0 || index > 255 ) index = '?';
+
+            band.textQuad( x * FONT_WIDTH, y * FONT_HEIGHT, index, palette, getColour( foreground.charAt( x ), 0 ), greyscale );
+        }
+    }
+
+    private int getColour( char c, int def )
+    {
+        int colour = BASE16.indexOf( c );
+        return colour < 0 || (greyscale && !isGreyScale( colour )) ? def : colour;
+    }
+
+    private static boolean isGreyScale( int colour )
+    {
+        return colour == 0 || colour == 15 || colour == 7 || colour == 8;
+    }
+
+    /**
+     * The vertices for a band of consecutive rows.
+     */
+    public final class Band
+    {
+        private float[] background = new float[0];
+        private int backgroundVertices;
+
+        private float[] text = new float[0];
+        private int textVertices;
+
+        private boolean dirty;
+
+        private void build( Terminal terminal, Palette palette, int start, int end )
+        {
+            backgroundVertices = 0;
+            textVertices = 0;
+            dirty = true;
+
+            for( int y = start; y < end; y++ )
+            {
+                TextBuffer background = terminal.getBackgroundColourLine( y );
+                TextBuffer foreground = terminal.getTextColourLine( y );
+
+                // The top and bottom margins take the colour of the first and last rows.
+                if( y == 0 ) buildRow( this, palette, y, -marginY, 0, null, null, background );
+                buildRow( this, palette, y, y * FONT_HEIGHT, (y + 1) * FONT_HEIGHT, terminal.getLine( y ), foreground, background );
+                if( y == height - 1 )
+                {
+                    buildRow( this, palette, y, height * FONT_HEIGHT, height * FONT_HEIGHT + marginY, null, null, background );
+                }
+            }
+        }
+
+        private void backgroundQuad( double x1, double y1, double x2, double y2, Palette palette, int colour, boolean greyscale )
+        {
+            double[] rgb = getRGB( palette, colour, greyscale );
+            float r = (float) rgb[0], g = (float) rgb[1], b = (float) rgb[2];
+
+            background = ensureCapacity( background, (backgroundVertices + VERTICES_PER_QUAD) * BACKGROUND_STRIDE );
+            backgroundVertex( x1, y1, r, g, b );
+            backgroundVertex( x1, y2, r, g, b );
+            backgroundVertex( x2, y1, r, g, b );
+            backgroundVertex( x2, y1, r, g, b );
+            backgroundVertex( x1, y2, r, g, b );
+            backgroundVertex( x2, y2, r, g, b );
+        }
+
+        private void backgroundVertex( double x, double y, float r, float g, float b )
+        {
+            int offset = backgroundVertices++ * BACKGROUND_STRIDE;
+            background[offset] = (float) x;
+            background[offset + 1] = (float) y;
+            background[offset + 2] = r;
+            background[offset + 3] = g;
+            background[offset + 4] = b;
+        }
+
+        private void textQuad( double x, double y, int index, Palette palette, int colour, boolean greyscale )
+        {
+            double[] rgb = getRGB( palette, colour, greyscale );
+            float r = (float) rgb[0], g = (float) rgb[1], b = (float) rgb[2];
+
+            int column = index % 16;
+            int row = index / 16;
+            float u1 = (1 + column * (FONT_WIDTH + 2)) / 256.0f, u2 = u1 + FONT_WIDTH / 256.0f;
+            float v1 = (1 + row * (FONT_HEIGHT + 2)) / 256.0f, v2 = v1 + FONT_HEIGHT / 256.0f;
+
+            text = ensureCapacity( text, (textVertices + VERTICES_PER_QUAD) * TEXT_STRIDE );
+            textVertex( x, y, u1, v1, r, g, b );
+            textVertex( x, y + FONT_HEIGHT, u1, v2, r, g, b );
+            textVertex( x + FONT_WIDTH, y, u2, v1, r, g, b );
+            textVertex( x + FONT_WIDTH, y, u2, v1, r, g, b );
+            textVertex( x, y + FONT_HEIGHT, u1, v2, r, g, b );
+            textVertex( x + FONT_WIDTH, y + FONT_HEIGHT, u2, v2, r, g, b );
+        }
+
+        private void textVertex( double x, double y, float u, float v, float r, float g, float b )
+        {
+            int offset = textVertices++ * TEXT_STRIDE;
+            text[offset] = (float) x;
+            text[offset + 1] = (float) y;
+            text[offset + 2] = u;
+            text[offset + 3] = v;
+            text[offset + 4] = r;
+            text[offset + 5] = g;
+            text[offset + 6] = b;
+        }
+
+        /**
+         * Whether this band has been regenerated since it was last {@link #clearDirty() uploaded}.
+         *
+         * @return If this band needs to be uploaded.
+         */
+        public boolean isDirty()
+        {
+            return dirty;
+        }
+
+        public void clearDirty()
+        {
+            dirty = false;
+        }
+
+        @Nonnull
+        public float[] getBackground()
+        {
+            return background;
+        }
+
+        public int getBackgroundVertices()
+        {
+            return backgroundVertices;
+        }
+
+        @Nonnull
+        public float[] getText()
+        {
+            return text;
+        }
+
+        public int getTextVertices()
+        {
+            return textVertices;
+        }
+    }
+
+    private static double[] getRGB( Palette palette, int colour, boolean greyscale )
+    {
+        double[] rgb = palette.getColour( 15 - colour );
+        if( !greyscale ) return rgb;
+
+        double grey = (rgb[0] + rgb[1] + rgb[2]) / 3.0;
+        return new double[] { grey, grey, grey };
+    }
+
+    private static float[] ensureCapacity( float[] array, int size )
+    {
+        if( array.length >= size ) return array;
+
+        float[] newArray = new float[Math.max( size, array.length * 2 )];
+        System.arraycopy( array, 0, newArray, 0, array.length );
+        return newArray;
+    }
+}
@@ -104,13 +104,6 @@ public class TileEntityMonitorRenderer extends BlockEntityRenderer<TileMonitor>
                 {
                     Palette palette = terminal.getPalette();
 
-                    // Allocate display lists
-                    if( originTerminal.renderDisplayLists == null )
-                    {
-                        originTerminal.createLists();
-                        redraw = true;
-                    }
-
                     // Draw a terminal
                     boolean greyscale = !originTerminal.isColour();
                     int width = terminal.getWidth();
@@ -126,79 +119,40 @@ public class TileEntityMonitorRenderer extends BlockEntityRenderer<TileMonitor>
                         double yScale = ySize / (height * FixedWidthFontRenderer.FONT_HEIGHT);
                         GlStateManager.scaled( xScale, -yScale, 1.0 );
 
-                        // Draw background
-                        mc.getTextureManager().bindTexture( FixedWidthFontRenderer.BACKGROUND );
-                        if( redraw )
-                        {
-                            // Build background display list
-                            GlStateManager.newList( originTerminal.renderDisplayLists[0], GL11.GL_COMPILE );
-                            try
-                            {
-                                double marginXSize = TileMonitor.RENDER_MARGIN / xScale;
-                                double marginYSize = TileMonitor.RENDER_MARGIN / yScale;
-                                double marginSquash = marginYSize / FixedWidthFontRenderer.FONT_HEIGHT;
+                        // Regenerate the vertices of any rows which have changed.
+                        TerminalMesh mesh = originTerminal.renderMesh;
+                        if( mesh == null ) mesh = originTerminal.renderMesh = new TerminalMesh();
+                        mesh.update(
+                            terminal, terminal.pollDirtyRows(), terminal.pollPaletteDirty(), greyscale,
+                            TileMonitor.RENDER_MARGIN / xScale, TileMonitor.RENDER_MARGIN / yScale
+                        );
 
-                                // Top and bottom margins
-                                GlStateManager.pushMatrix();
-                                try
-                                {
-                                    GlStateManager.scaled( 1.0, marginSquash, 1.0 );
-                                    GlStateManager.translated( 0.0, -marginYSize / marginSquash, 0.0 );
-                                    fontRenderer.drawStringBackgroundPart( 0, 0, terminal.getBackgroundColourLine( 0 ), marginXSize, marginXSize, greyscale, palette );
-                                    GlStateManager.translated( 0.0, (marginYSize + height * FixedWidthFontRenderer.FONT_HEIGHT) / marginSquash, 0.0 );
-                                    fontRenderer.drawStringBackgroundPart( 0, 0, terminal.getBackgroundColourLine( height - 1 ), marginXSize, marginXSize, greyscale, palette );
-                                }
-                                finally
-                                {
-                                    GlStateManager.popMatrix();
-                                }
+                        // Allocate display lists: one for the cursor, and a background and text list for each band.
+                        TerminalMesh.Band[] bands = mesh.getBands();
+                        if( originTerminal.createLists( 1 + bands.length * 2 ) )
+                        {
+                            mesh.markAllDirty();
+                            redraw = true;
+                        }
+                        int[] lists = originTerminal.renderDisplayLists;
 
-                                // Backgrounds
-                                for( int y = 0; y < height; y++ )
-                                {
-                                    fontRenderer.drawStringBackgroundPart(
-                                        0, FixedWidthFontRenderer.FONT_HEIGHT * y,
-                                        terminal.getBackgroundColourLine( y ),
-                                        marginXSize, marginXSize,
-                                        greyscale,
-                                        palette
-                                    );
-                                }
-                            }
-                            finally
-                            {
-                                GlStateManager.endList();
-                            }
+                        for( int band = 0; band < bands.length; band++ )
+                        {
+                            if( !bands[band].isDirty() ) continue;
+                            uploadBand( lists[1 + band * 2], lists[2 + band * 2], bands[band] );
+                            bands[band].clearDirty();
                         }
-                        GlStateManager.callList( originTerminal.renderDisplayLists[0] );
+
+                        // Draw background
+                        mc.getTextureManager().bindTexture( FixedWidthFontRenderer.BACKGROUND );
+                        GlStateManager.disableTexture();
+                        for( int band = 0; band < bands.length; band++ ) GlStateManager.callList( lists[1 + band * 2] );
+                        GlStateManager.enableTexture();
                         GlStateManager.clearCurrentColor();
 
                         // Draw text
                         fontRenderer.bindFont();
-                        if( redraw )
-                        {
-                            // Build text display list
-                            GlStateManager.newList( originTerminal.renderDisplayLists[1], GL11.GL_COMPILE );
-                            try
-                            {
-                                // Lines
-                                for( int y = 0; y < height; y++ )
-                                {
-                                    fontRenderer.drawStringTextPart(
-                                        0, FixedWidthFontRenderer.FONT_HEIGHT * y,
-                                        terminal.getLine( y ),
-                                        terminal.getTextColourLine( y ),
-                                        greyscale,
-                                        palette
-                                    );
-                                }
-                            }
-                            finally
-                            {
-                                GlStateManager.endList();
-                            }
-                        }
-                        GlStateManager.callList( originTerminal.renderDisplayLists[1] );
+                        for( int band = 0; band < bands.length; band++ ) GlStateManager.callList( lists[2 + band * 2] );
                         GlStateManager.clearCurrentColor();
 
                         // Draw cursor
@@ -206,7 +160,7 @@ public class TileEntityMonitorRenderer extends BlockEntityRenderer<TileMonitor>
                         if( redraw )
                         {
                             // Build cursor display list
-                            GlStateManager.newList( originTerminal.renderDisplayLists[2], GL11.GL_COMPILE );
+                            GlStateManager.newList( lists[0], GL11.GL_COMPILE );
                             try
                             {
                                 // Cursor
@@ -232,7 +186,7 @@ public class TileEntityMonitorRenderer extends BlockEntityRenderer<TileMonitor>
                         }
                         if( FrameInfo.getGlobalCursorBlink() )
                         {
-                            GlStateManager.callList( originTerminal.renderDisplayLists[2] );
+                            GlStateManager.callList( lists[0] );
                             GlStateManager.clearCurrentColor();
                         }
                     }
@@ -289,4 +243,47 @@ public class TileEntityMonitorRenderer extends BlockEntityRenderer<TileMonitor>
             GlStateManager.popMatrix();
         }
     }
+
+    private static void uploadBand( int backgroundList, int textList, TerminalMesh.Band band )
+    {
+        Tessellator tessellator = Tessellator.getInstance();
+        BufferBuilder renderer = tessellator.getBufferBuilder();
+
+        GlStateManager.newList( backgroundList, GL11.GL_COMPILE );
+        try
+        {
+            float[] vertices = band.getBackground();
+            renderer.begin( GL11.GL_TRIANGLES, VertexFormats.POSITION_COLOR );
+            for( int i = 0, offset = 0; i < band.getBackgroundVertices(); i++, offset += TerminalMesh.BACKGROUND_STRIDE )
+            {
+                renderer.vertex( vertices[offset], vertices[offset + 1], 0.0 )
+                    .color( vertices[offset + 2], vertices[offset + 3], vertices[offset + 4], 1.0f )
+                    .next();
+            }
+            tessellator.draw();
+        }
+        finally
+        {
+            GlStateManager.endList();
+        }
+
+        GlStateManager.newList( textList, GL11.GL_COMPILE );
+        try
+        {
+            float[] vertices = band.getText();
+            renderer.begin( GL11.GL_TRIANGLES, VertexFormats.POSITION_UV_COLOR );
+            for( int i = 0, offset = 0; i < band.getTextVertices(); i++, offset += TerminalMesh.TEXT_STRIDE )
+            {
+                renderer.vertex( vertices[offset], vertices[offset + 1], 0.0 )
+                    .texture( vertices[offset + 2], vertices[offset + 3] )
+                    .color( vertices[offset + 4], vertices[offset + 5], vertices[offset + 6], 1.0f )
+                    .next();
+            }
+            tessellator.draw();
+        }
+        finally
+        {
+            GlStateManager.endList();
+        }
+    }
 }
@@ -11,15 +11,14 @@ import dan200.computercraft.api.lua.ILuaContext;
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.core.apis.handles.BinaryReadableHandle;
 import dan200.computercraft.core.apis.handles.BinaryWritableHandle;
-import dan200.computercraft.core.apis.handles.EncodedReadableHandle;
 import dan200.computercraft.core.apis.handles.EncodedWritableHandle;
+import dan200.computercraft.core.apis.handles.Utf8ReadableHandle;
 import dan200.computercraft.core.filesystem.FileSystem;
 import dan200.computercraft.core.filesystem.FileSystemException;
 import dan200.computercraft.core.filesystem.FileSystemWrapper;
 import dan200.computercraft.core.tracking.TrackingField;
 
 import javax.annotation.Nonnull;
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
@@ -249,8 +248,8 @@ public class FSAPI implements ILuaAPI
                         case "r":
                         {
                             // Open the file for reading, then create a wrapper around the reader
-                            FileSystemWrapper<BufferedReader> reader = m_fileSystem.openForRead( path, EncodedReadableHandle::openUtf8 );
-                            return new Object[] { new EncodedReadableHandle( reader.get(), reader ) };
+                            FileSystemWrapper<ReadableByteChannel> reader = m_fileSystem.openForRead( path, Function.identity() );
+                            return new Object[] { new Utf8ReadableHandle( reader.get(), reader ) };
                         }
                         case "w":
                         {
@@ -91,7 +91,7 @@ public class HTTPAPI implements ILuaAPI
             {
                 String address, postString, requestMethod;
                 Map<Object, Object> headerTable;
-                boolean binary, redirect;
+                boolean binary, redirect, stream;
 
                 if( args.length >= 1 && args[0] instanceof Map )
                 {
@@ -102,6 +102,7 @@ public class HTTPAPI implements ILuaAPI
                     binary = optBooleanField( options, "binary", false );
                     requestMethod = optStringField( options, "method", null );
                     redirect = optBooleanField( options, "redirect", true );
+                    stream = optBooleanField( options, "stream", false );
 
                 }
                 else
@@ -113,6 +114,7 @@ public class HTTPAPI implements ILuaAPI
                     binary = optBoolean( args, 3, false );
                     requestMethod = null;
                     redirect = true;
+                    stream = false;
                 }
 
                 HttpHeaders headers = getHeaders( headerTable );
@@ -136,7 +138,7 @@ public class HTTPAPI implements ILuaAPI
                 {
                     URI uri = HttpRequest.checkUri( address );
 
-                    HttpRequest request = new HttpRequest( requests, m_apiEnvironment, address, postString, headers, binary, redirect );
+                    HttpRequest request = new HttpRequest( requests, m_apiEnvironment, address, postString, headers, binary, redirect, stream );
 
                     long requestBody = request.body().readableBytes() + HttpRequest.getHeaderSize( headers );
                     if( ComputerCraft.httpMaxUpload != 0 && requestBody > ComputerCraft.httpMaxUpload )
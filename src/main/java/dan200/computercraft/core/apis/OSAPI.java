@@ -9,6 +9,7 @@ package dan200.computercraft.core.apis;
 import dan200.computercraft.api.lua.ILuaAPI;
 import dan200.computercraft.api.lua.ILuaContext;
 import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.core.computer.TimerWheel;
 import dan200.computercraft.shared.util.StringUtil;
 
 import javax.annotation.Nonnull;
@@ -25,8 +26,18 @@ public class OSAPI implements ILuaAPI
 {
     private IAPIEnvironment m_apiEnvironment;
 
-    private final Map<Integer, Timer> m_timers;
+    /**
+     * All active timers, scheduled on the {@link TimerWheel#global() global timer wheel}.
+     */
+    private final Map<Integer, TimerWheel.Timer> m_timers;
     private final Map<Integer, Alarm> m_alarms;
+
+    /**
+     * All active alarms, ordered by when they will go off. This means we only need to look at the first alarm each
+     * tick.
+     */
+    private final TreeSet<Alarm> m_alarmQueue;
+
     private int m_clock;
     private double m_time;
     private int m_day;
@@ -34,33 +45,29 @@ public class OSAPI implements ILuaAPI
     private int m_nextTimerToken;
     private int m_nextAlarmToken;
 
-    private static class Timer
-    {
-        public int m_ticksLeft;
-
-        public Timer( int ticksLeft )
-        {
-            m_ticksLeft = ticksLeft;
-        }
-    }
-
     private static class Alarm implements Comparable<Alarm>
     {
+        public final int m_token;
         public final double m_time;
         public final int m_day;
 
-        public Alarm( double time, int day )
+        public Alarm( int token, double time, int day )
         {
+            m_token = token;
             m_time = time;
             m_day = day;
         }
 
+        public double getTotalTime()
+        {
+            return m_day * 24.0 + m_time;
+        }
+
         @Override
         public int compareTo( @Nonnull Alarm o )
         {
-            double t = m_day * 24.0 + m_time;
-            double ot = m_day * 24.0 + m_time;
-            return Double.compare( t, ot );
+            int compare = Double.compare( getTotalTime(), o.getTotalTime() );
+            return compare != 0 ? compare : Integer.compare( m_token, o.m_token );
         }
     }
 
@@ -71,6 +78,7 @@ public class OSAPI implements ILuaAPI
         m_nextAlarmToken = 0;
         m_timers = new HashMap<>();
         m_alarms = new HashMap<>();
+        m_alarmQueue = new TreeSet<>();
     }
 
     // ILuaAPI implementation
@@ -90,39 +98,17 @@ public class OSAPI implements ILuaAPI
         m_day = m_apiEnvironment.getComputerEnvironment().getDay();
         m_clock = 0;
 
-        synchronized( m_timers )
-        {
-            m_timers.clear();
-        }
-
-        synchronized( m_alarms )
-        {
-            m_alarms.clear();
-        }
+        cancelTimers();
+        cancelAlarms();
     }
 
     @Override
     public void update()
     {
+        // Update the clock. Timers themselves are advanced by the global timer wheel.
         synchronized( m_timers )
         {
-            // Update the clock
             m_clock++;
-
-            // Countdown all of our active timers
-            Iterator<Map.Entry<Integer, Timer>> it = m_timers.entrySet().iterator();
-            while( it.hasNext() )
-            {
-                Map.Entry<Integer, Timer> entry = it.next();
-                Timer timer = entry.getValue();
-                timer.m_ticksLeft--;
-                if( timer.m_ticksLeft <= 0 )
-                {
-                    // Queue the "timer" event
-                    queueLuaEvent( "timer", new Object[] { entry.getKey() } );
-                    it.remove();
-                }
-            }
         }
 
         // Wait for all of our alarms
@@ -136,17 +122,11 @@ public class OSAPI implements ILuaAPI
             if( time > previousTime || day > previousDay )
             {
                 double now = m_day * 24.0 + m_time;
-                Iterator<Map.Entry<Integer, Alarm>> it = m_alarms.entrySet().iterator();
-                while( it.hasNext() )
+                while( !m_alarmQueue.isEmpty() && now >= m_alarmQueue.first().getTotalTime() )
                 {
-                    Map.Entry<Integer, Alarm> entry = it.next();
-                    Alarm alarm = entry.getValue();
-                    double t = alarm.m_day * 24.0 + alarm.m_time;
-                    if( now >= t )
-                    {
-                        queueLuaEvent( "alarm", new Object[] { entry.getKey() } );
-                        it.remove();
-                    }
+                    Alarm alarm = m_alarmQueue.pollFirst();
+                    m_alarms.remove( alarm.m_token );
+                    queueLuaEvent( "alarm", new Object[] { alarm.m_token } );
                 }
             }
 
@@ -157,18 +137,40 @@ public class OSAPI implements ILuaAPI
 
     @Override
     public void shutdown()
+    {
+        cancelTimers();
+        cancelAlarms();
+    }
+
+    private void cancelTimers()
     {
         synchronized( m_timers )
         {
+            for( TimerWheel.Timer timer : m_timers.values() ) timer.cancel();
             m_timers.clear();
         }
+    }
 
+    private void cancelAlarms()
+    {
         synchronized( m_alarms )
         {
             m_alarms.clear();
+            m_alarmQueue.clear();
         }
     }
 
+    private void fireTimer( int token )
+    {
+        synchronized( m_timers )
+        {
+            // If the timer was cancelled after it expired, but before we got here, then don't queue the event.
+            if( m_timers.remove( token ) == null ) return;
+        }
+
+        queueLuaEvent( "timer", new Object[] { token } );
+    }
+
     @Nonnull
     @Override
     public String[] getMethodNames()
@@ -234,8 +236,9 @@ public class OSAPI implements ILuaAPI
                 double timer = getReal( args, 0 );
                 synchronized( m_timers )
                 {
-                    m_timers.put( m_nextTimerToken, new Timer( (int) Math.round( timer / 0.05 ) ) );
-                    return new Object[] { m_nextTimerToken++ };
+                    int token = m_nextTimerToken++;
+                    m_timers.put( token, TimerWheel.global().schedule( (int) Math.round( timer / 0.05 ), () -> fireTimer( token ) ) );
+                    return new Object[] { token };
                 }
             }
             case 2:
@@ -249,8 +252,11 @@ public class OSAPI implements ILuaAPI
                 synchronized( m_alarms )
                 {
                     int day = time > m_time ? m_day : m_day + 1;
-                    m_alarms.put( m_nextAlarmToken, new Alarm( time, day ) );
-                    return new Object[] { m_nextAlarmToken++ };
+                    int token = m_nextAlarmToken++;
+                    Alarm alarm = new Alarm( token, time, day );
+                    m_alarms.put( token, alarm );
+                    m_alarmQueue.add( alarm );
+                    return new Object[] { token };
                 }
             }
             case 3: // shutdown
@@ -350,7 +356,8 @@ public class OSAPI implements ILuaAPI
                 int token = getInt( args, 0 );
                 synchronized( m_timers )
                 {
-                    m_timers.remove( token );
+                    TimerWheel.Timer timer = m_timers.remove( token );
+                    if( timer != null ) timer.cancel();
                 }
                 return null;
             }
@@ -360,7 +367,8 @@ public class OSAPI implements ILuaAPI
                 int token = getInt( args, 0 );
                 synchronized( m_alarms )
                 {
-                    m_alarms.remove( token );
+                    Alarm alarm = m_alarms.remove( token );
+                    if( alarm != null ) m_alarmQueue.remove( alarm );
                 }
                 return null;
             }
@@ -10,6 +10,7 @@ import dan200.computercraft.api.filesystem.IMount;
 import dan200.computercraft.api.filesystem.IWritableMount;
 import dan200.computercraft.api.lua.ILuaAPI;
 import dan200.computercraft.api.lua.ILuaContext;
+import dan200.computercraft.api.lua.ILuaObject;
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.api.peripheral.IPeripheral;
 import dan200.computercraft.core.computer.ComputerSide;
@@ -26,17 +27,23 @@ import static dan200.computercraft.core.apis.ArgumentHelper.getString;
 
 public class PeripheralAPI implements ILuaAPI, IAPIEnvironment.IPeripheralChangeListener
 {
-    private class PeripheralWrapper extends ComputerAccess
+    /**
+     * Wraps a peripheral attached to one side of this computer.
+     *
+     * This also acts as the {@link ILuaObject} returned by {@code peripheral.wrap}, meaning each method is bound to its
+     * index when wrapped, rather than being looked up by name on every call.
+     */
+    private class PeripheralWrapper extends ComputerAccess implements ILuaObject
     {
-        private final String m_side;
+        private final ComputerSide m_side;
         private final IPeripheral m_peripheral;
 
-        private String m_type;
-        private String[] m_methods;
-        private Map<String, Integer> m_methodMap;
+        private final String m_type;
+        private final String[] m_methods;
+        private final Map<String, Integer> m_methodMap;
         private boolean m_attached;
 
-        public PeripheralWrapper( IPeripheral peripheral, String side )
+        public PeripheralWrapper( IPeripheral peripheral, ComputerSide side )
         {
             super( m_environment );
             m_side = side;
@@ -73,6 +80,13 @@ public class PeripheralAPI implements ILuaAPI, IAPIEnvironment.IPeripheralChange
             return m_methods;
         }
 
+        @Nonnull
+        @Override
+        public String[] getMethodNames()
+        {
+            return m_methods;
+        }
+
         public synchronized boolean isAttached()
         {
             return m_attached;
@@ -100,23 +114,33 @@ public class PeripheralAPI implements ILuaAPI, IAPIEnvironment.IPeripheralChange
 
         public Object[] call( ILuaContext context, String methodName, Object[] arguments ) throws LuaException, InterruptedException
         {
-            int method = -1;
-            synchronized( this )
+            // The method map is never modified after construction, so there is no need to lock here.
+            Integer method = m_methodMap.get( methodName );
+            if( method == null ) throw new LuaException( "No such method " + methodName );
+
+            m_environment.addTrackingChange( TrackingField.PERIPHERAL_OPS );
+            return m_peripheral.callMethod( this, context, method, arguments );
+        }
+
+        @Override
+        public Object[] callMethod( @Nonnull ILuaContext context, int method, @Nonnull Object[] arguments ) throws LuaException, InterruptedException
+        {
+            PeripheralWrapper current;
+            synchronized( m_peripherals )
             {
-                if( m_methodMap.containsKey( methodName ) )
-                {
-                    method = m_methodMap.get( methodName );
-                }
+                current = m_peripherals[m_side.ordinal()];
             }
-            if( method >= 0 )
+
+            if( current == this )
             {
                 m_environment.addTrackingChange( TrackingField.PERIPHERAL_OPS );
                 return m_peripheral.callMethod( this, context, method, arguments );
             }
-            else
-            {
-                throw new LuaException( "No such method " + methodName );
-            }
+
+            // The peripheral has changed since this was wrapped. Look the method up by name on the new one, so wrapped
+            // peripherals behave the same as peripheral.call (which returns nothing if the side is empty).
+            if( current == null ) return null;
+            return current.call( context, m_methods[method], arguments );
         }
 
         // IComputerAccess implementation
@@ -181,7 +205,7 @@ public class PeripheralAPI implements ILuaAPI, IAPIEnvironment.IPeripheralChange
             {
                 throw new RuntimeException( "You are not attached to this Computer" );
             }
-            return m_side;
+            return m_side.getName();
         }
 
         @Nonnull
@@ -263,7 +287,7 @@ public class PeripheralAPI implements ILuaAPI, IAPIEnvironment.IPeripheralChange
 
             // Assign the new peripheral
             m_peripherals[index] = newPeripheral == null ? null
-                : new PeripheralWrapper( newPeripheral, side.getName() );
+                : new PeripheralWrapper( newPeripheral, side );
 
             if( m_peripherals[index] != null )
             {
@@ -326,7 +350,8 @@ public class PeripheralAPI implements ILuaAPI, IAPIEnvironment.IPeripheralChange
             "isPresent",
             "getType",
             "getMethods",
-            "call"
+            "call",
+            "wrap"
         };
     }
 
@@ -413,6 +438,20 @@ public class PeripheralAPI implements ILuaAPI, IAPIEnvironment.IPeripheralChange
                 }
                 throw new LuaException( "No peripheral attached" );
             }
+            case 4:
+            {
+                // wrap
+                ComputerSide side = ComputerSide.valueOfInsensitive( getString( args, 0 ) );
+                if( side != null )
+                {
+                    synchronized( m_peripherals )
+                    {
+                        PeripheralWrapper p = m_peripherals[side.ordinal()];
+                        if( p != null ) return new Object[] { p };
+                    }
+                }
+                return null;
+            }
             default:
                 return null;
         }
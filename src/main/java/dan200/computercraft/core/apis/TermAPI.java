@@ -99,7 +99,7 @@ public class TermAPI implements ILuaAPI
         if( terminal.getPalette() != null )
         {
             terminal.getPalette().setColour( colour, r, g, b );
-            terminal.setChanged();
+            terminal.setPaletteChanged();
         }
     }
 
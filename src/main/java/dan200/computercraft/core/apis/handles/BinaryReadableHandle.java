@@ -29,12 +29,19 @@ public class BinaryReadableHandle extends HandleGeneric
 {
     private static final int BUFFER_SIZE = 8192;
 
+    /**
+     * The largest array we'll attempt to read a file into in one go. Some JVMs reserve a few words at the end of an
+     * array, so we stay slightly below {@link Integer#MAX_VALUE}.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     private static final String[] METHOD_NAMES = new String[] { "read", "readAll", "readLine", "close" };
     private static final String[] METHOD_SEEK_NAMES = ObjectArrays.concat( METHOD_NAMES, new String[] { "seek" }, String.class );
 
     private final ReadableByteChannel m_reader;
     private final SeekableByteChannel m_seekable;
     private final ByteBuffer single = ByteBuffer.allocate( 1 );
+    private ByteBuffer m_scratch;
 
     public BinaryReadableHandle( ReadableByteChannel channel, Closeable closeable )
     {
@@ -76,18 +83,31 @@ public class BinaryReadableHandle extends HandleGeneric
                             return m_seekable.position() >= m_seekable.size() ? null : new Object[] { "" };
                         }
 
+                        if( m_seekable != null )
+                        {
+                            // We know how much of the file remains, so read straight into an array of the correct
+                            // size rather than building it up from smaller buffers.
+                            long remaining = m_seekable.size() - m_seekable.position();
+                            if( remaining > 0 )
+                            {
+                                byte[] bytes = readFully( (int) Math.min( count, remaining ) );
+                                return bytes.length == 0 ? null : new Object[] { bytes };
+                            }
+                        }
+
                         if( count <= BUFFER_SIZE )
                         {
-                            ByteBuffer buffer = ByteBuffer.allocate( count );
+                            ByteBuffer buffer = getScratch();
+                            ((Buffer) buffer).limit( count );
 
                             int read = m_reader.read( buffer );
                             if( read < 0 ) return null;
-                            return new Object[] { read < count ? Arrays.copyOf( buffer.array(), read ) : buffer.array() };
+                            return new Object[] { Arrays.copyOf( buffer.array(), read ) };
                         }
                         else
                         {
                             // Read the initial set of characters, failing if none are read.
-                            ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+                            ByteBuffer buffer = getScratch();
                             int read = m_reader.read( buffer );
                             if( read < 0 ) return null;
 
@@ -101,7 +121,7 @@ public class BinaryReadableHandle extends HandleGeneric
                             // than doubling up the buffer each time.
                             int totalRead = read;
                             List<ByteBuffer> parts = new ArrayList<>( 4 );
-                            parts.add( buffer );
+                            parts.add( ByteBuffer.allocate( read ).put( buffer.array(), 0, read ) );
                             while( read >= BUFFER_SIZE && totalRead < count )
                             {
                                 buffer = ByteBuffer.allocate( Math.min( BUFFER_SIZE, count - totalRead ) );
@@ -138,25 +158,31 @@ public class BinaryReadableHandle extends HandleGeneric
                 checkOpen();
                 try
                 {
-                    int expected = 32;
                     if( m_seekable != null )
                     {
-                        expected = Math.max( expected, (int) (m_seekable.size() - m_seekable.position()) );
-                    }
-                    ByteArrayOutputStream stream = new ByteArrayOutputStream( expected );
+                        long remaining = m_seekable.size() - m_seekable.position();
+                        if( remaining > 0 && remaining <= MAX_ARRAY_SIZE )
+                        {
+                            // Read the remainder of the file in one go. The file may have been written to since we
+                            // checked its size, so we still need to check for (and append) any trailing data.
+                            byte[] bytes = readFully( (int) remaining );
+                            if( bytes.length == 0 ) return null;
+                            if( bytes.length < remaining ) return new Object[] { bytes };
 
-                    ByteBuffer buf = ByteBuffer.allocate( 8192 );
-                    boolean readAnything = false;
-                    while( true )
-                    {
-                        ((Buffer) buf).clear();
-                        int r = m_reader.read( buf );
-                        if( r == -1 ) break;
+                            ByteBuffer buffer = getScratch();
+                            int read = m_reader.read( buffer );
+                            if( read <= 0 ) return new Object[] { bytes };
 
-                        readAnything = true;
-                        stream.write( buf.array(), 0, r );
+                            ByteArrayOutputStream stream = new ByteArrayOutputStream( bytes.length + read );
+                            stream.write( bytes, 0, bytes.length );
+                            stream.write( buffer.array(), 0, read );
+                            readRemaining( stream );
+                            return new Object[] { stream.toByteArray() };
+                        }
                     }
-                    return readAnything ? new Object[] { stream.toByteArray() } : null;
+
+                    ByteArrayOutputStream stream = new ByteArrayOutputStream( 32 );
+                    return readRemaining( stream ) ? new Object[] { stream.toByteArray() } : null;
                 }
                 catch( IOException e )
                 {
@@ -222,4 +248,53 @@ public class BinaryReadableHandle extends HandleGeneric
                 return null;
         }
     }
+
+    private ByteBuffer getScratch()
+    {
+        ByteBuffer scratch = m_scratch;
+        if( scratch == null ) scratch = m_scratch = ByteBuffer.allocate( BUFFER_SIZE );
+        ((Buffer) scratch).clear();
+        return scratch;
+    }
+
+    /**
+     * Read exactly {@code length} bytes into a new array, or fewer if the end of the channel is reached first.
+     *
+     * @param length The number of bytes to read.
+     * @return The bytes which were read.
+     * @throws IOException If the channel could not be read.
+     */
+    private byte[] readFully( int length ) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        while( buffer.hasRemaining() )
+        {
+            if( m_reader.read( buffer ) < 0 ) break;
+        }
+
+        return buffer.position() == length ? bytes : Arrays.copyOf( bytes, buffer.position() );
+    }
+
+    /**
+     * Copy the rest of the channel into a stream.
+     *
+     * @param stream The stream to write to.
+     * @return Whether anything was read.
+     * @throws IOException If the channel could not be read.
+     */
+    private boolean readRemaining( ByteArrayOutputStream stream ) throws IOException
+    {
+        ByteBuffer buffer = getScratch();
+        boolean readAnything = false;
+        while( true )
+        {
+            ((Buffer) buffer).clear();
+            int read = m_reader.read( buffer );
+            if( read == -1 ) return readAnything;
+
+            readAnything = true;
+            stream.write( buffer.array(), 0, read );
+        }
+    }
 }
@@ -0,0 +1,429 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.apis.handles;
+
+import dan200.computercraft.api.lua.ILuaContext;
+import dan200.computercraft.api.lua.LuaException;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static dan200.computercraft.core.apis.ArgumentHelper.optBoolean;
+import static dan200.computercraft.core.apis.ArgumentHelper.optInt;
+
+/**
+ * A text file handle which reads UTF-8 directly from a channel.
+ *
+ * This behaves identically to an {@link EncodedReadableHandle} reading from {@link EncodedReadableHandle#openUtf8},
+ * but avoids decoding into a {@link String}, which Cobalt would then have to convert back into bytes. Instead, we
+ * scan for newlines in a reusable byte buffer, and return byte arrays to Lua. Runs of ASCII are copied across as-is,
+ * and only lines containing other characters are passed through a {@link CharsetDecoder}. As with strings, characters
+ * outside of the 0-255 range are converted to {@code ?}.
+ */
+public class Utf8ReadableHandle extends HandleGeneric
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ReadableByteChannel m_reader;
+    private final SeekableByteChannel m_seekable;
+    private final CharsetDecoder m_decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput( CodingErrorAction.REPLACE )
+        .onUnmappableCharacter( CodingErrorAction.REPLACE );
+
+    private byte[] m_buffer = new byte[BUFFER_SIZE];
+    private int m_position;
+    private int m_limit;
+    private boolean m_eof;
+
+    /**
+     * Whether the last line ended in a {@code \r}, and so a following {@code \n} should be skipped.
+     */
+    private boolean m_skipLf;
+
+    /**
+     * A character which was decoded by {@link #read(int)}, but did not fit in its result, or {@code -1}. This happens
+     * when a sequence decodes to a surrogate pair, or a truncated sequence and the character after it.
+     */
+    private int m_pending = -1;
+
+    private final char[] m_chars = new char[2];
+    private CharBuffer m_decodedChars;
+    private byte[] m_decoded;
+
+    private byte[] m_line;
+    private int m_lineOffset;
+    private int m_lineLength;
+    private int m_linePrefix = -1;
+
+    public Utf8ReadableHandle( @Nonnull ReadableByteChannel channel, @Nonnull Closeable closeable )
+    {
+        super( closeable );
+        m_reader = channel;
+        m_seekable = asSeekable( channel );
+    }
+
+    public Utf8ReadableHandle( @Nonnull ReadableByteChannel channel )
+    {
+        this( channel, channel );
+    }
+
+    @Nonnull
+    @Override
+    public String[] getMethodNames()
+    {
+        return new String[] {
+            "readLine",
+            "readAll",
+            "read",
+            "close",
+        };
+    }
+
+    @Override
+    public Object[] callMethod( @Nonnull ILuaContext context, int method, @Nonnull Object[] args ) throws LuaException
+    {
+        switch( method )
+        {
+            case 0: // readLine
+            {
+                checkOpen();
+                boolean withTrailing = optBoolean( args, 0, false );
+                try
+                {
+                    if( !nextLine() ) return null;
+
+                    int prefix = m_linePrefix >= 0 ? 1 : 0;
+                    byte[] line = new byte[prefix + m_lineLength + (withTrailing ? 1 : 0)];
+                    if( prefix > 0 ) line[0] = (byte) m_linePrefix;
+                    System.arraycopy( m_line, m_lineOffset, line, prefix, m_lineLength );
+
+                    // While this is technically inaccurate, it's better than nothing
+                    if( withTrailing ) line[line.length - 1] = '\n';
+                    return new Object[] { line };
+                }
+                catch( IOException e )
+                {
+                    return null;
+                }
+            }
+            case 1: // readAll
+                checkOpen();
+                try
+                {
+                    return new Object[] { readAll() };
+                }
+                catch( IOException e )
+                {
+                    return null;
+                }
+            case 2: // read
+                checkOpen();
+                try
+                {
+                    int count = optInt( args, 0, 1 );
+                    if( count < 0 )
+                    {
+                        // Whilst this may seem absurd to allow reading 0 characters, PUC Lua it so
+                        // it seems best to remain somewhat consistent.
+                        throw new LuaException( "Cannot read a negative number of characters" );
+                    }
+                    else if( count == 0 )
+                    {
+                        return new Object[] { EMPTY };
+                    }
+
+                    return read( count );
+                }
+                catch( IOException e )
+                {
+                    return null;
+                }
+            case 3: // close
+                close();
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Decode a whole file, returning exactly what {@code readAll} would.
+     *
+     * @param contents The contents of the file.
+     * @return The file's contents, as Lua would see them.
+     */
+    public static byte[] readAll( @Nonnull byte[] contents )
+    {
+        try
+        {
+            return new Utf8ReadableHandle( new ArrayByteChannel( contents ) ).readAll();
+        }
+        catch( IOException e )
+        {
+            // ArrayByteChannel never throws when reading.
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private byte[] readAll() throws IOException
+    {
+        // We don't know exactly how long the result will be, but the number of bytes remaining is a good upper bound.
+        long expected = m_limit - m_position;
+        if( m_seekable != null ) expected += Math.max( 0, m_seekable.size() - m_seekable.position() );
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream( (int) Math.max( 32, Math.min( expected, MAX_ARRAY_SIZE ) ) );
+
+        // Lines are joined with \n, and so the final line terminator is dropped.
+        boolean first = true;
+        while( nextLine() )
+        {
+            if( !first ) result.write( '\n' );
+            first = false;
+            if( m_linePrefix >= 0 ) result.write( m_linePrefix );
+            result.write( m_line, m_lineOffset, m_lineLength );
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * Read up to {@code count} characters, converting them to bytes.
+     *
+     * @param count The number of characters to read.
+     * @return The characters which were read, or {@code null} if we are at the end of the file.
+     * @throws IOException If the channel could not be read.
+     */
+    private Object[] read( int count ) throws IOException
+    {
+        skipLf();
+
+        byte[] out = new byte[Math.min( count, BUFFER_SIZE )];
+        int written = 0;
+        if( m_pending >= 0 )
+        {
+            out[written++] = (byte) m_pending;
+            m_pending = -1;
+        }
+
+        while( written < count )
+        {
+            if( m_position >= m_limit && !fill() ) break;
+
+            // Copy across as much ASCII as we can in one go.
+            int end = Math.min( m_limit, m_position + (count - written) );
+            int ascii = m_position;
+            while( ascii < end && m_buffer[ascii] >= 0 ) ascii++;
+            if( ascii > m_position )
+            {
+                int length = ascii - m_position;
+                out = ensureCapacity( out, written + length, count );
+                System.arraycopy( m_buffer, m_position, out, written, length );
+                written += length;
+                m_position = ascii;
+                continue;
+            }
+
+            // Otherwise decode a single character. Ensure we've a full sequence buffered first.
+            while( m_limit - m_position < 4 )
+            {
+                if( !fill() ) break;
+            }
+
+            ByteBuffer input = ByteBuffer.wrap( m_buffer, m_position, m_limit - m_position );
+            CharBuffer chars = CharBuffer.wrap( m_chars, 0, 1 );
+            m_decoder.reset();
+            m_decoder.decode( input, chars, m_eof );
+            if( chars.position() == 0 )
+            {
+                // This sequence may decode to a surrogate pair, which needs more room. We read both characters, but
+                // may only be able to return one of them.
+                m_decoder.reset();
+                chars = CharBuffer.wrap( m_chars, 0, 2 );
+                m_decoder.decode( input, chars, m_eof );
+            }
+
+            m_position = input.position();
+            int decoded = chars.position();
+            if( decoded == 0 ) break;
+
+            out = ensureCapacity( out, written + 1, count );
+            out[written++] = toByte( m_chars[0] );
+            if( decoded > 1 )
+            {
+                if( written < count )
+                {
+                    out = ensureCapacity( out, written + 1, count );
+                    out[written++] = toByte( m_chars[1] );
+                }
+                else
+                {
+                    m_pending = toByte( m_chars[1] ) & 0xFF;
+                }
+            }
+        }
+
+        if( written == 0 ) return null;
+        return new Object[] { written == out.length ? out : Arrays.copyOf( out, written ) };
+    }
+
+    /**
+     * Find the next line in the file, storing it in {@link #m_line}. A line is terminated by {@code \n}, {@code \r} or
+     * {@code \r\n}, as with {@link java.io.BufferedReader#readLine()}.
+     *
+     * @return Whether a line was read, or {@code false} if we are at the end of the file.
+     * @throws IOException If the channel could not be read.
+     */
+    private boolean nextLine() throws IOException
+    {
+        skipLf();
+
+        int pending = m_pending;
+        m_pending = -1;
+        m_linePrefix = -1;
+        if( pending == '\n' || pending == '\r' )
+        {
+            setLine( 0, 0, true );
+            m_skipLf = pending == '\r';
+            return true;
+        }
+
+        int scanned = 0;
+        boolean ascii = true;
+        while( true )
+        {
+            int start = m_position;
+            for( int i = start + scanned; i < m_limit; i++ )
+            {
+                byte b = m_buffer[i];
+                if( b == '\n' || b == '\r' )
+                {
+                    setLine( start, i, ascii );
+                    m_linePrefix = pending;
+                    m_position = i + 1;
+                    m_skipLf = b == '\r';
+                    return true;
+                }
+                if( b < 0 ) ascii = false;
+            }
+
+            // We've not found a newline, so read some more. This will shift the unread bytes to the start of the
+            // buffer, so we track how much we've scanned rather than an absolute index.
+            scanned = m_limit - start;
+            if( !fill() )
+            {
+                if( scanned == 0 && pending < 0 ) return false;
+
+                setLine( m_position, m_limit, ascii );
+                m_linePrefix = pending;
+                m_position = m_limit;
+                return true;
+            }
+        }
+    }
+
+    private void setLine( int start, int end, boolean ascii )
+    {
+        if( ascii )
+        {
+            m_line = m_buffer;
+            m_lineOffset = start;
+            m_lineLength = end - start;
+            return;
+        }
+
+        // UTF-8 never produces more characters than there are bytes, so this buffer will always be large enough.
+        int length = end - start;
+        if( m_decodedChars == null || m_decodedChars.capacity() < length )
+        {
+            m_decodedChars = CharBuffer.allocate( Math.max( length, BUFFER_SIZE ) );
+            m_decoded = new byte[m_decodedChars.capacity()];
+        }
+
+        CharBuffer chars = m_decodedChars;
+        chars.clear();
+        m_decoder.reset();
+        m_decoder.decode( ByteBuffer.wrap( m_buffer, start, length ), chars, true );
+        m_decoder.flush( chars );
+
+        int decoded = chars.position();
+        char[] array = chars.array();
+        for( int i = 0; i < decoded; i++ ) m_decoded[i] = toByte( array[i] );
+
+        m_line = m_decoded;
+        m_lineOffset = 0;
+        m_lineLength = decoded;
+    }
+
+    private void skipLf() throws IOException
+    {
+        if( !m_skipLf ) return;
+        m_skipLf = false;
+        if( (m_position < m_limit || fill()) && m_buffer[m_position] == '\n' ) m_position++;
+    }
+
+    /**
+     * Read more data into the buffer, discarding any bytes which have already been consumed, and growing the buffer if
+     * it is full.
+     *
+     * @return Whether anything was read, or {@code false} if we are at the end of the file.
+     * @throws IOException If the channel could not be read.
+     */
+    private boolean fill() throws IOException
+    {
+        if( m_eof ) return false;
+
+        if( m_position > 0 )
+        {
+            System.arraycopy( m_buffer, m_position, m_buffer, 0, m_limit - m_position );
+            m_limit -= m_position;
+            m_position = 0;
+        }
+        else if( m_limit == m_buffer.length )
+        {
+            m_buffer = Arrays.copyOf( m_buffer, m_buffer.length * 2 );
+        }
+
+        int read;
+        do
+        {
+            read = m_reader.read( ByteBuffer.wrap( m_buffer, m_limit, m_buffer.length - m_limit ) );
+        } while( read == 0 );
+
+        if( read < 0 )
+        {
+            m_eof = true;
+            return false;
+        }
+
+        m_limit += read;
+        return true;
+    }
+
+    private static byte toByte( char c )
+    {
+        return c < 256 ? (byte) c : (byte) '?';
+    }
+
+    private static byte[] ensureCapacity( byte[] array, int size, int max )
+    {
+        if( array.length >= size ) return array;
+        return Arrays.copyOf( array, Math.min( Math.max( size, array.length * 2 ), max ) );
+    }
+}
@@ -18,6 +18,7 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ConnectTimeoutException;
@@ -29,6 +30,7 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.timeout.ReadTimeoutException;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 
+import java.lang.ref.WeakReference;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -52,6 +54,7 @@ public class HttpRequest extends Resource<HttpRequest>
     private Future<?> executorFuture;
     private ChannelFuture connectFuture;
     private HttpRequestHandler currentRequest;
+    private WeakReference<ILuaObject> streamHandle;
 
     private final IAPIEnvironment environment;
 
@@ -59,10 +62,11 @@ public class HttpRequest extends Resource<HttpRequest>
     private final ByteBuf postBuffer;
     private final HttpHeaders headers;
     private final boolean binary;
+    private final boolean stream;
 
     final AtomicInteger redirects;
 
-    public HttpRequest( ResourceGroup<HttpRequest> limiter, IAPIEnvironment environment, String address, String postText, HttpHeaders headers, boolean binary, boolean followRedirects )
+    public HttpRequest( ResourceGroup<HttpRequest> limiter, IAPIEnvironment environment, String address, String postText, HttpHeaders headers, boolean binary, boolean followRedirects, boolean stream )
     {
         super( limiter );
         this.environment = environment;
@@ -72,6 +76,7 @@ public class HttpRequest extends Resource<HttpRequest>
             : Unpooled.buffer( 0 );
         this.headers = headers;
         this.binary = binary;
+        this.stream = stream;
         redirects = new AtomicInteger( followRedirects ? MAX_REDIRECTS : 0 );
 
         if( postText != null )
@@ -172,7 +177,17 @@ public class HttpRequest extends Resource<HttpRequest>
 
                         if( ComputerCraft.httpTimeout > 0 )
                         {
-                            p.addLast( new ReadTimeoutHandler( ComputerCraft.httpTimeout, TimeUnit.MILLISECONDS ) );
+                            p.addLast( new ReadTimeoutHandler( ComputerCraft.httpTimeout, TimeUnit.MILLISECONDS )
+                            {
+                                @Override
+                                protected void readTimedOut( ChannelHandlerContext ctx ) throws Exception
+                                {
+                                    // A streamed response stops reading while the computer catches up, so we
+                                    // shouldn't time out.
+                                    if( !ctx.channel().config().isAutoRead() ) return;
+                                    super.readTimedOut( ctx );
+                                }
+                            } );
                         }
 
                         p.addLast(
@@ -208,6 +223,11 @@ public class HttpRequest extends Resource<HttpRequest>
     }
 
     void failure( Throwable cause )
+    {
+        failure( getMessage( cause ) );
+    }
+
+    static String getMessage( Throwable cause )
     {
         String message;
         if( cause instanceof HTTPRequestException )
@@ -227,7 +247,7 @@ public class HttpRequest extends Resource<HttpRequest>
             message = "Could not connect";
         }
 
-        failure( message );
+        return message;
     }
 
     void failure( String message, ILuaObject object )
@@ -240,6 +260,26 @@ public class HttpRequest extends Resource<HttpRequest>
         if( tryClose() ) environment.queueEvent( SUCCESS_EVENT, new Object[] { address, object } );
     }
 
+    /**
+     * Queue the response of a streamed request. Unlike {@link #success(ILuaObject)}, this does not close the request,
+     * as the body is still being received.
+     *
+     * @param object  The response handle.
+     * @param success Whether this is a successful response.
+     * @param message The response's status message, used if this was not successful.
+     */
+    void streamed( ILuaObject object, boolean success, String message )
+    {
+        if( isClosed() ) return;
+
+        environment.queueEvent( success ? SUCCESS_EVENT : FAILURE_EVENT, success
+            ? new Object[] { address, object }
+            : new Object[] { address, message, object } );
+        streamHandle = createOwnerReference( object );
+
+        checkClosed();
+    }
+
     @Override
     protected void dispose()
     {
@@ -248,6 +288,7 @@ public class HttpRequest extends Resource<HttpRequest>
         executorFuture = closeFuture( executorFuture );
         connectFuture = closeChannel( connectFuture );
         currentRequest = closeCloseable( currentRequest );
+        streamHandle = null;
     }
 
     public static long getHeaderSize( HttpHeaders headers )
@@ -266,6 +307,11 @@ public class HttpRequest extends Resource<HttpRequest>
         return postBuffer;
     }
 
+    public String address()
+    {
+        return address;
+    }
+
     public HttpHeaders headers()
     {
         return headers;
@@ -275,4 +321,9 @@ public class HttpRequest extends Resource<HttpRequest>
     {
         return binary;
     }
+
+    public boolean isStreaming()
+    {
+        return stream;
+    }
 }
@@ -52,6 +52,9 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
     private HttpResponseStatus responseStatus;
     private CompositeByteBuf responseBody;
 
+    private HttpResponseStream responseStream;
+    private long received;
+
     HttpRequestHandler( HttpRequest request, URI uri, HttpMethod method )
     {
         this.request = request;
@@ -95,7 +98,7 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
     @Override
     public void channelInactive( ChannelHandlerContext ctx ) throws Exception
     {
-        if( !closed ) request.failure( "Could not connect" );
+        if( !closed ) fail( "Could not connect" );
         super.channelInactive( ctx );
     }
 
@@ -139,11 +142,18 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
             responseCharset = HttpUtil.getCharset( response, StandardCharsets.UTF_8 );
             responseStatus = response.status();
             responseHeaders.add( response.headers() );
+
+            if( request.isStreaming() ) sendStream( ctx );
         }
 
         if( message instanceof HttpContent )
         {
             HttpContent content = (HttpContent) message;
+            if( responseStream != null )
+            {
+                receiveStream( ctx, content );
+                return;
+            }
 
             if( responseBody == null )
             {
@@ -187,7 +197,74 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
     public void exceptionCaught( ChannelHandlerContext ctx, Throwable cause )
     {
         if( ComputerCraft.logPeripheralErrors ) ComputerCraft.log.error( "Error handling HTTP response", cause );
-        request.failure( cause );
+        fail( HttpRequest.getMessage( cause ) );
+    }
+
+    /**
+     * Fail this request. If we are streaming the response, then the response has already been sent, so we fail the
+     * stream instead.
+     *
+     * @param message The error message.
+     */
+    private void fail( String message )
+    {
+        if( responseStream == null )
+        {
+            request.failure( message );
+        }
+        else
+        {
+            responseStream.fail( message );
+            request.close();
+        }
+    }
+
+    /**
+     * Send the response's status and headers to the computer, with a handle to read the body as it arrives.
+     *
+     * @param ctx The current channel context.
+     */
+    private void sendStream( ChannelHandlerContext ctx )
+    {
+        HttpResponseStatus status = responseStatus;
+        request.environment().addTrackingChange( TrackingField.HTTP_DOWNLOAD, getHeaderSize( responseHeaders ) );
+
+        responseStream = new HttpResponseStream( request, ctx.channel() );
+        ILuaObject handle = new HttpResponseHandle(
+            new HttpStreamHandle( request, responseStream ), status.code(), status.reasonPhrase(), getHeaders( responseHeaders )
+        );
+
+        request.streamed( handle, status.code() >= 200 && status.code() < 400, status.reasonPhrase() );
+    }
+
+    private void receiveStream( ChannelHandlerContext ctx, HttpContent content )
+    {
+        ByteBuf partial = content.content();
+        if( partial.isReadable() )
+        {
+            // If we've read more than we're allowed to handle, abort as soon as possible.
+            received += partial.readableBytes();
+            if( ComputerCraft.httpMaxDownload != 0 && received > ComputerCraft.httpMaxDownload )
+            {
+                closed = true;
+                ctx.close();
+
+                fail( "Response is too large" );
+                return;
+            }
+
+            request.environment().addTrackingChange( TrackingField.HTTP_DOWNLOAD, partial.readableBytes() );
+            responseStream.offer( partial );
+        }
+
+        if( content instanceof LastHttpContent )
+        {
+            responseStream.finish();
+
+            closed = true;
+            ctx.close();
+            request.close();
+        }
     }
 
     private void sendResponse()
@@ -198,12 +275,7 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
 
         // Decode the headers
         HttpResponseStatus status = responseStatus;
-        Map<String, String> headers = new HashMap<>();
-        for( Map.Entry<String, String> header : responseHeaders )
-        {
-            String existing = headers.get( header.getKey() );
-            headers.put( header.getKey(), existing == null ? header.getValue() : existing + "," + header.getValue() );
-        }
+        Map<String, String> headers = getHeaders( responseHeaders );
 
         // Fire off a stats event
         request.environment().addTrackingChange( TrackingField.HTTP_DOWNLOAD, getHeaderSize( responseHeaders ) + bytes.length );
@@ -225,6 +297,17 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
         }
     }
 
+    private static Map<String, String> getHeaders( HttpHeaders responseHeaders )
+    {
+        Map<String, String> headers = new HashMap<>();
+        for( Map.Entry<String, String> header : responseHeaders )
+        {
+            String existing = headers.get( header.getKey() );
+            headers.put( header.getKey(), existing == null ? header.getValue() : existing + "," + header.getValue() );
+        }
+        return headers;
+    }
+
     /**
      * Determine the redirect from this response
      */
@@ -255,5 +338,7 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
             responseBody.release();
             responseBody = null;
         }
+
+        if( responseStream != null ) responseStream.fail( "Connection closed" );
     }
 }
@@ -0,0 +1,231 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.apis.http.request;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The body of a streamed HTTP response, buffered between the network thread and the computer reading it.
+ *
+ * At most {@link #MAX_BUFFER} bytes are buffered at once (give or take a chunk). Once this is reached, we stop reading
+ * from the connection (by disabling {@link io.netty.channel.ChannelConfig#setAutoRead(boolean) auto-read}), and only
+ * resume once the computer has read half of it. This means memory usage stays constant, no matter how large the
+ * response is.
+ *
+ * When the computer tries to read and there is no data, it waits for a {@link #WAKE_EVENT} event. This event is only
+ * queued while a computer is waiting.
+ */
+final class HttpResponseStream
+{
+    static final String WAKE_EVENT = "http_stream";
+
+    static final int MAX_BUFFER = 64 * 1024;
+
+    private final HttpRequest request;
+    private final Channel channel;
+
+    private final Deque<byte[]> chunks = new ArrayDeque<>();
+    private int offset;
+    private int buffered;
+
+    private boolean paused;
+    private boolean waiting;
+    private boolean finished;
+    private String error;
+
+    HttpResponseStream( HttpRequest request, Channel channel )
+    {
+        this.request = request;
+        this.channel = channel;
+    }
+
+    /**
+     * Add some data to the stream. This is called from the network thread.
+     *
+     * The data is copied out of the buffer, so it can be released as soon as this returns. This means no network
+     * buffers are held if the computer never reads (or closes) the stream.
+     *
+     * @param data The data to add.
+     */
+    synchronized void offer( ByteBuf data )
+    {
+        if( finished || error != null || !data.isReadable() ) return;
+
+        byte[] bytes = new byte[data.readableBytes()];
+        data.getBytes( data.readerIndex(), bytes );
+        chunks.add( bytes );
+        buffered += bytes.length;
+
+        if( buffered >= MAX_BUFFER && !paused )
+        {
+            paused = true;
+            channel.config().setAutoRead( false );
+        }
+
+        wake();
+    }
+
+    /**
+     * Mark the stream as having received all its data. This is called from the network thread.
+     */
+    synchronized void finish()
+    {
+        if( finished || error != null ) return;
+        finished = true;
+        wake();
+    }
+
+    /**
+     * Mark the stream as having failed. Any data which has already been received may still be read, after which
+     * reading will fail with this message. This has no effect if the stream has already finished.
+     *
+     * @param message The error message.
+     */
+    synchronized void fail( String message )
+    {
+        if( finished || error != null ) return;
+        error = message;
+        wake();
+    }
+
+    /**
+     * Discard any buffered data. This is called when the stream's handle is closed.
+     */
+    synchronized void close()
+    {
+        chunks.clear();
+        buffered = 0;
+        offset = 0;
+        if( !finished && error == null ) error = "Stream closed";
+    }
+
+    /**
+     * Move up to {@code limit} bytes from the buffer into {@code out}. This does not wait for more data.
+     *
+     * @param out   The stream to write to.
+     * @param limit The maximum number of bytes to take.
+     * @return The number of bytes taken.
+     */
+    synchronized int take( ByteArrayOutputStream out, int limit )
+    {
+        int before = out.size();
+        transfer( out, limit, false );
+        return out.size() - before;
+    }
+
+    /**
+     * Move bytes from the buffer into {@code out}, up to and including the next {@code \n}. This does not wait for
+     * more data.
+     *
+     * @param out The stream to write to.
+     * @return Whether a {@code \n} was found. If not, the whole buffer was taken.
+     */
+    synchronized boolean takeLine( ByteArrayOutputStream out )
+    {
+        return transfer( out, Integer.MAX_VALUE, true );
+    }
+
+    /**
+     * Whether there is any data in the buffer.
+     *
+     * @return Whether there is data which can be taken.
+     */
+    synchronized boolean hasData()
+    {
+        return buffered > 0;
+    }
+
+    /**
+     * Whether no more data will be added to this stream, either because it has finished or failed.
+     *
+     * @return Whether this stream is complete.
+     */
+    synchronized boolean isComplete()
+    {
+        return finished || error != null;
+    }
+
+    /**
+     * Prepare to wait for more data.
+     *
+     * @return Whether there is no data available, and so the computer should wait for a {@link #WAKE_EVENT} event.
+     * If this is {@code false}, the stream either has data available, or is complete.
+     */
+    synchronized boolean startWaiting()
+    {
+        if( buffered > 0 || finished || error != null ) return false;
+        waiting = true;
+        return true;
+    }
+
+    /**
+     * Get the error this stream failed with. This should only be checked once the buffer has been drained.
+     *
+     * @return The error this stream failed with, or {@code null} if it has not failed.
+     */
+    synchronized String getError()
+    {
+        return buffered > 0 ? null : error;
+    }
+
+    private boolean transfer( ByteArrayOutputStream out, int limit, boolean untilNewline )
+    {
+        int taken = 0;
+        boolean newline = false;
+        while( taken < limit && !newline && !chunks.isEmpty() )
+        {
+            byte[] chunk = chunks.peekFirst();
+            int end = Math.min( chunk.length, offset + limit - taken );
+            if( untilNewline )
+            {
+                for( int i = offset; i < end; i++ )
+                {
+                    if( chunk[i] == '\n' )
+                    {
+                        end = i + 1;
+                        newline = true;
+                        break;
+                    }
+                }
+            }
+
+            out.write( chunk, offset, end - offset );
+            taken += end - offset;
+
+            if( end == chunk.length )
+            {
+                chunks.removeFirst();
+                offset = 0;
+            }
+            else
+            {
+                offset = end;
+            }
+        }
+
+        buffered -= taken;
+        if( paused && buffered <= MAX_BUFFER / 2 )
+        {
+            paused = false;
+            channel.config().setAutoRead( true );
+        }
+
+        return newline;
+    }
+
+    private void wake()
+    {
+        if( !waiting ) return;
+        waiting = false;
+        request.environment().queueEvent( WAKE_EVENT, new Object[] { request.address() } );
+    }
+}
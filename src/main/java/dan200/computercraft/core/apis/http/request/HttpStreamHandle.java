@@ -0,0 +1,150 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.apis.http.request;
+
+import dan200.computercraft.api.lua.ILuaContext;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.core.apis.handles.HandleGeneric;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static dan200.computercraft.core.apis.ArgumentHelper.getInt;
+import static dan200.computercraft.core.apis.ArgumentHelper.optBoolean;
+
+/**
+ * A binary handle which reads from a {@link HttpResponseStream}.
+ *
+ * This has the same methods as a {@link dan200.computercraft.core.apis.handles.BinaryReadableHandle}. However, if no
+ * data has arrived yet, reading will wait until it does, in the same way as
+ * {@link dan200.computercraft.core.apis.http.websocket.WebsocketHandle} waits for messages.
+ */
+public class HttpStreamHandle extends HandleGeneric
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    private final HttpResponseStream stream;
+
+    HttpStreamHandle( HttpRequest request, HttpResponseStream stream )
+    {
+        super( () -> {
+            stream.close();
+            request.close();
+        } );
+        this.stream = stream;
+    }
+
+    @Nonnull
+    @Override
+    public String[] getMethodNames()
+    {
+        return new String[] { "read", "readAll", "readLine", "close" };
+    }
+
+    @Override
+    public Object[] callMethod( @Nonnull ILuaContext context, int method, @Nonnull Object[] args ) throws LuaException, InterruptedException
+    {
+        switch( method )
+        {
+            case 0: // read
+            {
+                checkOpen();
+                boolean single = args.length == 0 || args[0] == null;
+                int count = single ? 1 : getInt( args, 0 );
+                if( count < 0 ) throw new LuaException( "Cannot read a negative number of bytes" );
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream( Math.min( count, BUFFER_SIZE ) );
+                if( count > 0 )
+                {
+                    // As with file handles, we only return fewer bytes than requested at the end of the stream.
+                    while( out.size() < count )
+                    {
+                        if( stream.take( out, count - out.size() ) > 0 ) continue;
+
+                        // If the stream has failed, return what we have. The error is reported on the next read.
+                        if( out.size() > 0 && stream.isComplete() ) break;
+                        if( !await( context ) ) break;
+                    }
+
+                    if( out.size() == 0 ) return null;
+                }
+                else if( !await( context ) )
+                {
+                    return null;
+                }
+
+                byte[] bytes = out.toByteArray();
+                return single ? new Object[] { bytes[0] & 0xFF } : new Object[] { bytes };
+            }
+            case 1: // readAll
+            {
+                checkOpen();
+                ByteArrayOutputStream out = new ByteArrayOutputStream( BUFFER_SIZE );
+                boolean readAnything = false;
+                while( true )
+                {
+                    if( stream.take( out, Integer.MAX_VALUE ) > 0 )
+                    {
+                        readAnything = true;
+                    }
+                    else if( !await( context ) )
+                    {
+                        return readAnything ? new Object[] { out.toByteArray() } : null;
+                    }
+                }
+            }
+            case 2: // readLine
+            {
+                checkOpen();
+                boolean withTrailing = optBoolean( args, 0, false );
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                while( !stream.takeLine( out ) )
+                {
+                    if( !await( context ) )
+                    {
+                        if( out.size() == 0 ) return null;
+                        break;
+                    }
+                }
+
+                byte[] bytes = out.toByteArray();
+                if( !withTrailing && bytes.length > 0 && bytes[bytes.length - 1] == '\n' )
+                {
+                    // Strip the trailing \n or \r\n, as BinaryReadableHandle does.
+                    int length = bytes.length - 1;
+                    if( length > 0 && bytes[length - 1] == '\r' ) length--;
+                    bytes = Arrays.copyOf( bytes, length );
+                }
+                return new Object[] { bytes };
+            }
+            case 3: // close
+                close();
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Wait until more data is available, or the stream is complete.
+     *
+     * @param context The context to wait on.
+     * @return Whether there may be more data to read, or {@code false} if the stream has finished.
+     * @throws LuaException         If the stream failed, or the computer was terminated while waiting.
+     * @throws InterruptedException If the computer was interrupted while waiting.
+     */
+    private boolean await( ILuaContext context ) throws LuaException, InterruptedException
+    {
+        while( stream.startWaiting() ) context.pullEvent( HttpResponseStream.WAKE_EVENT );
+
+        String error = stream.getError();
+        if( error != null ) throw new LuaException( error );
+        return stream.hasData();
+    }
+}
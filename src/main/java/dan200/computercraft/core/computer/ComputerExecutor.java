@@ -608,6 +608,7 @@ final class ComputerExecutor
         }
         else if( event != null )
         {
+            Tracking.addQueueTiming( getComputer(), System.nanoTime() - event.queued );
             resumeMachine( event.name, event.args );
         }
     }
@@ -658,6 +659,7 @@ final class ComputerExecutor
     {
         final String name;
         final Object[] args;
+        final long queued = System.nanoTime();
 
         private Event( String name, Object[] args )
         {
@@ -11,9 +11,13 @@ import dan200.computercraft.shared.util.ThreadUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Comparator;
 import java.util.TreeSet;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.LockSupport;
@@ -41,6 +45,13 @@ import static dan200.computercraft.core.computer.TimeoutState.TIMEOUT;
  * This means that adding computers which have slept a lot do not then have massive priority over everyone else. See
  * {@link #queue(ComputerExecutor)} for how this is implemented.
  *
+ * Like Linux's scheduler, each runner has its own {@link RunQueue}, rather than all runners contending on a single
+ * queue. Computers are placed on one of the less busy queues when first enqueued, and then requeued on whichever runner
+ * last executed them. When picking the next task, a runner will "steal" from another queue if that queue's first
+ * computer is significantly further behind than its own (or if it has nothing to do at all). The minimum virtual
+ * runtime is shared between all queues, and so the fairness guarantees above hold across the whole system, though
+ * only to within a single {@link #scaledPeriod()}.
+ *
  * In reality, it's unlikely that more than a few computers are waiting to execute at once, so this will not have much
  * effect unless you have a computer hogging execution time. However, it is pretty effective in those situations.
  *
@@ -77,6 +88,17 @@ public final class ComputerThread
      */
     private static final long LATENCY_MAX_TASKS = DEFAULT_LATENCY / DEFAULT_MIN_PERIOD;
 
+    /**
+     * Orders executors by their {@link ComputerExecutor#virtualRuntime}, falling back to their hash code.
+     */
+    private static final Comparator<ComputerExecutor> RUNTIME_ORDER = ( a, b ) -> {
+        if( a == b ) return 0; // Should never happen, but let's be consistent here
+
+        long at = a.virtualRuntime, bt = b.virtualRuntime;
+        if( at == bt ) return Integer.compare( a.hashCode(), b.hashCode() );
+        return at < bt ? -1 : 1;
+    };
+
     /**
      * Lock used for modifications to the array of current threads.
      */
@@ -97,28 +119,32 @@ public final class ComputerThread
      */
     private static TaskRunner[] runners;
 
+    /**
+     * The run queue for each runner. These are kept separately from {@link #runners}, as runners may be replaced by
+     * the {@link Monitor}, but their queue should be preserved.
+     */
+    private static volatile RunQueue[] queues;
+
     private static long latency;
     private static long minPeriod;
 
-    private static final ReentrantLock computerLock = new ReentrantLock();
-
-    private static final Condition hasWork = computerLock.newCondition();
-
     /**
-     * Active queues to execute
+     * The total number of executors waiting across all {@link #queues}.
      */
-    private static final TreeSet<ComputerExecutor> computerQueue = new TreeSet<>( ( a, b ) -> {
-        if( a == b ) return 0; // Should never happen, but let's be consistent here
+    private static final AtomicInteger queuedCount = new AtomicInteger();
 
-        long at = a.virtualRuntime, bt = b.virtualRuntime;
-        if( at == bt ) return Integer.compare( a.hashCode(), b.hashCode() );
-        return at < bt ? -1 : 1;
-    } );
+    /**
+     * The number of runners which are currently waiting for work.
+     */
+    private static final AtomicInteger idleCount = new AtomicInteger();
 
     /**
-     * The minimum {@link ComputerExecutor#virtualRuntime} time on the tree.
+     * The minimum {@link ComputerExecutor#virtualRuntime} time across all queues and currently running executors.
+     * This only ever increases.
+     *
+     * @see #updateMinimum()
      */
-    private static long minimumVirtualRuntime = 0;
+    private static final AtomicLong minimumVirtualRuntime = new AtomicLong();
 
     private static final ThreadFactory monitorFactory = ThreadUtils.factory( "Computer-Monitor" );
     private static final ThreadFactory runnerFactory = ThreadUtils.factory( "Computer-Runner" );
@@ -139,6 +165,10 @@ public final class ComputerThread
                 // TODO: Change the runners length on config reloads
                 runners = new TaskRunner[ComputerCraft.computer_threads];
 
+                RunQueue[] newQueues = new RunQueue[runners.length];
+                for( int i = 0; i < newQueues.length; i++ ) newQueues[i] = new RunQueue();
+                queues = newQueues;
+
                 // latency and minPeriod are scaled by 1 + floor(log2(threads)). We can afford to execute tasks for
                 // longer when executing on more than one thread.
                 long factor = 64 - Long.numberOfLeadingZeros( runners.length );
@@ -154,7 +184,7 @@ public final class ComputerThread
                     // Mark the old runner as dead, just in case.
                     if( runner != null ) runner.running = false;
                     // And start a new runner
-                    runnerFactory.newThread( runners[i] = new TaskRunner() ).start();
+                    runnerFactory.newThread( runners[i] = new TaskRunner( queues[i] ) ).start();
                 }
             }
 
@@ -182,14 +212,10 @@ public final class ComputerThread
             }
         }
 
-        computerLock.lock();
-        try
+        RunQueue[] currentQueues = queues;
+        if( currentQueues != null )
         {
-            computerQueue.clear();
-        }
-        finally
-        {
-            computerLock.unlock();
+            for( RunQueue queue : currentQueues ) queue.clear();
         }
     }
 
@@ -203,84 +229,119 @@ public final class ComputerThread
      */
     static void queue( @Nonnull ComputerExecutor executor )
     {
-        computerLock.lock();
-        try
+        if( executor.onComputerQueue ) throw new IllegalStateException( "Cannot queue already queued executor" );
+        executor.onComputerQueue = true;
+
+        updateMinimum();
+
+        // We're not currently on the queue, so update its current execution time to
+        // ensure its at least as high as the minimum.
+        long newRuntime = minimumVirtualRuntime.get();
+
+        if( executor.virtualRuntime == 0 )
         {
-            if( executor.onComputerQueue ) throw new IllegalStateException( "Cannot queue already queued executor" );
-            executor.onComputerQueue = true;
+            // Slow down new computers a little bit.
+            newRuntime += scaledPeriod();
+        }
+        else
+        {
+            // Give a small boost to computers which have slept a little.
+            newRuntime -= latency / 2;
+        }
 
-            updateRuntimes( null );
+        executor.virtualRuntime = Math.max( newRuntime, executor.virtualRuntime );
 
-            // We're not currently on the queue, so update its current execution time to
-            // ensure its at least as high as the minimum.
-            long newRuntime = minimumVirtualRuntime;
+        // Add to the least busy of two randomly chosen queues, and signal the workers.
+        RunQueue[] currentQueues = queues;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        RunQueue first = currentQueues[random.nextInt( currentQueues.length )];
+        RunQueue second = currentQueues[random.nextInt( currentQueues.length )];
+        submit( first.size <= second.size ? first : second, executor );
+    }
 
-            if( executor.virtualRuntime == 0 )
-            {
-                // Slow down new computers a little bit.
-                newRuntime += scaledPeriod();
-            }
-            else
+    /**
+     * Add an executor to a specific queue, and wake up a runner to execute it.
+     *
+     * @param queue    The queue to add to.
+     * @param executor The executor to add.
+     */
+    private static void submit( RunQueue queue, ComputerExecutor executor )
+    {
+        queuedCount.incrementAndGet();
+        queue.offer( executor );
+
+        // If this queue's runner is busy, then wake up another one, which will steal this executor. This read of
+        // "idle" must happen after the queue's size is published, so that a runner going to sleep will either see our
+        // executor, or be woken by us.
+        if( queue.idle || idleCount.get() == 0 ) return;
+        for( RunQueue other : queues )
+        {
+            if( other != queue && other.idle )
             {
-                // Give a small boost to computers which have slept a little.
-                newRuntime -= latency / 2;
+                other.wake();
+                return;
             }
+        }
+    }
 
-            executor.virtualRuntime = Math.max( newRuntime, executor.virtualRuntime );
-
-            // Add to the queue, and signal the workers.
-            computerQueue.add( executor );
-            hasWork.signal();
+    /**
+     * Update {@link #minimumVirtualRuntime} based on the first executor in each queue and the tasks which are currently
+     * executing.
+     *
+     * This is called before queueing tasks, to ensure that {@link #minimumVirtualRuntime} is up-to-date. It only reads
+     * values published by each queue, and so does not need to acquire any locks.
+     */
+    private static void updateMinimum()
+    {
+        long minRuntime = Long.MAX_VALUE;
+        for( RunQueue queue : queues )
+        {
+            minRuntime = Math.min( minRuntime, Math.min( queue.headRuntime, queue.currentRuntime ) );
         }
-        finally
+
+        if( minRuntime == Long.MAX_VALUE ) return;
+
+        long current;
+        while( (current = minimumVirtualRuntime.get()) < minRuntime )
         {
-            computerLock.unlock();
+            if( minimumVirtualRuntime.compareAndSet( current, minRuntime ) ) break;
         }
     }
 
-
     /**
-     * Update the {@link ComputerExecutor#virtualRuntime}s of all running tasks, and then update the
-     * {@link #minimumVirtualRuntime} based on the current tasks.
+     * Find the next executor for a given runner to execute. This prefers the runner's own queue, but will take from
+     * another queue if its first executor is more than a {@link #scaledPeriod()} behind our own.
      *
-     * This is called before queueing tasks, to ensure that {@link #minimumVirtualRuntime} is up-to-date.
+     * @param own The runner's own queue.
+     * @return The executor to run, or {@code null} if there is no work available.
      */
-    private static void updateRuntimes( @Nullable ComputerExecutor current )
+    @Nullable
+    private static ComputerExecutor poll( RunQueue own )
     {
-        long minRuntime = Long.MAX_VALUE;
-
-        // If we've a task on the queue, use that as our base time.
-        if( !computerQueue.isEmpty() ) minRuntime = computerQueue.first().virtualRuntime;
+        long ownRuntime = own.headRuntime;
+        long threshold = ownRuntime == Long.MAX_VALUE ? Long.MAX_VALUE : ownRuntime - scaledPeriod();
 
-        // Update all the currently executing tasks
-        long now = System.nanoTime();
-        int tasks = 1 + computerQueue.size();
-        TaskRunner[] currentRunners = runners;
-        if( currentRunners != null )
+        RunQueue best = null;
+        long bestRuntime = threshold;
+        for( RunQueue queue : queues )
         {
-            for( TaskRunner runner : currentRunners )
+            if( queue == own || queue.size == 0 ) continue;
+
+            long runtime = queue.headRuntime;
+            if( runtime < bestRuntime )
             {
-                if( runner == null ) continue;
-                ComputerExecutor executor = runner.currentExecutor.get();
-                if( executor == null ) continue;
-
-                // We do two things here: first we update the task's virtual runtime based on when we
-                // last checked, and then we check the minimum.
-                minRuntime = Math.min( minRuntime, executor.virtualRuntime += (now - executor.vRuntimeStart) / tasks );
-                executor.vRuntimeStart = now;
+                best = queue;
+                bestRuntime = runtime;
             }
         }
 
-        // And update the most recently executed one (if set).
-        if( current != null )
+        if( best != null )
         {
-            minRuntime = Math.min( minRuntime, current.virtualRuntime += (now - current.vRuntimeStart) / tasks );
+            ComputerExecutor executor = best.poll();
+            if( executor != null ) return executor;
         }
 
-        if( minRuntime > minimumVirtualRuntime && minRuntime < Long.MAX_VALUE )
-        {
-            minimumVirtualRuntime = minRuntime;
-        }
+        return own.poll();
     }
 
     /**
@@ -302,22 +363,18 @@ public final class ComputerThread
             );
         }
 
-        computerLock.lock();
-        try
-        {
-            updateRuntimes( executor );
+        // Update the virtual runtime of this executor. Only the owning runner ever modifies an executor which is
+        // running, and so we do not need to hold any lock here.
+        long now = System.nanoTime();
+        runner.queue.busyTime += now - executor.vRuntimeStart;
+        int tasks = 1 + queuedCount.get();
+        executor.virtualRuntime += (now - executor.vRuntimeStart) / tasks;
+        runner.queue.currentRuntime = Long.MAX_VALUE;
 
-            // If we've no more tasks, just return.
-            if( !executor.afterWork() ) return;
+        // If we've more tasks, add to our own queue, and signal any waiting workers.
+        if( executor.afterWork() ) submit( runner.queue, executor );
 
-            // Otherwise, add to the queue, and signal any waiting workers.
-            computerQueue.add( executor );
-            hasWork.signal();
-        }
-        finally
-        {
-            computerLock.unlock();
-        }
+        updateMinimum();
     }
 
     /**
@@ -331,18 +388,65 @@ public final class ComputerThread
     static long scaledPeriod()
     {
         // +1 to include the current task
-        int count = 1 + computerQueue.size();
+        int count = 1 + queuedCount.get();
         return count < LATENCY_MAX_TASKS ? latency / count : minPeriod;
     }
 
     /**
-     * Determine if the thread has computers queued up
+     * Determine if the thread has computers queued up, which are not about to be picked up by an idle runner.
      *
      * @return If we have work queued up.
      */
     static boolean hasPendingWork()
     {
-        return !computerQueue.isEmpty();
+        return queuedCount.get() > idleCount.get();
+    }
+
+    /**
+     * Get the number of computers waiting to execute.
+     *
+     * @return The number of queued computers, across all runners.
+     */
+    public static int getQueuedCount()
+    {
+        return queuedCount.get();
+    }
+
+    /**
+     * Get the number of runners which are waiting for work.
+     *
+     * @return The number of idle runners.
+     */
+    public static int getIdleCount()
+    {
+        return idleCount.get();
+    }
+
+    /**
+     * Get the current minimum virtual runtime.
+     *
+     * @return The minimum virtual runtime, in nanoseconds.
+     * @see #minimumVirtualRuntime
+     */
+    public static long getMinimumVirtualRuntime()
+    {
+        return minimumVirtualRuntime.get();
+    }
+
+    /**
+     * Get how long each runner has spent executing computers since the computer thread was started.
+     *
+     * @return The total busy time of each runner, in nanoseconds. This is empty if the computer thread is not running.
+     */
+    @Nonnull
+    public static long[] getBusyTimes()
+    {
+        RunQueue[] queues = ComputerThread.queues;
+        if( queues == null ) return new long[0];
+
+        long[] times = new long[queues.length];
+        for( int i = 0; i < queues.length; i++ ) times[i] = queues[i].busyTime;
+        return times;
     }
 
     /**
@@ -377,7 +481,7 @@ public final class ComputerThread
                                 ComputerCraft.log.warn( "Previous runner ({}) has crashed, restarting!",
                                     runner != null && runner.owner != null ? runner.owner.getName() : runner );
                                 if( runner != null ) runner.running = false;
-                                runnerFactory.newThread( runners[i] = new TaskRunner() ).start();
+                                runnerFactory.newThread( runners[i] = new TaskRunner( queues[i] ) ).start();
                             }
 
                             // If the runner has no work, skip
@@ -416,7 +520,7 @@ public final class ComputerThread
                                 {
                                     if( running && runners.length > i && runners[i] == runner )
                                     {
-                                        runnerFactory.newThread( currentRunners[i] = new TaskRunner() ).start();
+                                        runnerFactory.newThread( currentRunners[i] = new TaskRunner( queues[i] ) ).start();
                                     }
                                 }
                             }
@@ -431,7 +535,7 @@ public final class ComputerThread
     }
 
     /**
-     * Pulls tasks from the {@link #computerQueue} queue and runs them.
+     * Pulls tasks from its {@link RunQueue} (or steals them from other runners' queues) and runs them.
      *
      * This is responsible for running the {@link ComputerExecutor#work()}, {@link ComputerExecutor#beforeWork()} and
      * {@link ComputerExecutor#afterWork()} functions. Everything else is either handled by the executor, timeout
@@ -442,8 +546,14 @@ public final class ComputerThread
         Thread owner;
         volatile boolean running = true;
 
+        final RunQueue queue;
         final AtomicReference<ComputerExecutor> currentExecutor = new AtomicReference<>();
 
+        TaskRunner( RunQueue queue )
+        {
+            this.queue = queue;
+        }
+
         @Override
         public void run()
         {
@@ -452,27 +562,31 @@ public final class ComputerThread
             tasks:
             while( running && ComputerThread.running )
             {
-                // Wait for an active queue to execute
-                ComputerExecutor executor;
-                try
+                // Find an active queue to execute, waiting for one if none are available.
+                ComputerExecutor executor = poll( queue );
+                if( executor == null )
                 {
-                    computerLock.lockInterruptibly();
+                    // Mark ourselves as idle before checking again, so anyone queuing work after this point will
+                    // wake us up.
+                    queue.idle = true;
+                    idleCount.incrementAndGet();
                     try
                     {
-                        while( computerQueue.isEmpty() ) hasWork.await();
-                        executor = computerQueue.pollFirst();
-                        assert executor != null : "hasWork should ensure we never receive null work";
+                        executor = poll( queue );
+                        if( executor == null ) queue.await();
+                    }
+                    catch( InterruptedException ignored )
+                    {
+                        // If we've been interrupted, our running flag has probably been reset, so we'll
+                        // just jump into the next iteration.
                     }
                     finally
                     {
-                        computerLock.unlock();
+                        idleCount.decrementAndGet();
+                        queue.idle = false;
                     }
-                }
-                catch( InterruptedException ignored )
-                {
-                    // If we've been interrupted, our running flag has probably been reset, so we'll
-                    // just jump into the next iteration.
-                    continue;
+
+                    if( executor == null ) continue;
                 }
 
                 // If we're trying to executing some task on this computer while someone else is doing work, something
@@ -495,6 +609,7 @@ public final class ComputerThread
 
                 // And then set the current executor. It's important to do it afterwards, as otherwise we introduce
                 // race conditions with the monitor.
+                queue.currentRuntime = executor.virtualRuntime;
                 currentExecutor.set( executor );
 
                 // Execute the task
@@ -515,6 +630,143 @@ public final class ComputerThread
         }
     }
 
+    /**
+     * A queue of executors waiting to run on a single {@link TaskRunner}.
+     *
+     * Every modification happens under this queue's own {@link #lock}. We then publish {@link #size} and
+     * {@link #headRuntime} so other runners and {@link #updateMinimum()} can inspect the queue without locking it.
+     */
+    private static final class RunQueue
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition hasWork = lock.newCondition();
+        private final TreeSet<ComputerExecutor> executors = new TreeSet<>( RUNTIME_ORDER );
+
+        /**
+         * Set when this queue's runner should wake up and look for work, even if this queue is empty.
+         */
+        private boolean wakeup;
+
+        /**
+         * The number of executors in this queue.
+         */
+        volatile int size;
+
+        /**
+         * The {@link ComputerExecutor#virtualRuntime} of the first executor in this queue, or {@link Long#MAX_VALUE}
+         * if it is empty.
+         */
+        volatile long headRuntime = Long.MAX_VALUE;
+
+        /**
+         * The {@link ComputerExecutor#virtualRuntime} of the executor this queue's runner is currently executing, or
+         * {@link Long#MAX_VALUE} if it is not running anything.
+         */
+        volatile long currentRuntime = Long.MAX_VALUE;
+
+        /**
+         * Whether this queue's runner has no work and is waiting for more.
+         */
+        volatile boolean idle;
+
+        /**
+         * The total time this queue's runners have spent executing computers. This is only written by the runner, and
+         * so does not need to be atomic.
+         */
+        volatile long busyTime;
+
+        void offer( ComputerExecutor executor )
+        {
+            lock.lock();
+            try
+            {
+                executors.add( executor );
+                publish();
+                wakeup = true;
+                hasWork.signal();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        ComputerExecutor poll()
+        {
+            ComputerExecutor executor;
+            lock.lock();
+            try
+            {
+                executor = executors.pollFirst();
+                if( executor == null ) return null;
+                publish();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            queuedCount.decrementAndGet();
+            return executor;
+        }
+
+        void wake()
+        {
+            lock.lock();
+            try
+            {
+                wakeup = true;
+                hasWork.signal();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Wait until this queue has work, or another runner has woken us up. We also time out after
+         * {@link #MONITOR_WAKEUP}, just in case.
+         *
+         * @throws InterruptedException If this thread was interrupted while waiting.
+         */
+        void await() throws InterruptedException
+        {
+            lock.lockInterruptibly();
+            try
+            {
+                if( executors.isEmpty() && !wakeup ) hasWork.await( MONITOR_WAKEUP, TimeUnit.MILLISECONDS );
+                wakeup = false;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        void clear()
+        {
+            lock.lock();
+            try
+            {
+                queuedCount.addAndGet( -executors.size() );
+                executors.clear();
+                publish();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        private void publish()
+        {
+            headRuntime = executors.isEmpty() ? Long.MAX_VALUE : executors.first().virtualRuntime;
+            size = executors.size();
+        }
+    }
+
     private static void timeoutTask( ComputerExecutor executor, Thread thread, long time )
     {
         if( !ComputerCraft.logPeripheralErrors ) return;
@@ -28,7 +28,7 @@ import java.util.Arrays;
  * <li>{@link #internalOutput} is the redstone output which the computer has currently set. This is read on both
  * threads, and written on the computer thread.</li>
  * <li>{@link #externalOutput} is the redstone output currently propagated to the world. This is only read and written
- * on the main thread.</li>
+ * on the main thread, or while it waits for computers to tick (see {@link ParallelTicker}).</li>
  * <li>{@link #input} is the redstone input from external sources. This is read on both threads, and written on the main
  * thread.</li>
  * </ul>
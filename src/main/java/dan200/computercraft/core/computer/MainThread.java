@@ -15,8 +15,8 @@ import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Runs tasks on the main (server) thread, ticks {@link MainThreadExecutor}s, and limits how much time is used this
- * tick.
+ * Runs tasks on the main (server) thread, ticks {@link MainThreadExecutor}s and the global {@link TimerWheel}, and
+ * limits how much time is used this tick.
  *
  * Similar to {@link MainThreadExecutor}, the {@link MainThread} can be in one of three states: cool, hot and cooling.
  * However, the implementation here is a little different:
@@ -134,6 +134,11 @@ public final class MainThread
         // Of course, we'll go over the MAX_TICK_TIME most of the time, but eventually that overrun will accumulate
         // and we'll skip a whole tick - bringing the average back down again.
         currentTick++;
+
+        // Advance all computers' timers. This is not counted against our budget, as the work is proportional to the
+        // number of timers which expire, rather than the number of timers.
+        TimerWheel.global().tick();
+
         budget = Math.min( budget + ComputerCraft.maxMainGlobalTime, ComputerCraft.maxMainGlobalTime );
         canExecute = budget > 0;
 
@@ -179,6 +184,40 @@ public final class MainThread
         consumeTime( System.nanoTime() - start );
     }
 
+    /**
+     * Get the remaining budget for this tick. This should only be called from the main thread.
+     *
+     * @return The remaining budget in nanoseconds. This may be negative if we have gone over budget.
+     */
+    public static long getBudget()
+    {
+        return budget;
+    }
+
+    /**
+     * Get the number of executors which went over their budget, and are cooling down. This should only be called from
+     * the main thread.
+     *
+     * @return The number of cooling executors.
+     */
+    public static int getCoolingCount()
+    {
+        return cooling.size();
+    }
+
+    /**
+     * Get the number of executors waiting to run tasks.
+     *
+     * @return The number of queued executors.
+     */
+    public static int getQueuedCount()
+    {
+        synchronized( executors )
+        {
+            return executors.size();
+        }
+    }
+
     public static void reset()
     {
         currentTick = 0;
@@ -187,6 +226,7 @@ public final class MainThread
         minimumTime = 0;
         lastTaskId.set( 0 );
         cooling.clear();
+        TimerWheel.global().clear();
         synchronized( executors )
         {
             executors.clear();
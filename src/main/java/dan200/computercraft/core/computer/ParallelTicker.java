@@ -0,0 +1,115 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.computer;
+
+import dan200.computercraft.ComputerCraft;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the per-tick update of many computers across a pool of threads, blocking until all of them have finished.
+ *
+ * This is only suitable for work which does not touch the world, such as {@link Computer#tick()}. Each item is only
+ * ticked by one thread, and any changes made are visible to the calling thread once {@link #tick(List, Consumer)}
+ * returns. However, different items may be ticked concurrently, so must not share unsynchronised state.
+ *
+ * The pool is only used when {@link ComputerCraft#computerTickThreads} is more than one, and there are enough items to
+ * make it worthwhile. Otherwise, items are ticked on the calling thread in order.
+ */
+public final class ParallelTicker
+{
+    /**
+     * The minimum number of items before we tick in parallel. Below this, the cost of waking the pool outweighs the
+     * cost of the work itself.
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    /**
+     * The number of items each task ticks, once there is no more benefit to splitting it.
+     */
+    private static final int BATCH_SIZE = 32;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private static ForkJoinPool pool;
+
+    private ParallelTicker()
+    {
+    }
+
+    /**
+     * Tick every item, and wait for them all to finish.
+     *
+     * If any item fails to tick, the exception is rethrown on this thread. As with ticking sequentially, some items may
+     * not have been ticked.
+     *
+     * @param items The items to tick.
+     * @param tick  The function to tick an item.
+     * @param <T>   The type of item to tick.
+     */
+    public static <T> void tick( List<T> items, Consumer<? super T> tick )
+    {
+        int threads = ComputerCraft.computerTickThreads;
+        if( threads <= 1 || items.size() < PARALLEL_THRESHOLD )
+        {
+            for( T item : items ) tick.accept( item );
+            return;
+        }
+
+        getPool( threads ).invoke( new TickTask<>( items, tick, 0, items.size() ) );
+    }
+
+    private static synchronized ForkJoinPool getPool( int threads )
+    {
+        ForkJoinPool pool = ParallelTicker.pool;
+        if( pool != null && pool.getParallelism() == threads ) return pool;
+
+        if( pool != null ) pool.shutdown();
+        return ParallelTicker.pool = new ForkJoinPool( threads, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( p );
+            thread.setName( "ComputerCraft-Tick-" + threadCounter.getAndIncrement() );
+            return thread;
+        }, ( t, e ) -> ComputerCraft.log.error( "Exception in thread " + t.getName(), e ), false );
+    }
+
+    private static final class TickTask<T> extends RecursiveAction
+    {
+        private static final long serialVersionUID = 2468210817316364581L;
+
+        private final List<T> items;
+        private final Consumer<? super T> tick;
+        private final int start;
+        private final int end;
+
+        TickTask( List<T> items, Consumer<? super T> tick, int start, int end )
+        {
+            this.items = items;
+            this.tick = tick;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if( end - start <= BATCH_SIZE )
+            {
+                for( int i = start; i < end; i++ ) tick.accept( items.get( i ) );
+            }
+            else
+            {
+                int middle = (start + end) >>> 1;
+                invokeAll( new TickTask<>( items, tick, start, middle ), new TickTask<>( items, tick, middle, end ) );
+            }
+        }
+    }
+}
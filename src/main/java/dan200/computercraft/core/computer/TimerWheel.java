@@ -0,0 +1,248 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.computer;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel, used to schedule tick-based timers (such as {@code os.startTimer}) for every computer.
+ *
+ * Timers are placed into one of {@link #LEVELS} wheels, each of which has {@link #SLOTS} slots. The first wheel holds
+ * timers which will expire within the next {@link #SLOTS} ticks, one slot per tick. Each subsequent wheel covers a
+ * range {@link #SLOTS} times larger than the previous one. Whenever the lower wheel wraps around, we "cascade" the
+ * next slot of the wheel above, redistributing its timers into the lower wheels.
+ *
+ * This means scheduling and cancelling a timer are O(1), and each tick only visits timers which are about to expire
+ * (plus a cascade every {@link #SLOTS} ticks), rather than every timer on the server.
+ *
+ * The shared instance ({@link #global()}) is advanced once per server tick by {@link MainThread}. Callbacks are run on
+ * that thread, outside of the wheel's lock, so it is safe for them to schedule or cancel other timers.
+ */
+public final class TimerWheel
+{
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * The maximum number of ticks a timer can be placed in the future without being clamped into the last slot. Such
+     * timers will be re-cascaded until they actually expire.
+     */
+    private static final long MAX_RANGE = 1L << (SLOT_BITS * LEVELS);
+
+    private static final TimerWheel global = new TimerWheel();
+
+    private final Timer[][] wheels = new Timer[LEVELS][SLOTS];
+
+    /**
+     * The tick which will be processed by the next call to {@link #tick()}.
+     */
+    private long current = 1;
+
+    private int size;
+
+    public TimerWheel()
+    {
+        for( Timer[] wheel : wheels )
+        {
+            for( int i = 0; i < wheel.length; i++ ) wheel[i] = Timer.sentinel();
+        }
+    }
+
+    /**
+     * The timer wheel shared by all computers on this server.
+     *
+     * @return The global timer wheel.
+     */
+    public static TimerWheel global()
+    {
+        return global;
+    }
+
+    /**
+     * Schedule a callback to be run after a number of ticks.
+     *
+     * @param ticks    The number of calls to {@link #tick()} before this timer fires. Values less than one will
+     *                 fire on the next tick.
+     * @param callback The function to run when this timer fires.
+     * @return The scheduled timer, which may be {@link Timer#cancel() cancelled}.
+     */
+    @Nonnull
+    public Timer schedule( long ticks, @Nonnull Runnable callback )
+    {
+        Timer timer = new Timer( this, callback );
+        synchronized( this )
+        {
+            timer.expires = current - 1 + Math.max( ticks, 1 );
+            insert( timer );
+            size++;
+        }
+        return timer;
+    }
+
+    /**
+     * Advance the wheel by a single tick, running any timers which have now expired.
+     */
+    public void tick()
+    {
+        List<Timer> expired = null;
+        synchronized( this )
+        {
+            int index = (int) (current & SLOT_MASK);
+
+            // If the lowest wheel has wrapped around, pull in timers from the next slot of each wheel above.
+            for( int level = 1; level < LEVELS && index == 0; level++ )
+            {
+                index = (int) ((current >> (SLOT_BITS * level)) & SLOT_MASK);
+                cascade( level, index );
+                if( index != 0 ) break;
+            }
+
+            Timer head = wheels[0][(int) (current & SLOT_MASK)];
+            current++;
+
+            for( Timer timer = head.next; timer != head; )
+            {
+                Timer next = timer.next;
+                timer.unlink();
+                size--;
+
+                if( expired == null ) expired = new ArrayList<>();
+                expired.add( timer );
+                timer = next;
+            }
+        }
+
+        if( expired != null )
+        {
+            for( Timer timer : expired ) timer.callback.run();
+        }
+    }
+
+    /**
+     * Remove every timer from this wheel, without running any of them.
+     */
+    public synchronized void clear()
+    {
+        for( Timer[] wheel : wheels )
+        {
+            for( Timer head : wheel )
+            {
+                for( Timer timer = head.next; timer != head; )
+                {
+                    Timer next = timer.next;
+                    timer.next = timer.previous = null;
+                    timer = next;
+                }
+                head.next = head.previous = head;
+            }
+        }
+
+        size = 0;
+    }
+
+    /**
+     * Get the number of timers which are waiting to fire.
+     *
+     * @return The number of scheduled timers.
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    private void insert( Timer timer )
+    {
+        long delta = timer.expires - current;
+        Timer head;
+        if( delta < 0 )
+        {
+            // This timer has already expired, so run it on the next tick.
+            head = wheels[0][(int) (current & SLOT_MASK)];
+        }
+        else
+        {
+            // Clamp very distant timers into the last wheel. They'll be cascaded back into it until they expire.
+            long expires = delta < MAX_RANGE ? timer.expires : current + MAX_RANGE - 1;
+            int level = 0;
+            while( level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1)) ) level++;
+            head = wheels[level][(int) ((expires >> (SLOT_BITS * level)) & SLOT_MASK)];
+        }
+
+        timer.previous = head.previous;
+        timer.next = head;
+        head.previous.next = timer;
+        head.previous = timer;
+    }
+
+    private void cascade( int level, int index )
+    {
+        Timer head = wheels[level][index];
+        Timer timer = head.next;
+        head.next = head.previous = head;
+
+        while( timer != head )
+        {
+            Timer next = timer.next;
+            insert( timer );
+            timer = next;
+        }
+    }
+
+    /**
+     * A timer scheduled on a {@link TimerWheel}.
+     */
+    public static final class Timer
+    {
+        private final TimerWheel wheel;
+        private final Runnable callback;
+
+        private long expires;
+        private Timer previous;
+        private Timer next;
+
+        private Timer( TimerWheel wheel, Runnable callback )
+        {
+            this.wheel = wheel;
+            this.callback = callback;
+        }
+
+        private static Timer sentinel()
+        {
+            Timer timer = new Timer( null, null );
+            timer.previous = timer.next = timer;
+            return timer;
+        }
+
+        /**
+         * Cancel this timer, if it has not already fired.
+         *
+         * @return Whether the timer was cancelled. This will be {@code false} if it has already fired, or was
+         * previously cancelled.
+         */
+        public boolean cancel()
+        {
+            synchronized( wheel )
+            {
+                if( next == null ) return false;
+                unlink();
+                wheel.size--;
+                return true;
+            }
+        }
+
+        private void unlink()
+        {
+            previous.next = next;
+            next.previous = previous;
+            previous = next = null;
+        }
+    }
+}
@@ -7,22 +7,54 @@
 package dan200.computercraft.core.filesystem;
 
 import com.google.common.collect.Sets;
+import dan200.computercraft.ComputerCraft;
 import dan200.computercraft.api.filesystem.IWritableMount;
+import dan200.computercraft.shared.util.ThreadUtils;
 
 import javax.annotation.Nonnull;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
-import java.nio.file.Files;
-import java.nio.file.OpenOption;
-import java.nio.file.StandardOpenOption;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
-
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A mount backed by a directory on disk, such as a computer's or disk's save directory.
+ *
+ * Measuring the space used by a directory requires visiting every file within it, which is expensive for computers
+ * with many files. Instead, we keep the used space in a small index file alongside the directory (for instance,
+ * {@code computer/.0.size} for {@code computer/0}). When a mount is created, we trust this index, and then measure the
+ * directory in the background to correct any drift (such as if the server crashed before the index was saved, or files
+ * were changed outside of the game). If there is no index, the directory is measured immediately.
+ *
+ * The index is saved a few seconds after the mount is modified, rather than on every write. If another mount for the
+ * same directory is created before then (for instance, when a computer is rebooted), the pending save is written
+ * first, so the new mount never reads a stale index.
+ */
 public class FileMount implements IWritableMount
 {
     private static final int MINIMUM_FILE_SIZE = 500;
+    private static final long SAVE_DELAY = 5;
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtils.factory( "FileMount" )
+    );
+
+    /**
+     * Mounts which have an index save scheduled, keyed by their index file.
+     */
+    private static final Map<File, FileMount> pendingSaves = new HashMap<>();
+
+    /**
+     * Held while writing an index file, so two mounts never write the same file at once.
+     */
+    private static final Object indexLock = new Object();
+
     private static final Set<OpenOption> READ_OPTIONS = Collections.singleton( StandardOpenOption.READ );
     private static final Set<OpenOption> WRITE_OPTIONS = Sets.newHashSet( StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING );
     private static final Set<OpenOption> APPEND_OPTIONS = Sets.newHashSet( StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND );
@@ -54,9 +86,12 @@ public class FileMount implements IWritableMount
                 long newBytes = -m_ignoredBytesLeft;
                 m_ignoredBytesLeft = 0;
 
-                long bytesLeft = m_capacity - m_usedSpace;
-                if( newBytes > bytesLeft ) throw new IOException( "Out of space" );
-                m_usedSpace += newBytes;
+                synchronized( FileMount.this )
+                {
+                    long bytesLeft = m_capacity - m_usedSpace;
+                    if( newBytes > bytesLeft ) throw new IOException( "Out of space" );
+                    addUsedSpace( newBytes );
+                }
             }
         }
 
@@ -132,14 +167,51 @@ public class FileMount implements IWritableMount
     }
 
     private File m_rootPath;
+    private final File m_indexFile;
     private long m_capacity;
     private long m_usedSpace;
 
+    /**
+     * The number of times {@link #m_usedSpace} has been changed. This allows us to detect whether the mount was modified
+     * during a background measurement.
+     */
+    private long m_modifications;
+    private boolean m_saveScheduled;
+    private ScheduledFuture<?> m_saveFuture;
+
     public FileMount( File rootPath, long capacity )
     {
         m_rootPath = rootPath;
         m_capacity = capacity + MINIMUM_FILE_SIZE;
-        m_usedSpace = created() ? measureUsedSpace( m_rootPath ) : MINIMUM_FILE_SIZE;
+
+        File root = rootPath.getAbsoluteFile();
+        m_indexFile = new File( root.getParentFile(), "." + root.getName() + ".size" );
+
+        if( !created() )
+        {
+            m_usedSpace = MINIMUM_FILE_SIZE;
+            return;
+        }
+
+        // A previous mount for this directory may not have saved its index yet.
+        FileMount pending;
+        synchronized( pendingSaves )
+        {
+            pending = pendingSaves.remove( m_indexFile );
+        }
+        if( pending != null ) pending.flushIndex();
+
+        long indexed = readIndex();
+        if( indexed >= 0 )
+        {
+            m_usedSpace = indexed;
+            executor.execute( this::reconcile );
+        }
+        else
+        {
+            m_usedSpace = measureUsedSpace( m_rootPath );
+            saveIndex();
+        }
     }
 
     // IMount implementation
@@ -252,7 +324,7 @@ public class FileMount implements IWritableMount
 
         if( file.mkdirs() )
         {
-            m_usedSpace += dirsToCreate * MINIMUM_FILE_SIZE;
+            addUsedSpace( dirsToCreate * MINIMUM_FILE_SIZE );
         }
         else
         {
@@ -289,7 +361,7 @@ public class FileMount implements IWritableMount
         boolean success = file.delete();
         if( success )
         {
-            m_usedSpace -= Math.max( MINIMUM_FILE_SIZE, fileSize );
+            addUsedSpace( -Math.max( MINIMUM_FILE_SIZE, fileSize ) );
         }
         else
         {
@@ -323,13 +395,16 @@ public class FileMount implements IWritableMount
 
         if( file.exists() )
         {
-            m_usedSpace -= Math.max( file.length(), MINIMUM_FILE_SIZE );
+            addUsedSpace( MINIMUM_FILE_SIZE - Math.max( file.length(), MINIMUM_FILE_SIZE ) );
         }
         else if( getRemainingSpace() < MINIMUM_FILE_SIZE )
         {
             throw new IOException( "/" + path + ": Out of space" );
         }
-        m_usedSpace += MINIMUM_FILE_SIZE;
+        else
+        {
+            addUsedSpace( MINIMUM_FILE_SIZE );
+        }
 
         return new SeekableCountingChannel( Files.newByteChannel( file.toPath(), WRITE_OPTIONS ), MINIMUM_FILE_SIZE );
     }
@@ -355,11 +430,123 @@ public class FileMount implements IWritableMount
     }
 
     @Override
-    public long getRemainingSpace()
+    public synchronized long getRemainingSpace()
     {
         return Math.max( m_capacity - m_usedSpace, 0 );
     }
 
+    private synchronized void addUsedSpace( long delta )
+    {
+        if( delta == 0 ) return;
+
+        m_usedSpace += delta;
+        m_modifications++;
+
+        if( !m_saveScheduled )
+        {
+            m_saveScheduled = true;
+            m_saveFuture = executor.schedule( this::saveIndex, SAVE_DELAY, TimeUnit.SECONDS );
+            synchronized( pendingSaves )
+            {
+                pendingSaves.put( m_indexFile, this );
+            }
+        }
+    }
+
+    /**
+     * Save the index now if a save is scheduled, rather than waiting for it.
+     */
+    private void flushIndex()
+    {
+        synchronized( this )
+        {
+            if( !m_saveScheduled ) return;
+            if( m_saveFuture != null ) m_saveFuture.cancel( false );
+        }
+
+        saveIndex();
+    }
+
+    /**
+     * Measure the used space from scratch, replacing the indexed value if it was incorrect.
+     */
+    void reconcile()
+    {
+        long modifications;
+        synchronized( this )
+        {
+            modifications = m_modifications;
+        }
+
+        long measured = measureUsedSpace( m_rootPath );
+
+        synchronized( this )
+        {
+            // If the mount was modified while measuring, our measurement may or may not include those changes. The
+            // index is kept up-to-date as files change, so it's safer to keep it, and try again on the next mount.
+            if( modifications != m_modifications || measured == m_usedSpace ) return;
+
+            m_usedSpace = measured;
+        }
+
+        saveIndex();
+    }
+
+    /**
+     * Write the current used space to the index.
+     */
+    void saveIndex()
+    {
+        synchronized( pendingSaves )
+        {
+            pendingSaves.remove( m_indexFile, this );
+        }
+
+        synchronized( indexLock )
+        {
+            long usedSpace;
+            synchronized( this )
+            {
+                m_saveScheduled = false;
+                m_saveFuture = null;
+                usedSpace = m_usedSpace;
+            }
+
+            File index = m_indexFile;
+            File temp = new File( index.getParentFile(), index.getName() + ".tmp" );
+            try
+            {
+                Files.write( temp.toPath(), Long.toString( usedSpace ).getBytes( StandardCharsets.UTF_8 ) );
+                Files.move( temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            }
+            catch( IOException e )
+            {
+                ComputerCraft.log.warn( "Failed to save used space for " + m_rootPath, e );
+            }
+        }
+    }
+
+    private long readIndex()
+    {
+        File index = m_indexFile;
+        if( !index.isFile() ) return -1;
+
+        try
+        {
+            long usedSpace = Long.parseLong( new String( Files.readAllBytes( index.toPath() ), StandardCharsets.UTF_8 ).trim() );
+            return usedSpace >= MINIMUM_FILE_SIZE ? usedSpace : -1;
+        }
+        catch( IOException | NumberFormatException e )
+        {
+            return -1;
+        }
+    }
+
+    File getIndexFile()
+    {
+        return m_indexFile;
+    }
+
     private File getRealPath( String path )
     {
         return new File( m_rootPath, path );
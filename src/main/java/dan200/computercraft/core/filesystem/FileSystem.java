@@ -24,9 +24,17 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.AccessDeniedException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
+/**
+ * A virtual file system, built from several mounts.
+ *
+ * Mounts are stored in a tree (see {@link MountNode}), so resolving which mount a path belongs to is proportional to
+ * the depth of the path rather than the number of mounts. Operations which only read from the file system do not take
+ * any lock, and so may run concurrently. Those which modify files or the set of mounts are still synchronized.
+ */
 public class FileSystem
 {
     private static class MountWrapper
@@ -311,12 +319,46 @@ public class FileSystem
 
         private String toLocal( String path )
         {
-            return FileSystem.toLocal( path, m_location );
+            // Paths have already been sanitised and resolved to this mount, so we can skip FileSystem.toLocal's checks.
+            if( m_location.isEmpty() ) return path;
+            return path.length() == m_location.length() ? "" : path.substring( m_location.length() + 1 );
+        }
+    }
+
+    /**
+     * A node in the tree of mounts, with one level for each segment of a mount's location.
+     *
+     * The tree is rebuilt whenever a mount is added or removed, and is never modified once published. This allows us
+     * to resolve paths without holding any lock.
+     */
+    private static final class MountNode
+    {
+        final Map<String, MountNode> children = new HashMap<>();
+        MountWrapper mount;
+
+        static MountNode build( Collection<MountWrapper> mounts )
+        {
+            MountNode root = new MountNode();
+            for( MountWrapper mount : mounts )
+            {
+                MountNode node = root;
+                String location = mount.getLocation();
+                if( !location.isEmpty() )
+                {
+                    for( String part : location.split( "/" ) )
+                    {
+                        node = node.children.computeIfAbsent( part, x -> new MountNode() );
+                    }
+                }
+                node.mount = mount;
+            }
+            return root;
         }
     }
 
     private final FileSystemWrapperMount m_wrapper = new FileSystemWrapperMount( this );
     private final Map<String, MountWrapper> m_mounts = new HashMap<>();
+    private volatile MountNode m_mountTree = new MountNode();
 
     private final HashMap<WeakReference<FileSystemWrapper<?>>, ChannelWrapper<?>> m_openFiles = new HashMap<>();
     private final ReferenceQueue<FileSystemWrapper<?>> m_openFileQueue = new ReferenceQueue<>();
@@ -372,15 +414,16 @@ public class FileSystem
         String location = wrapper.getLocation();
         m_mounts.remove( location );
         m_mounts.put( location, wrapper );
+        m_mountTree = MountNode.build( m_mounts.values() );
     }
 
     public synchronized void unmount( String path )
     {
         path = sanitizePath( path );
-        m_mounts.remove( path );
+        if( m_mounts.remove( path ) != null ) m_mountTree = MountNode.build( m_mounts.values() );
     }
 
-    public synchronized String combine( String path, String childPath )
+    public String combine( String path, String childPath )
     {
         path = sanitizePath( path, true );
         childPath = sanitizePath( childPath, true );
@@ -437,28 +480,30 @@ public class FileSystem
         }
     }
 
-    public synchronized long getSize( String path ) throws FileSystemException
+    public long getSize( String path ) throws FileSystemException
     {
         path = sanitizePath( path );
         MountWrapper mount = getMount( path );
         return mount.getSize( path );
     }
 
-    public synchronized String[] list( String path ) throws FileSystemException
+    public String[] list( String path ) throws FileSystemException
     {
         path = sanitizePath( path );
-        MountWrapper mount = getMount( path );
+        MountNode tree = m_mountTree;
+        MountWrapper mount = getMount( tree, path );
 
         // Gets a list of the files in the mount
         List<String> list = new ArrayList<>();
         mount.list( path, list );
 
         // Add any mounts that are mounted at this location
-        for( MountWrapper otherMount : m_mounts.values() )
+        MountNode node = getMountNode( tree, path );
+        if( node != null )
         {
-            if( getDirectory( otherMount.getLocation() ).equals( path ) )
+            for( Map.Entry<String, MountNode> child : node.children.entrySet() )
             {
-                list.add( getName( otherMount.getLocation() ) );
+                if( child.getValue().mount != null ) list.add( child.getKey() );
             }
         }
 
@@ -469,24 +514,25 @@ public class FileSystem
         return array;
     }
 
-    private void findIn( String dir, List<String> matches, Pattern wildPattern ) throws FileSystemException
+    public String[] find( String wildPath ) throws FileSystemException
     {
-        String[] list = list( dir );
-        for( String entry : list )
-        {
-            String entryPath = dir.isEmpty() ? entry : dir + "/" + entry;
-            if( wildPattern.matcher( entryPath ).matches() )
-            {
-                matches.add( entryPath );
-            }
-            if( isDir( entryPath ) )
-            {
-                findIn( entryPath, matches, wildPattern );
-            }
-        }
+        List<String> matches = new ArrayList<>();
+        find( wildPath, matches::add );
+        return matches.toArray( new String[0] );
     }
 
-    public synchronized String[] find( String wildPath ) throws FileSystemException
+    /**
+     * Find every path matching a wildcard pattern, passing each one to a consumer as soon as it is found.
+     *
+     * The pattern is matched one segment at a time, so we only descend into directories which could contain a match.
+     * For instance, {@code foo/*}{@code /bar} will list {@code foo}, but will only check whether {@code bar} exists
+     * within each child directory, rather than searching them.
+     *
+     * @param wildPath The pattern to match, where {@code *} matches any number of characters within a path segment.
+     * @param matches  The consumer to pass matches to, in sorted order.
+     * @throws FileSystemException If the pattern is not a valid path.
+     */
+    public void find( String wildPath, Consumer<String> matches ) throws FileSystemException
     {
         // Match all the files on the system
         wildPath = sanitizePath( wildPath, true );
@@ -495,7 +541,8 @@ public class FileSystem
         int starIndex = wildPath.indexOf( '*' );
         if( starIndex == -1 )
         {
-            return exists( wildPath ) ? new String[] { wildPath } : new String[0];
+            if( exists( wildPath ) ) matches.accept( wildPath );
+            return;
         }
 
         // Find the all non-wildcarded directories. For instance foo/bar/baz* -> foo/bar
@@ -503,41 +550,109 @@ public class FileSystem
         String startDir = prevDir == -1 ? "" : wildPath.substring( 0, prevDir );
 
         // If this isn't a directory then just abort
-        if( !isDir( startDir ) ) return new String[0];
+        if( !isDir( startDir ) ) return;
 
-        // Scan as normal, starting from this directory
-        Pattern wildPattern = Pattern.compile( "^\\Q" + wildPath.replaceAll( "\\*", "\\\\E[^\\\\/]*\\\\Q" ) + "\\E$" );
-        List<String> matches = new ArrayList<>();
-        findIn( startDir, matches, wildPattern );
+        // Compile each remaining segment, and then search from this directory
+        String[] parts = wildPath.substring( prevDir + 1 ).split( "/" );
+        GlobPattern[] patterns = new GlobPattern[parts.length];
+        for( int i = 0; i < parts.length; i++ )
+        {
+            if( parts[i].indexOf( '*' ) >= 0 ) patterns[i] = new GlobPattern( parts[i] );
+        }
 
-        // Return matches
-        String[] array = new String[matches.size()];
-        matches.toArray( array );
-        return array;
+        findIn( startDir, parts, patterns, 0, matches );
+    }
+
+    private void findIn( String dir, String[] parts, GlobPattern[] patterns, int index, Consumer<String> matches ) throws FileSystemException
+    {
+        boolean last = index == parts.length - 1;
+        GlobPattern pattern = patterns[index];
+
+        // If this segment has no wildcards, we can look it up directly rather than listing the directory.
+        if( pattern == null )
+        {
+            String path = dir.isEmpty() ? parts[index] : dir + "/" + parts[index];
+            if( last )
+            {
+                if( exists( path ) ) matches.accept( path );
+            }
+            else if( isDir( path ) )
+            {
+                findIn( path, parts, patterns, index + 1, matches );
+            }
+            return;
+        }
+
+        for( Map.Entry<String, MountWrapper> entry : listEntries( dir ).entrySet() )
+        {
+            if( !pattern.matches( entry.getKey() ) ) continue;
+
+            String path = dir.isEmpty() ? entry.getKey() : dir + "/" + entry.getKey();
+            if( last )
+            {
+                matches.accept( path );
+            }
+            else if( entry.getValue().isDirectory( path ) )
+            {
+                findIn( path, parts, patterns, index + 1, matches );
+            }
+        }
     }
 
-    public synchronized boolean exists( String path ) throws FileSystemException
+    /**
+     * List a directory, along with the mount which each child belongs to. This allows checking properties of the
+     * children without resolving their mount again.
+     *
+     * @param path The sanitised path to list.
+     * @return The children of this directory, in sorted order.
+     * @throws FileSystemException If this is not a directory.
+     */
+    private SortedMap<String, MountWrapper> listEntries( String path ) throws FileSystemException
+    {
+        MountNode tree = m_mountTree;
+        MountWrapper mount = getMount( tree, path );
+
+        List<String> list = new ArrayList<>();
+        mount.list( path, list );
+
+        SortedMap<String, MountWrapper> entries = new TreeMap<>();
+        for( String child : list ) entries.put( child, mount );
+
+        // Mounts take priority over any file of the same name.
+        MountNode node = getMountNode( tree, path );
+        if( node != null )
+        {
+            for( Map.Entry<String, MountNode> child : node.children.entrySet() )
+            {
+                if( child.getValue().mount != null ) entries.put( child.getKey(), child.getValue().mount );
+            }
+        }
+
+        return entries;
+    }
+
+    public boolean exists( String path ) throws FileSystemException
     {
         path = sanitizePath( path );
         MountWrapper mount = getMount( path );
         return mount.exists( path );
     }
 
-    public synchronized boolean isDir( String path ) throws FileSystemException
+    public boolean isDir( String path ) throws FileSystemException
     {
         path = sanitizePath( path );
         MountWrapper mount = getMount( path );
         return mount.isDirectory( path );
     }
 
-    public synchronized boolean isReadOnly( String path ) throws FileSystemException
+    public boolean isReadOnly( String path ) throws FileSystemException
     {
         path = sanitizePath( path );
         MountWrapper mount = getMount( path );
         return mount.isReadOnly( path );
     }
 
-    public synchronized String getMountLabel( String path ) throws FileSystemException
+    public String getMountLabel( String path ) throws FileSystemException
     {
         path = sanitizePath( path );
         MountWrapper mount = getMount( path );
@@ -662,7 +777,7 @@ public class FileSystem
         }
     }
 
-    private synchronized <T extends Closeable> FileSystemWrapper<T> openFile( @Nonnull Channel channel, @Nonnull T file ) throws FileSystemException
+    private <T extends Closeable> FileSystemWrapper<T> openFile( @Nonnull Channel channel, @Nonnull T file ) throws FileSystemException
     {
         synchronized( m_openFiles )
         {
@@ -681,7 +796,7 @@ public class FileSystem
         }
     }
 
-    synchronized void removeFile( FileSystemWrapper<?> handle )
+    void removeFile( FileSystemWrapper<?> handle )
     {
         synchronized( m_openFiles )
         {
@@ -689,7 +804,7 @@ public class FileSystem
         }
     }
 
-    public synchronized <T extends Closeable> FileSystemWrapper<T> openForRead( String path, Function<ReadableByteChannel, T> open ) throws FileSystemException
+    public <T extends Closeable> FileSystemWrapper<T> openForRead( String path, Function<ReadableByteChannel, T> open ) throws FileSystemException
     {
         cleanup();
 
@@ -725,24 +840,33 @@ public class FileSystem
     }
 
     private MountWrapper getMount( String path ) throws FileSystemException
+    {
+        return getMount( m_mountTree, path );
+    }
+
+    private static MountWrapper getMount( MountNode tree, String path ) throws FileSystemException
     {
         // Return the deepest mount that contains a given path
-        Iterator<MountWrapper> it = m_mounts.values().iterator();
         MountWrapper match = null;
-        int matchLength = 999;
-        while( it.hasNext() )
+        if( !path.equals( ".." ) && !path.startsWith( "../" ) )
         {
-            MountWrapper mount = it.next();
-            if( contains( mount.getLocation(), path ) )
+            MountNode node = tree;
+            match = node.mount;
+
+            int start = 0;
+            while( start < path.length() )
             {
-                int len = toLocal( path, mount.getLocation() ).length();
-                if( match == null || len < matchLength )
-                {
-                    match = mount;
-                    matchLength = len;
-                }
+                int end = path.indexOf( '/', start );
+                if( end < 0 ) end = path.length();
+
+                node = node.children.get( path.substring( start, end ) );
+                if( node == null ) break;
+                if( node.mount != null ) match = node.mount;
+
+                start = end + 1;
             }
         }
+
         if( match == null )
         {
             throw new FileSystemException( "/" + path + ": Invalid Path" );
@@ -750,6 +874,19 @@ public class FileSystem
         return match;
     }
 
+    private static MountNode getMountNode( MountNode tree, String path )
+    {
+        if( path.isEmpty() ) return tree;
+
+        MountNode node = tree;
+        for( String part : path.split( "/" ) )
+        {
+            node = node.children.get( part );
+            if( node == null ) return null;
+        }
+        return node;
+    }
+
     public IFileSystem getMountWrapper()
     {
         return m_wrapper;
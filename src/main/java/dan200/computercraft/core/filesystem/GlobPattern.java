@@ -0,0 +1,51 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.filesystem;
+
+/**
+ * A wildcard pattern for a single path segment, as used by {@link FileSystem#find(String)}. {@code *} matches any
+ * number of characters, and every other character matches itself.
+ */
+final class GlobPattern
+{
+    private final String[] parts;
+    private final int minLength;
+
+    GlobPattern( String pattern )
+    {
+        parts = pattern.split( "\\*", -1 );
+
+        int length = 0;
+        for( String part : parts ) length += part.length();
+        minLength = length;
+    }
+
+    boolean matches( String name )
+    {
+        if( name.length() < minLength ) return false;
+
+        // Without any wildcards, this must be an exact match.
+        String first = parts[0];
+        if( parts.length == 1 ) return name.equals( first );
+
+        String last = parts[parts.length - 1];
+        if( !name.startsWith( first ) || !name.endsWith( last ) ) return false;
+
+        // Otherwise find each literal section in turn. As '*' matches anything, it's always safe to pick the earliest
+        // occurrence of each section.
+        int start = first.length(), end = name.length() - last.length();
+        for( int i = 1; i < parts.length - 1; i++ )
+        {
+            String part = parts[i];
+            int index = name.indexOf( part, start );
+            if( index < 0 || index + part.length() > end ) return false;
+            start = index + part.length();
+        }
+
+        return true;
+    }
+}
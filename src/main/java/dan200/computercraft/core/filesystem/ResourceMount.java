@@ -11,6 +11,8 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.io.ByteStreams;
 import dan200.computercraft.api.filesystem.IMount;
 import dan200.computercraft.core.apis.handles.ArrayByteChannel;
+import dan200.computercraft.core.apis.handles.Utf8ReadableHandle;
+import dan200.computercraft.core.lua.PrototypeCache;
 import net.minecraft.resource.ReloadableResourceManager;
 import net.minecraft.resource.Resource;
 import net.minecraft.resource.ResourceManager;
@@ -208,6 +210,12 @@ public class ResourceMount implements IMount
 
                 contents = ByteStreams.toByteArray( stream );
                 CONTENTS_CACHE.put( file, contents );
+
+                // Allow Lua files to use the shared prototype cache once they are loaded.
+                if( file.identifier.getPath().endsWith( ".lua" ) )
+                {
+                    PrototypeCache.addSource( Utf8ReadableHandle.readAll( contents ) );
+                }
                 return new ArrayByteChannel( contents );
             }
             catch( FileNotFoundException ignored )
@@ -261,6 +269,10 @@ public class ResourceMount implements IMount
                 try
                 {
                     for( ResourceMount mount : mounts ) mount.load();
+
+                    // Prototypes are keyed on their contents, so won't be stale. However, this stops us holding on to
+                    // the old ROM forever.
+                    PrototypeCache.invalidate();
                 }
                 finally
                 {
@@ -6,6 +6,7 @@
 
 package dan200.computercraft.core.lua;
 
+import com.google.common.io.ByteStreams;
 import dan200.computercraft.ComputerCraft;
 import dan200.computercraft.api.lua.*;
 import dan200.computercraft.core.computer.Computer;
@@ -13,10 +14,8 @@ import dan200.computercraft.core.computer.MainThread;
 import dan200.computercraft.core.computer.TimeoutState;
 import dan200.computercraft.core.tracking.Tracking;
 import dan200.computercraft.core.tracking.TrackingField;
-import dan200.computercraft.shared.util.ThreadUtils;
 import org.squiddev.cobalt.*;
 import org.squiddev.cobalt.compiler.CompileException;
-import org.squiddev.cobalt.compiler.LoadState;
 import org.squiddev.cobalt.debug.DebugFrame;
 import org.squiddev.cobalt.debug.DebugHandler;
 import org.squiddev.cobalt.debug.DebugState;
@@ -27,13 +26,13 @@ import org.squiddev.cobalt.lib.platform.VoidResourceManipulator;
 
 import javax.annotation.Nonnull;
 import java.io.InputStream;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.IdentityHashMap;
-import java.util.Map;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.squiddev.cobalt.ValueFactory.valueOf;
 import static org.squiddev.cobalt.ValueFactory.varargsOf;
@@ -42,18 +41,24 @@ import static org.squiddev.cobalt.debug.DebugFrame.FLAG_HOOKYIELD;
 
 public class CobaltLuaMachine implements ILuaMachine
 {
-    private static final ThreadPoolExecutor COROUTINES = new ThreadPoolExecutor(
-        0, Integer.MAX_VALUE,
-        5L, TimeUnit.MINUTES,
-        new SynchronousQueue<>(),
-        ThreadUtils.factory( "Coroutine" )
-    );
-
     private final Computer m_computer;
     private final TimeoutState timeout;
     private final TimeoutDebugHandler debug;
     private final ILuaContext context = new CobaltLuaContext();
 
+    /**
+     * This computer's coroutines which have been created, and have not yet finished or been collected.
+     */
+    private final Set<Coroutine> coroutines = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+
+    /**
+     * Coroutines which have been created but not yet resumed. This is weakly keyed, so a coroutine which is never
+     * resumed may still be collected.
+     */
+    private final Map<LuaThread, Coroutine> pendingCoroutines = new WeakHashMap<>();
+    private final ReferenceQueue<LuaThread> collectedCoroutines = new ReferenceQueue<>();
+    private volatile Coroutine startingCoroutine;
+
     private LuaState m_state;
     private LuaTable m_globals;
 
@@ -70,19 +75,7 @@ public class CobaltLuaMachine implements ILuaMachine
         LuaState state = m_state = LuaState.builder()
             .resourceManipulator( new VoidResourceManipulator() )
             .debug( debug )
-            .coroutineExecutor( command -> {
-                Tracking.addValue( m_computer, TrackingField.COROUTINES_CREATED, 1 );
-                COROUTINES.execute( () -> {
-                    try
-                    {
-                        command.run();
-                    }
-                    finally
-                    {
-                        Tracking.addValue( m_computer, TrackingField.COROUTINES_DISPOSED, 1 );
-                    }
-                } );
-            } )
+            .coroutineExecutor( this::executeCoroutine )
             .build();
 
         m_globals = new LuaTable();
@@ -97,12 +90,18 @@ public class CobaltLuaMachine implements ILuaMachine
         m_globals.load( state, new Bit32Lib() );
         if( ComputerCraft.debug_enable ) m_globals.load( state, new DebugLib() );
 
+        // Check the coroutine limits when a coroutine is created, as that is where we can report a useful error
+        limitCoroutines( (LuaTable) m_globals.rawget( "coroutine" ) );
+
         // Remove globals we don't want to expose
         m_globals.rawset( "collectgarbage", Constants.NIL );
         m_globals.rawset( "dofile", Constants.NIL );
         m_globals.rawset( "loadfile", Constants.NIL );
         m_globals.rawset( "print", Constants.NIL );
 
+        // Load bios and ROM chunks through the shared prototype cache
+        m_globals.rawset( "loadstring", new PrototypeCache.LoadString() );
+
         // Add version globals
         m_globals.rawset( "_VERSION", valueOf( "Lua 5.1" ) );
         m_globals.rawset( "_HOST", valueOf( computer.getAPIEnvironment().getComputerEnvironment().getHostString() ) );
@@ -113,6 +112,148 @@ public class CobaltLuaMachine implements ILuaMachine
         }
     }
 
+    /**
+     * Replace the coroutine library's functions with ones which enforce the coroutine limits.
+     *
+     * Each coroutine reserves a slot when it is created, both against this computer's limit and the executor's (see
+     * {@link CoroutineExecutor#tryReserve()}). If either is full, creating the coroutine fails with a Lua error. The
+     * slot is released when the coroutine finishes, or when it is garbage collected.
+     *
+     * {@code coroutine.wrap} is reimplemented on top of {@code create} and {@code resume}, so that we can track the
+     * coroutine it creates.
+     *
+     * @param table The coroutine library.
+     */
+    private void limitCoroutines( LuaTable table )
+    {
+        LuaFunction create = (LuaFunction) table.rawget( "create" );
+        LuaFunction resume = (LuaFunction) table.rawget( "resume" );
+
+        LuaFunction limitedCreate = new VarArgFunction()
+        {
+            @Override
+            public Varargs invoke( LuaState state, Varargs args ) throws LuaError
+            {
+                Coroutine coroutine = reserveCoroutine();
+                LuaValue thread = null;
+                try
+                {
+                    thread = create.invoke( state, args ).first();
+                }
+                finally
+                {
+                    if( thread == null ) coroutine.release();
+                }
+
+                coroutine.track( (LuaThread) thread );
+                return thread;
+            }
+        };
+
+        LuaFunction limitedResume = new VarArgFunction()
+        {
+            @Override
+            public Varargs invoke( LuaState state, Varargs args ) throws LuaError
+            {
+                // Cobalt starts the coroutine's thread within resume, so let executeCoroutine know which coroutine it
+                // is running.
+                LuaValue thread = args.first();
+                Coroutine coroutine;
+                synchronized( pendingCoroutines )
+                {
+                    coroutine = thread instanceof LuaThread ? pendingCoroutines.remove( thread ) : null;
+                }
+
+                startingCoroutine = coroutine;
+                try
+                {
+                    return resume.invoke( state, args );
+                }
+                finally
+                {
+                    startingCoroutine = null;
+                }
+            }
+        };
+
+        table.rawset( "create", limitedCreate );
+        table.rawset( "resume", limitedResume );
+        table.rawset( "wrap", new VarArgFunction()
+        {
+            @Override
+            public Varargs invoke( LuaState state, Varargs args ) throws LuaError
+            {
+                LuaValue thread = limitedCreate.invoke( state, args ).first();
+                return new VarArgFunction()
+                {
+                    @Override
+                    public Varargs invoke( LuaState state, Varargs args ) throws LuaError
+                    {
+                        Varargs result = limitedResume.invoke( state, varargsOf( thread, args ) );
+                        if( result.first().toBoolean() ) return result.subargs( 2 );
+                        throw new LuaError( result.arg( 2 ) );
+                    }
+                };
+            }
+        } );
+    }
+
+    /**
+     * Reserve a slot for a new coroutine, failing if this computer or the executor has too many.
+     *
+     * @return The reserved slot.
+     * @throws LuaError If there are too many coroutines.
+     */
+    private Coroutine reserveCoroutine() throws LuaError
+    {
+        // Release any coroutines which were collected without ever being resumed.
+        Reference<? extends LuaThread> collected;
+        while( (collected = collectedCoroutines.poll()) != null ) ((CoroutineReference) collected).coroutine.release();
+
+        int limit = ComputerCraft.coroutineLimit;
+        if( limit > 0 && coroutines.size() >= limit ) throw new LuaError( "Too many coroutines" );
+        if( !CoroutineExecutor.get().tryReserve() ) throw new LuaError( "Too many coroutines" );
+
+        Coroutine coroutine = new Coroutine();
+        coroutines.add( coroutine );
+        return coroutine;
+    }
+
+    private void executeCoroutine( Runnable command )
+    {
+        Coroutine coroutine = startingCoroutine;
+        startingCoroutine = null;
+
+        try
+        {
+            CoroutineExecutor.get().execute( () -> {
+                long allocated = CoroutineExecutor.getAllocatedBytes();
+                try
+                {
+                    command.run();
+                }
+                finally
+                {
+                    if( coroutine != null ) coroutine.release();
+                    Tracking.addValue( m_computer, TrackingField.COROUTINES_DISPOSED, 1 );
+
+                    long newAllocated = CoroutineExecutor.getAllocatedBytes();
+                    if( allocated >= 0 && newAllocated >= allocated )
+                    {
+                        Tracking.addValue( m_computer, TrackingField.COROUTINES_MEMORY, newAllocated - allocated );
+                    }
+                }
+            } );
+        }
+        catch( RejectedExecutionException e )
+        {
+            if( coroutine != null ) coroutine.release();
+            throw e;
+        }
+
+        Tracking.addValue( m_computer, TrackingField.COROUTINES_CREATED, 1 );
+    }
+
     @Override
     public void addAPI( @Nonnull ILuaAPI api )
     {
@@ -133,7 +274,9 @@ public class CobaltLuaMachine implements ILuaMachine
 
         try
         {
-            LuaFunction value = LoadState.load( m_state, bios, "@bios.lua", m_globals );
+            LuaString contents = LuaString.valueOf( ByteStreams.toByteArray( bios ) );
+            PrototypeCache.addSource( contents );
+            LuaFunction value = PrototypeCache.load( m_state, contents, valueOf( "@bios.lua" ), m_globals );
             m_mainRoutine = new LuaThread( m_state, value, m_globals );
             return MachineResult.OK;
         }
@@ -204,6 +347,14 @@ public class CobaltLuaMachine implements ILuaMachine
             ComputerCraft.log.warn( "Top level coroutine errored", e );
             return MachineResult.error( e );
         }
+        catch( RejectedExecutionException e )
+        {
+            // Cobalt doesn't have a way to report a coroutine failing to start, so all we can do is kill the computer.
+            // The limits are checked in coroutine.create and coroutine.wrap, so this should only happen if the
+            // executor itself has failed.
+            close();
+            return MachineResult.error( e );
+        }
     }
 
     @Override
@@ -213,6 +364,7 @@ public class CobaltLuaMachine implements ILuaMachine
         if( state == null ) return;
 
         state.abandon();
+        for( Coroutine coroutine : coroutines ) coroutine.release();
         m_mainRoutine = null;
         m_state = null;
         m_globals = null;
@@ -423,6 +575,48 @@ public class CobaltLuaMachine implements ILuaMachine
     /**
      * A {@link DebugHandler} which observes the {@link TimeoutState} and responds accordingly.
      */
+    /**
+     * A slot reserved by one of this computer's coroutines.
+     */
+    private final class Coroutine
+    {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * A weak reference to this coroutine's thread, used to release the slot if it is collected without ever being
+         * resumed. This must be kept alive for it to be enqueued.
+         */
+        private CoroutineReference reference;
+
+        void track( LuaThread thread )
+        {
+            reference = new CoroutineReference( thread, this );
+            synchronized( pendingCoroutines )
+            {
+                pendingCoroutines.put( thread, this );
+            }
+        }
+
+        void release()
+        {
+            if( !released.compareAndSet( false, true ) ) return;
+
+            coroutines.remove( this );
+            CoroutineExecutor.get().release();
+        }
+    }
+
+    private final class CoroutineReference extends WeakReference<LuaThread>
+    {
+        final Coroutine coroutine;
+
+        CoroutineReference( LuaThread thread, Coroutine coroutine )
+        {
+            super( thread, collectedCoroutines );
+            this.coroutine = coroutine;
+        }
+    }
+
     private class TimeoutDebugHandler extends DebugHandler
     {
         private final TimeoutState timeout;
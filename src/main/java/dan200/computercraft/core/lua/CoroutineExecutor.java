@@ -0,0 +1,247 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.ComputerCraft;
+import dan200.computercraft.shared.util.ThreadUtils;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The backend which runs Lua coroutines.
+ *
+ * Cobalt runs each coroutine on its own Java thread, which blocks while the coroutine is suspended. This class
+ * controls where those threads come from. There are three backends, selected with the {@code coroutine_executor}
+ * config option:
+ *
+ * <ul>
+ * <li>{@code pool}: An unbounded pool of platform threads. Every live coroutine has its own OS thread.</li>
+ * <li>{@code bounded}: A pool of platform threads, shared by at most {@link ComputerCraft#coroutineMaxThreads}
+ * coroutines. Once this limit is hit, creating new coroutines fails until an existing one finishes or is garbage
+ * collected. Each computer's main coroutine is not counted towards this limit.</li>
+ * <li>{@code virtual}: Each coroutine runs on a virtual thread. This requires a JVM which supports them, otherwise we
+ * fall back to {@code pool}.</li>
+ * </ul>
+ *
+ * Every coroutine reserves a slot with {@link #tryReserve()} when it is created, which is released once it finishes (or
+ * is collected without ever being resumed). As slots are taken when a coroutine is created, rather than when it first
+ * runs, a program cannot get around the limit by creating many coroutines and only then resuming them.
+ *
+ * The backend is chosen when the first computer starts, so changing it requires a restart.
+ */
+public abstract class CoroutineExecutor
+{
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private static volatile CoroutineExecutor instance;
+
+    private final int maxCoroutines;
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    CoroutineExecutor( int maxCoroutines )
+    {
+        this.maxCoroutines = maxCoroutines;
+    }
+
+    /**
+     * Run a coroutine's body.
+     *
+     * @param task The body of this coroutine.
+     * @throws RejectedExecutionException If the coroutine could not be started.
+     */
+    public abstract void execute( @Nonnull Runnable task );
+
+    /**
+     * Get the number of coroutines which are currently running or suspended on this executor.
+     *
+     * @return The number of live coroutines.
+     */
+    public abstract int getActiveCount();
+
+    /**
+     * Reserve a slot for a new coroutine. This should be called when a coroutine is created, and the slot released
+     * with {@link #release()} once it has finished.
+     *
+     * @return Whether a slot was reserved, or {@code false} if there are already too many coroutines.
+     */
+    public final boolean tryReserve()
+    {
+        while( true )
+        {
+            int current = reserved.get();
+            if( current >= maxCoroutines ) return false;
+            if( reserved.compareAndSet( current, current + 1 ) ) return true;
+        }
+    }
+
+    /**
+     * Release a slot reserved with {@link #tryReserve()}.
+     */
+    public final void release()
+    {
+        reserved.decrementAndGet();
+    }
+
+    /**
+     * Get the backend chosen in the config.
+     *
+     * @return The shared coroutine executor.
+     */
+    @Nonnull
+    public static CoroutineExecutor get()
+    {
+        CoroutineExecutor executor = instance;
+        if( executor != null ) return executor;
+
+        synchronized( CoroutineExecutor.class )
+        {
+            if( instance == null ) instance = create( ComputerCraft.coroutineExecutor );
+            return instance;
+        }
+    }
+
+    @Nonnull
+    private static CoroutineExecutor create( String kind )
+    {
+        switch( kind.toLowerCase( Locale.ROOT ) )
+        {
+            case "pool":
+                return new Pool( Integer.MAX_VALUE );
+            case "bounded":
+                return new Pool( Math.max( 1, ComputerCraft.coroutineMaxThreads ) );
+            case "virtual":
+            {
+                ExecutorService executor = createVirtual();
+                if( executor != null ) return new Virtual( executor );
+
+                ComputerCraft.log.warn( "Virtual threads are not supported on this JVM, falling back to 'pool'." );
+                return new Pool( Integer.MAX_VALUE );
+            }
+            default:
+                ComputerCraft.log.error( "Unknown coroutine executor '{}', falling back to 'pool'.", kind );
+                return new Pool( Integer.MAX_VALUE );
+        }
+    }
+
+    /**
+     * Attempt to create an executor which runs each task on a new virtual thread. We're compiled against Java 8, so
+     * this must be done reflectively.
+     *
+     * @return The virtual thread executor, or {@code null} if this JVM does not support them.
+     */
+    private static ExecutorService createVirtual()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+        }
+        catch( ReflectiveOperationException | RuntimeException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread, if this JVM supports measuring it.
+     *
+     * @return The number of bytes allocated, or {@code -1} if unknown.
+     */
+    static long getAllocatedBytes()
+    {
+        if( !(threads instanceof com.sun.management.ThreadMXBean) ) return -1;
+
+        try
+        {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            return sunThreads.isThreadAllocatedMemoryEnabled()
+                ? sunThreads.getThreadAllocatedBytes( Thread.currentThread().getId() )
+                : -1;
+        }
+        catch( UnsupportedOperationException e )
+        {
+            return -1;
+        }
+    }
+
+    private static final class Pool extends CoroutineExecutor
+    {
+        private final ThreadPoolExecutor executor;
+
+        Pool( int maxCoroutines )
+        {
+            super( maxCoroutines );
+
+            // The number of coroutines is limited by tryReserve, so the pool itself does not need a limit. Threads are
+            // only created when no idle one is available, so there are never many more threads than live coroutines.
+            executor = new ThreadPoolExecutor(
+                0, Integer.MAX_VALUE,
+                5L, TimeUnit.MINUTES,
+                new SynchronousQueue<>(),
+                ThreadUtils.factory( "Coroutine" )
+            );
+        }
+
+        @Override
+        public void execute( @Nonnull Runnable task )
+        {
+            executor.execute( task );
+        }
+
+        @Override
+        public int getActiveCount()
+        {
+            return executor.getActiveCount();
+        }
+    }
+
+    private static final class Virtual extends CoroutineExecutor
+    {
+        private final ExecutorService executor;
+        private final AtomicInteger active = new AtomicInteger();
+
+        Virtual( ExecutorService executor )
+        {
+            super( Integer.MAX_VALUE );
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute( @Nonnull Runnable task )
+        {
+            active.incrementAndGet();
+            try
+            {
+                executor.execute( () -> {
+                    try
+                    {
+                        task.run();
+                    }
+                    finally
+                    {
+                        active.decrementAndGet();
+                    }
+                } );
+            }
+            catch( RejectedExecutionException e )
+            {
+                active.decrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public int getActiveCount()
+        {
+            return active.get();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.lua;
+
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.compiler.CompileException;
+import org.squiddev.cobalt.compiler.LoadState;
+import org.squiddev.cobalt.function.LuaFunction;
+import org.squiddev.cobalt.function.LuaInterpretedFunction;
+import org.squiddev.cobalt.function.VarArgFunction;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.squiddev.cobalt.ValueFactory.valueOf;
+import static org.squiddev.cobalt.ValueFactory.varargsOf;
+
+/**
+ * A process-wide cache of compiled Lua {@link Prototype}s for the bios and ROM, shared between every computer.
+ *
+ * Every computer loads the same bios and ROM files when it boots, so rather than lexing and compiling them each time,
+ * we compile each chunk once and create a new closure from the shared prototype. Prototypes are immutable once
+ * compiled, so it is safe for several computers to run closures from the same one at once.
+ *
+ * Only chunks whose contents have been registered with {@link #addSource(byte[])} are cached. This is done for the
+ * bios, and for Lua files read from a {@link dan200.computercraft.core.filesystem.ResourceMount}. Any other chunk (such
+ * as those loaded by user programs, or {@code textutils.unserialize}) is compiled as normal, so user code cannot fill
+ * the cache or evict the ROM from it.
+ *
+ * Entries are keyed on the chunk's entire contents, so an edited file will never pick up a stale prototype. Each source
+ * has at most one cached prototype, for the name it was first loaded with; loading it under any other name compiles it
+ * as normal. This means the cache can never hold more than the registered sources, which are limited to
+ * {@link #MAX_SIZE}. The cache is emptied whenever resources are reloaded (see {@code ResourceMount.Listener}).
+ */
+public final class PrototypeCache
+{
+    /**
+     * The maximum total length of all registered sources. The default ROM is a little under 1MiB.
+     */
+    private static final long MAX_SIZE = 8 << 20;
+
+    private static final Set<LuaString> sources = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+    private static final Map<LuaString, Entry> cache = new ConcurrentHashMap<>();
+    private static final AtomicLong size = new AtomicLong();
+
+    private PrototypeCache()
+    {
+    }
+
+    /**
+     * Mark a chunk's contents as belonging to the bios or ROM, and so allow it to be cached.
+     *
+     * @param contents The contents of this chunk, as Lua will see them.
+     */
+    public static void addSource( @Nonnull byte[] contents )
+    {
+        addSource( LuaString.valueOf( contents ) );
+    }
+
+    static void addSource( @Nonnull LuaString contents )
+    {
+        if( sources.contains( contents ) ) return;
+
+        if( size.addAndGet( contents.length ) > MAX_SIZE )
+        {
+            size.addAndGet( -contents.length );
+            return;
+        }
+
+        if( !sources.add( contents ) ) size.addAndGet( -contents.length );
+    }
+
+    /**
+     * Load a chunk, using a cached prototype if it is a bios or ROM chunk.
+     *
+     * @param state    The Lua state to load the chunk in.
+     * @param contents The contents of this chunk.
+     * @param name     The name of this chunk, used in error messages.
+     * @param env      The environment of the resulting function.
+     * @return The loaded function.
+     * @throws CompileException If the chunk could not be compiled.
+     * @throws IOException      If the chunk could not be read.
+     */
+    @Nonnull
+    public static LuaFunction load( @Nonnull LuaState state, @Nonnull LuaString contents, @Nonnull LuaString name, @Nonnull LuaTable env ) throws CompileException, IOException
+    {
+        if( !sources.contains( contents ) ) return compile( state, contents, name, env );
+
+        Entry entry = cache.get( contents );
+        if( entry != null )
+        {
+            // The chunk's name is baked into its prototype, so we can only reuse it when loaded under the same name.
+            return entry.name.equals( name )
+                ? new LuaInterpretedFunction( entry.prototype, env )
+                : compile( state, contents, name, env );
+        }
+
+        // Several computers may compile the same chunk at once, but that's preferable to blocking every computer
+        // behind one compile.
+        LuaFunction function = compile( state, contents, name, env );
+        if( function instanceof LuaInterpretedFunction )
+        {
+            cache.putIfAbsent( contents, new Entry( name, ((LuaInterpretedFunction) function).getPrototype() ) );
+        }
+
+        return function;
+    }
+
+    /**
+     * Remove every prototype and registered source from the cache.
+     */
+    public static void invalidate()
+    {
+        cache.clear();
+        sources.clear();
+        size.set( 0 );
+    }
+
+    private static LuaFunction compile( LuaState state, LuaString contents, LuaString name, LuaTable env ) throws CompileException, IOException
+    {
+        return LoadState.load( state, new ByteArrayInputStream( contents.bytes, contents.offset, contents.length ), name.toString(), env );
+    }
+
+    /**
+     * A replacement for the {@code loadstring} function, which loads bios and ROM chunks through the cache.
+     *
+     * The bios's {@code load} and {@code loadfile} (and so {@code os.loadAPI} and {@code os.run}) go through this
+     * function, so this covers the ROM's APIs and programs. Other chunks are compiled exactly as the original
+     * {@code loadstring} would.
+     */
+    static class LoadString extends VarArgFunction
+    {
+        @Override
+        public Varargs invoke( LuaState state, Varargs args ) throws LuaError
+        {
+            LuaString contents = args.arg( 1 ).checkLuaString();
+            LuaString name = args.arg( 2 ).optLuaString( contents );
+
+            try
+            {
+                return load( state, contents, name, state.getCurrentThread().getfenv() );
+            }
+            catch( CompileException | IOException e )
+            {
+                return varargsOf( Constants.NIL, valueOf( e.getMessage() ) );
+            }
+        }
+    }
+
+    private static final class Entry
+    {
+        final LuaString name;
+        final Prototype prototype;
+
+        Entry( LuaString name, Prototype prototype )
+        {
+            this.name = name;
+            this.prototype = prototype;
+        }
+    }
+}
@@ -9,10 +9,27 @@ package dan200.computercraft.core.terminal;
 import dan200.computercraft.shared.util.Palette;
 import net.minecraft.nbt.CompoundTag;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The contents of a computer or monitor's screen, along with its cursor and palette.
+ *
+ * Cells are stored in two flat arrays: one byte per character, and one byte per cell holding the text colour in the
+ * high nibble and the background colour in the low nibble (the same layout used by
+ * {@link dan200.computercraft.shared.network.client.TerminalState}). Rows are stored as a ring buffer, so scrolling
+ * only needs to clear the rows which scroll into view, rather than moving every row.
+ *
+ * {@link #getLine(int)} and friends return read-only {@link TextBuffer} views of a row, for the renderers.
+ */
 public class Terminal
 {
     private static final String base16 = "0123456789abcdef";
 
+    private static final int VIEW_TEXT = -1;
+    private static final int VIEW_TEXT_COLOUR = 4;
+    private static final int VIEW_BACKGROUND_COLOUR = 0;
+
     private int m_cursorX;
     private int m_cursorY;
     private boolean m_cursorBlink;
@@ -22,15 +39,33 @@ public class Terminal
     private int m_width;
     private int m_height;
 
-    private TextBuffer[] m_text;
-    private TextBuffer[] m_textColour;
-    private TextBuffer[] m_backgroundColour;
+    private byte[] m_text;
+    private byte[] m_colours;
+
+    /**
+     * The physical row which holds the top line of the terminal.
+     */
+    private int m_firstRow;
+
+    /**
+     * Views of each physical row, created when first requested.
+     */
+    private Line[] m_textLines;
+    private Line[] m_textColourLines;
+    private Line[] m_backgroundColourLines;
 
     private final Palette m_palette;
 
     private boolean m_changed;
     private final Runnable onChanged;
 
+    /**
+     * The rows which have changed since the last call to {@link #pollDirtyRows()}.
+     */
+    private final BitSet m_dirtyRows = new BitSet();
+    private boolean m_cursorDirty;
+    private boolean m_paletteDirty;
+
     public Terminal( int width, int height )
     {
         this( width, height, null );
@@ -45,15 +80,8 @@ public class Terminal
         m_cursorColour = 0;
         m_cursorBackgroundColour = 15;
 
-        m_text = new TextBuffer[m_height];
-        m_textColour = new TextBuffer[m_height];
-        m_backgroundColour = new TextBuffer[m_height];
-        for( int i = 0; i < m_height; i++ )
-        {
-            m_text[i] = new TextBuffer( ' ', m_width );
-            m_textColour[i] = new TextBuffer( base16.charAt( m_cursorColour ), m_width );
-            m_backgroundColour[i] = new TextBuffer( base16.charAt( m_cursorBackgroundColour ), m_width );
-        }
+        allocate();
+        clearRows( 0, m_height );
 
         m_cursorX = 0;
         m_cursorY = 0;
@@ -72,6 +100,8 @@ public class Terminal
         m_cursorY = 0;
         m_cursorBlink = false;
         clear();
+        m_cursorDirty = true;
+        m_paletteDirty = true;
         setChanged();
         m_palette.resetColours();
     }
@@ -95,40 +125,26 @@ public class Terminal
 
         int oldHeight = m_height;
         int oldWidth = m_width;
-        TextBuffer[] oldText = m_text;
-        TextBuffer[] oldTextColour = m_textColour;
-        TextBuffer[] oldBackgroundColour = m_backgroundColour;
+        byte[] oldText = m_text;
+        byte[] oldColours = m_colours;
+        int oldFirstRow = m_firstRow;
 
         m_width = width;
         m_height = height;
+        allocate();
+        clearRows( 0, m_height );
 
-        m_text = new TextBuffer[m_height];
-        m_textColour = new TextBuffer[m_height];
-        m_backgroundColour = new TextBuffer[m_height];
-        for( int i = 0; i < m_height; i++ )
+        int copyWidth = Math.min( oldWidth, m_width );
+        for( int y = 0, copyHeight = Math.min( oldHeight, m_height ); y < copyHeight; y++ )
         {
-            if( i >= oldHeight )
-            {
-                m_text[i] = new TextBuffer( ' ', m_width );
-                m_textColour[i] = new TextBuffer( base16.charAt( m_cursorColour ), m_width );
-                m_backgroundColour[i] = new TextBuffer( base16.charAt( m_cursorBackgroundColour ), m_width );
-            }
-            else if( m_width == oldWidth )
-            {
-                m_text[i] = oldText[i];
-                m_textColour[i] = oldTextColour[i];
-                m_backgroundColour[i] = oldBackgroundColour[i];
-            }
-            else
-            {
-                m_text[i] = new TextBuffer( ' ', m_width );
-                m_textColour[i] = new TextBuffer( base16.charAt( m_cursorColour ), m_width );
-                m_backgroundColour[i] = new TextBuffer( base16.charAt( m_cursorBackgroundColour ), m_width );
-                m_text[i].write( oldText[i] );
-                m_textColour[i].write( oldTextColour[i] );
-                m_backgroundColour[i].write( oldBackgroundColour[i] );
-            }
+            int oldRow = y + oldFirstRow;
+            if( oldRow >= oldHeight ) oldRow -= oldHeight;
+
+            System.arraycopy( oldText, oldRow * oldWidth, m_text, y * m_width, copyWidth );
+            System.arraycopy( oldColours, oldRow * oldWidth, m_colours, y * m_width, copyWidth );
         }
+        m_dirtyRows.set( 0, m_height );
+        m_cursorDirty = true;
         setChanged();
     }
 
@@ -138,6 +154,7 @@ public class Terminal
         {
             m_cursorX = x;
             m_cursorY = y;
+            m_cursorDirty = true;
             setChanged();
         }
     }
@@ -147,6 +164,7 @@ public class Terminal
         if( m_cursorBlink != blink )
         {
             m_cursorBlink = blink;
+            m_cursorDirty = true;
             setChanged();
         }
     }
@@ -156,6 +174,7 @@ public class Terminal
         if( m_cursorColour != colour )
         {
             m_cursorColour = colour;
+            m_cursorDirty = true;
             setChanged();
         }
     }
@@ -165,6 +184,7 @@ public class Terminal
         if( m_cursorBackgroundColour != colour )
         {
             m_cursorBackgroundColour = colour;
+            m_cursorDirty = true;
             setChanged();
         }
     }
@@ -205,9 +225,11 @@ public class Terminal
         int y = m_cursorY;
         if( y >= 0 && y < m_height )
         {
-            m_text[y].write( text, x );
-            m_textColour[y].write( textColour, x );
-            m_backgroundColour[y].write( backgroundColour, x );
+            int offset = rowOffset( y );
+            writeText( offset, text, x );
+            writeColour( offset, textColour, x, VIEW_TEXT_COLOUR, 0 );
+            writeColour( offset, backgroundColour, x, VIEW_BACKGROUND_COLOUR, 15 );
+            m_dirtyRows.set( y );
             setChanged();
         }
     }
@@ -218,9 +240,12 @@ public class Terminal
         int y = m_cursorY;
         if( y >= 0 && y < m_height )
         {
-            m_text[y].write( text, x );
-            m_textColour[y].fill( base16.charAt( m_cursorColour ), x, x + text.length() );
-            m_backgroundColour[y].fill( base16.charAt( m_cursorBackgroundColour ), x, x + text.length() );
+            int offset = rowOffset( y );
+            writeText( offset, text, x );
+
+            int start = Math.max( x, 0 ), end = Math.min( x + text.length(), m_width );
+            if( start < end ) Arrays.fill( m_colours, offset + start, offset + end, getCursorColours() );
+            m_dirtyRows.set( y );
             setChanged();
         }
     }
@@ -229,40 +254,32 @@ public class Terminal
     {
         if( yDiff != 0 )
         {
-            TextBuffer[] newText = new TextBuffer[m_height];
-            TextBuffer[] newTextColour = new TextBuffer[m_height];
-            TextBuffer[] newBackgroundColour = new TextBuffer[m_height];
-            for( int y = 0; y < m_height; y++ )
+            if( yDiff >= m_height || yDiff <= -m_height )
             {
-                int oldY = y + yDiff;
-                if( oldY >= 0 && oldY < m_height )
+                clearRows( 0, m_height );
+            }
+            else
+            {
+                // Rotate the ring buffer, and then clear the rows which have wrapped around.
+                m_firstRow = Math.floorMod( m_firstRow + yDiff, m_height );
+                if( yDiff > 0 )
                 {
-                    newText[y] = m_text[oldY];
-                    newTextColour[y] = m_textColour[oldY];
-                    newBackgroundColour[y] = m_backgroundColour[oldY];
+                    clearRows( m_height - yDiff, m_height );
                 }
                 else
                 {
-                    newText[y] = new TextBuffer( ' ', m_width );
-                    newTextColour[y] = new TextBuffer( base16.charAt( m_cursorColour ), m_width );
-                    newBackgroundColour[y] = new TextBuffer( base16.charAt( m_cursorBackgroundColour ), m_width );
+                    clearRows( 0, -yDiff );
                 }
             }
-            m_text = newText;
-            m_textColour = newTextColour;
-            m_backgroundColour = newBackgroundColour;
+            m_dirtyRows.set( 0, m_height );
             setChanged();
         }
     }
 
     public synchronized void clear()
     {
-        for( int y = 0; y < m_height; y++ )
-        {
-            m_text[y].fill( ' ' );
-            m_textColour[y].fill( base16.charAt( m_cursorColour ) );
-            m_backgroundColour[y].fill( base16.charAt( m_cursorBackgroundColour ) );
-        }
+        clearRows( 0, m_height );
+        m_dirtyRows.set( 0, m_height );
         setChanged();
     }
 
@@ -271,9 +288,8 @@ public class Terminal
         int y = m_cursorY;
         if( y >= 0 && y < m_height )
         {
-            m_text[y].fill( ' ' );
-            m_textColour[y].fill( base16.charAt( m_cursorColour ) );
-            m_backgroundColour[y].fill( base16.charAt( m_cursorBackgroundColour ) );
+            clearRows( y, y + 1 );
+            m_dirtyRows.set( y );
             setChanged();
         }
     }
@@ -282,16 +298,20 @@ public class Terminal
     {
         if( y >= 0 && y < m_height )
         {
-            return m_text[y];
+            return getView( m_textLines, y, VIEW_TEXT );
         }
         return null;
     }
 
     public synchronized void setLine( int y, String text, String textColour, String backgroundColour )
     {
-        m_text[y].write( text );
-        m_textColour[y].write( textColour );
-        m_backgroundColour[y].write( backgroundColour );
+        if( y < 0 || y >= m_height ) return;
+
+        int offset = rowOffset( y );
+        writeText( offset, text, 0 );
+        writeColour( offset, textColour, 0, VIEW_TEXT_COLOUR, 0 );
+        writeColour( offset, backgroundColour, 0, VIEW_BACKGROUND_COLOUR, 15 );
+        m_dirtyRows.set( y );
         setChanged();
     }
 
@@ -299,7 +319,7 @@ public class Terminal
     {
         if( y >= 0 && y < m_height )
         {
-            return m_textColour[y];
+            return getView( m_textColourLines, y, VIEW_TEXT_COLOUR );
         }
         return null;
     }
@@ -308,11 +328,49 @@ public class Terminal
     {
         if( y >= 0 && y < m_height )
         {
-            return m_backgroundColour[y];
+            return getView( m_backgroundColourLines, y, VIEW_BACKGROUND_COLOUR );
         }
         return null;
     }
 
+    /**
+     * Copy a row of this terminal into a packed buffer. This uses one byte per character, and one byte per cell for the
+     * colours, with the text colour in the high nibble and background colour in the low nibble.
+     *
+     * @param y       The row to copy.
+     * @param text    The array to write characters to.
+     * @param colours The array to write colours to.
+     * @param offset  The position in the two arrays to write this row to. Each array must have space for
+     *                {@link #getWidth()} bytes after this.
+     */
+    public synchronized void readRow( int y, byte[] text, byte[] colours, int offset )
+    {
+        int row = rowOffset( y );
+        System.arraycopy( m_text, row, text, offset, m_width );
+        System.arraycopy( m_colours, row, colours, offset, m_width );
+    }
+
+    /**
+     * Replace the start of a row with the contents of a packed buffer, in the same format as {@link #readRow}.
+     *
+     * @param y       The row to replace.
+     * @param text    The array to read characters from.
+     * @param colours The array to read colours from.
+     * @param offset  The position in the two arrays to read this row from.
+     * @param length  The number of cells to copy. This will be truncated to the width of the terminal.
+     */
+    public synchronized void writeRow( int y, byte[] text, byte[] colours, int offset, int length )
+    {
+        if( y < 0 || y >= m_height ) return;
+
+        int row = rowOffset( y );
+        length = Math.min( length, m_width );
+        System.arraycopy( text, offset, m_text, row, length );
+        System.arraycopy( colours, offset, m_colours, row, length );
+        m_dirtyRows.set( y );
+        setChanged();
+    }
+
     /**
      * @deprecated All {@code *Changed()} methods are deprecated: one should pass in a callback
      * instead.
@@ -334,6 +392,52 @@ public class Terminal
         m_changed = false;
     }
 
+    /**
+     * Mark the palette as having changed. This should be called after modifying the {@link #getPalette()}.
+     */
+    public final void setPaletteChanged()
+    {
+        m_paletteDirty = true;
+        setChanged();
+    }
+
+    /**
+     * Get the rows which have changed since the last call to this method, clearing the dirty state of all rows.
+     *
+     * @return The set of changed rows.
+     */
+    public synchronized BitSet pollDirtyRows()
+    {
+        BitSet rows = (BitSet) m_dirtyRows.clone();
+        m_dirtyRows.clear();
+        return rows;
+    }
+
+    /**
+     * Get whether the cursor's position, blink or colours have changed since the last call to this method.
+     *
+     * @return If the cursor has changed.
+     */
+    public synchronized boolean pollCursorDirty()
+    {
+        boolean dirty = m_cursorDirty;
+        m_cursorDirty = false;
+        return dirty;
+    }
+
+    /**
+     * Get whether the palette has changed since the last call to this method.
+     *
+     * @return If the palette has changed.
+     * @see #setPaletteChanged()
+     */
+    public synchronized boolean pollPaletteDirty()
+    {
+        boolean dirty = m_paletteDirty;
+        m_paletteDirty = false;
+        return dirty;
+    }
+
     public synchronized CompoundTag writeToNBT( CompoundTag nbt )
     {
         nbt.putInt( "term_cursorX", m_cursorX );
@@ -343,9 +447,9 @@ public class Terminal
         nbt.putInt( "term_bgColour", m_cursorBackgroundColour );
         for( int n = 0; n < m_height; n++ )
         {
-            nbt.putString( "term_text_" + n, m_text[n].toString() );
-            nbt.putString( "term_textColour_" + n, m_textColour[n].toString() );
-            nbt.putString( "term_textBgColour_" + n, m_backgroundColour[n].toString() );
+            nbt.putString( "term_text_" + n, getView( m_textLines, n, VIEW_TEXT ).toString() );
+            nbt.putString( "term_textColour_" + n, getView( m_textColourLines, n, VIEW_TEXT_COLOUR ).toString() );
+            nbt.putString( "term_textBgColour_" + n, getView( m_backgroundColourLines, n, VIEW_BACKGROUND_COLOUR ).toString() );
         }
         if( m_palette != null )
         {
@@ -356,34 +460,210 @@ public class Terminal
 
     public synchronized void readFromNBT( CompoundTag nbt )
     {
+        int cursorX = m_cursorX, cursorY = m_cursorY, cursorColour = m_cursorColour, cursorBackground = m_cursorBackgroundColour;
+        boolean cursorBlink = m_cursorBlink;
+
         m_cursorX = nbt.getInt( "term_cursorX" );
         m_cursorY = nbt.getInt( "term_cursorY" );
         m_cursorBlink = nbt.getBoolean( "term_cursorBlink" );
         m_cursorColour = nbt.getInt( "term_textColour" );
         m_cursorBackgroundColour = nbt.getInt( "term_bgColour" );
+        if( cursorX != m_cursorX || cursorY != m_cursorY || cursorBlink != m_cursorBlink
+            || cursorColour != m_cursorColour || cursorBackground != m_cursorBackgroundColour )
+        {
+            m_cursorDirty = true;
+        }
 
+        // Monitors are synced by sending their whole terminal, so only mark the rows which actually changed as dirty.
+        // Otherwise every update would rebuild the entire monitor.
+        byte[] oldText = new byte[m_width], oldColours = new byte[m_width];
         for( int n = 0; n < m_height; n++ )
         {
-            m_text[n].fill( ' ' );
+            int offset = rowOffset( n );
+            System.arraycopy( m_text, offset, oldText, 0, m_width );
+            System.arraycopy( m_colours, offset, oldColours, 0, m_width );
+
+            clearRows( n, n + 1 );
             if( nbt.containsKey( "term_text_" + n ) )
             {
-                m_text[n].write( nbt.getString( "term_text_" + n ) );
+                writeText( offset, nbt.getString( "term_text_" + n ), 0 );
             }
-            m_textColour[n].fill( base16.charAt( m_cursorColour ) );
             if( nbt.containsKey( "term_textColour_" + n ) )
             {
-                m_textColour[n].write( nbt.getString( "term_textColour_" + n ) );
+                writeColour( offset, nbt.getString( "term_textColour_" + n ), 0, VIEW_TEXT_COLOUR, 0 );
             }
-            m_backgroundColour[n].fill( base16.charAt( m_cursorBackgroundColour ) );
             if( nbt.containsKey( "term_textBgColour_" + n ) )
             {
-                m_backgroundColour[n].write( nbt.getString( "term_textBgColour_" + n ) );
+                writeColour( offset, nbt.getString( "term_textBgColour_" + n ), 0, VIEW_BACKGROUND_COLOUR, 15 );
+            }
+
+            if( !rowEquals( oldText, m_text, offset ) || !rowEquals( oldColours, m_colours, offset ) )
+            {
+                m_dirtyRows.set( n );
             }
         }
         if( m_palette != null )
         {
+            int[] oldPalette = new int[16];
+            for( int i = 0; i < oldPalette.length; i++ ) oldPalette[i] = Palette.encodeRGB8( m_palette.getColour( i ) );
+
             m_palette.readFromNBT( nbt );
+            for( int i = 0; i < oldPalette.length; i++ )
+            {
+                if( oldPalette[i] != Palette.encodeRGB8( m_palette.getColour( i ) ) )
+                {
+                    m_paletteDirty = true;
+                    break;
+                }
+            }
         }
         setChanged();
     }
+
+    private static boolean rowEquals( byte[] row, byte[] cells, int offset )
+    {
+        for( int i = 0; i < row.length; i++ )
+        {
+            if( row[i] != cells[offset + i] ) return false;
+        }
+        return true;
+    }
+
+    private void allocate()
+    {
+        m_text = new byte[m_width * m_height];
+        m_colours = new byte[m_width * m_height];
+        m_firstRow = 0;
+        m_textLines = new Line[m_height];
+        m_textColourLines = new Line[m_height];
+        m_backgroundColourLines = new Line[m_height];
+    }
+
+    /**
+     * Get the index of the first cell of a row within {@link #m_text} and {@link #m_colours}.
+     *
+     * @param y The row, relative to the top of the terminal.
+     * @return The index of this row's first cell.
+     */
+    private int rowOffset( int y )
+    {
+        return physicalRow( y ) * m_width;
+    }
+
+    private int physicalRow( int y )
+    {
+        int row = y + m_firstRow;
+        return row >= m_height ? row - m_height : row;
+    }
+
+    private byte getCursorColours()
+    {
+        return (byte) ((m_cursorColour & 0xF) << 4 | (m_cursorBackgroundColour & 0xF));
+    }
+
+    /**
+     * Fill several rows with spaces, using the current cursor colours.
+     *
+     * @param start The first row to clear.
+     * @param end   The row after the last one to clear.
+     */
+    private void clearRows( int start, int end )
+    {
+        byte colours = getCursorColours();
+        for( int y = start; y < end; y++ )
+        {
+            int offset = rowOffset( y );
+            Arrays.fill( m_text, offset, offset + m_width, (byte) ' ' );
+            Arrays.fill( m_colours, offset, offset + m_width, colours );
+        }
+    }
+
+    private void writeText( int offset, String text, int x )
+    {
+        int start = Math.max( x, 0 ), end = Math.min( x + text.length(), m_width );
+        for( int i = start; i < end; i++ )
+        {
+            char c = text.charAt( i - x );
+            m_text[offset + i] = (byte) (c < 256 ? c : '?');
+        }
+    }
+
+    /**
+     * Write a string of colours to a row.
+     *
+     * @param offset The offset of the row, as returned by {@link #rowOffset(int)}.
+     * @param text   The colours to write, as hexadecimal characters.
+     * @param x      The column to start writing at.
+     * @param shift  The position of the colour within each byte (either {@link #VIEW_TEXT_COLOUR} or
+     *               {@link #VIEW_BACKGROUND_COLOUR}).
+     * @param def    The colour to use for invalid characters. This matches how renderers have always treated them.
+     */
+    private void writeColour( int offset, String text, int x, int shift, int def )
+    {
+        int mask = ~(0xF << shift);
+        int start = Math.max( x, 0 ), end = Math.min( x + text.length(), m_width );
+        for( int i = start; i < end; i++ )
+        {
+            int colour = parseColour( text.charAt( i - x ), def );
+            m_colours[offset + i] = (byte) ((m_colours[offset + i] & mask) | colour << shift);
+        }
+    }
+
+    private static int parseColour( char c, int def )
+    {
+        if( c >= '0' && c <= '9' ) return c - '0';
+        if( c >= 'a' && c <= 'f' ) return c - 'a' + 10;
+        return def;
+    }
+
+    private Line getView( Line[] lines, int y, int kind )
+    {
+        int row = physicalRow( y );
+        Line line = lines[row];
+        if( line == null ) lines[row] = line = new Line( kind == VIEW_TEXT ? m_text : m_colours, row * m_width, m_width, kind );
+        return line;
+    }
+
+    /**
+     * A read-only view of one row of a terminal.
+     *
+     * Views refer to a physical row, and so should not be held across calls to {@link #scroll(int)}. They keep a
+     * reference to the terminal's storage, so remain safe (if stale) to read after the terminal is resized.
+     */
+    private static final class Line extends TextBuffer
+    {
+        private final byte[] data;
+        private final int offset;
+        private final int width;
+        private final int kind;
+
+        Line( byte[] data, int offset, int width, int kind )
+        {
+            this.data = data;
+            this.offset = offset;
+            this.width = width;
+            this.kind = kind;
+        }
+
+        @Override
+        public int length()
+        {
+            return width;
+        }
+
+        @Override
+        public char charAt( int i )
+        {
+            if( i < 0 || i >= width ) throw new ArrayIndexOutOfBoundsException( i );
+
+            byte value = data[offset + i];
+            return kind == VIEW_TEXT ? (char) (value & 0xFF) : base16.charAt( (value >> kind) & 0xF );
+        }
+
+        @Override
+        void set( int i, char c )
+        {
+            throw new UnsupportedOperationException( "Terminal lines are read-only" );
+        }
+    }
 }
@@ -6,9 +6,16 @@
 
 package dan200.computercraft.core.terminal;
 
+/**
+ * A fixed-length line of text.
+ *
+ * This is either a standalone buffer (such as a line of a printout), or a view onto one row of a {@link Terminal}.
+ * Views are read-only: terminals should be modified through the {@link Terminal}'s own methods, so that it can track
+ * which rows have changed.
+ */
 public class TextBuffer
 {
-    public char[] m_text;
+    private final char[] m_text;
 
     public TextBuffer( char c, int length )
     {
@@ -55,6 +62,15 @@ public class TextBuffer
         }
     }
 
+    /**
+     * Create a buffer with no storage of its own. Subclasses must override {@link #length()}, {@link #charAt(int)}
+     * and {@link #set(int, char)}.
+     */
+    TextBuffer()
+    {
+        m_text = null;
+    }
+
     public int length()
     {
         return m_text.length;
@@ -62,20 +78,24 @@ public class TextBuffer
 
     public String read()
     {
-        return read( 0, m_text.length );
+        return read( 0, length() );
     }
 
     public String read( int start )
     {
-        return read( start, m_text.length );
+        return read( start, length() );
     }
 
     public String read( int start, int end )
     {
         start = Math.max( start, 0 );
-        end = Math.min( end, m_text.length );
+        end = Math.min( end, length() );
         int textLength = Math.max( end - start, 0 );
-        return new String( m_text, start, textLength );
+        if( m_text != null ) return new String( m_text, start, textLength );
+
+        char[] chars = new char[textLength];
+        for( int i = 0; i < textLength; i++ ) chars[i] = charAt( start + i );
+        return new String( chars );
     }
 
     public void write( String text )
@@ -93,10 +113,10 @@ public class TextBuffer
         int pos = start;
         start = Math.max( start, 0 );
         end = Math.min( end, pos + text.length() );
-        end = Math.min( end, m_text.length );
+        end = Math.min( end, length() );
         for( int i = start; i < end; i++ )
         {
-            m_text[i] = text.charAt( i - pos );
+            set( i, text.charAt( i - pos ) );
         }
     }
 
@@ -115,76 +135,76 @@ public class TextBuffer
         int pos = start;
         start = Math.max( start, 0 );
         end = Math.min( end, pos + text.length() );
-        end = Math.min( end, m_text.length );
+        end = Math.min( end, length() );
         for( int i = start; i < end; i++ )
         {
-            m_text[i] = text.charAt( i - pos );
+            set( i, text.charAt( i - pos ) );
         }
     }
 
     public void fill( char c )
     {
-        fill( c, 0, m_text.length );
+        fill( c, 0, length() );
     }
 
     public void fill( char c, int start )
     {
-        fill( c, start, m_text.length );
+        fill( c, start, length() );
     }
 
     public void fill( char c, int start, int end )
     {
         start = Math.max( start, 0 );
-        end = Math.min( end, m_text.length );
+        end = Math.min( end, length() );
         for( int i = start; i < end; i++ )
         {
-            m_text[i] = c;
+            set( i, c );
         }
     }
 
     public void fill( String text )
     {
-        fill( text, 0, m_text.length );
+        fill( text, 0, length() );
     }
 
     public void fill( String text, int start )
     {
-        fill( text, start, m_text.length );
+        fill( text, start, length() );
     }
 
     public void fill( String text, int start, int end )
     {
         int pos = start;
         start = Math.max( start, 0 );
-        end = Math.min( end, m_text.length );
+        end = Math.min( end, length() );
 
         int textLength = text.length();
         for( int i = start; i < end; i++ )
         {
-            m_text[i] = text.charAt( (i - pos) % textLength );
+            set( i, text.charAt( (i - pos) % textLength ) );
         }
     }
 
     public void fill( TextBuffer text )
     {
-        fill( text, 0, m_text.length );
+        fill( text, 0, length() );
     }
 
     public void fill( TextBuffer text, int start )
     {
-        fill( text, start, m_text.length );
+        fill( text, start, length() );
     }
 
     public void fill( TextBuffer text, int start, int end )
     {
         int pos = start;
         start = Math.max( start, 0 );
-        end = Math.min( end, m_text.length );
+        end = Math.min( end, length() );
 
         int textLength = text.length();
         for( int i = start; i < end; i++ )
         {
-            m_text[i] = text.charAt( (i - pos) % textLength );
+            set( i, text.charAt( (i - pos) % textLength ) );
         }
     }
 
@@ -195,14 +215,25 @@ public class TextBuffer
 
     public void setChar( int i, char c )
     {
-        if( i >= 0 && i < m_text.length )
+        if( i >= 0 && i < length() )
         {
-            m_text[i] = c;
+            set( i, c );
         }
     }
 
+    /**
+     * Set a character in this buffer, without any bounds checking.
+     *
+     * @param i The index of the character to set.
+     * @param c The new character.
+     */
+    void set( int i, char c )
+    {
+        m_text[i] = c;
+    }
+
     public String toString()
     {
-        return new String( m_text );
+        return read();
     }
 }
@@ -0,0 +1,189 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.tracking;
+
+import dan200.computercraft.core.computer.Computer;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The values recorded for a single computer, which have not yet been published to each {@link TrackingContext}.
+ *
+ * Recording a value does not take any locks, so computer threads never wait on each other (or on a command reading
+ * the results). Sums are stored in {@link LongAdder}s, which are never reset: instead, we remember the last value we
+ * published and publish the difference, so updates racing with {@link #drain(Computer)} are never lost.
+ *
+ * Durations are also recorded in three {@link Histogram}s (computer thread tasks, server thread tasks and event queue
+ * wait time), each of which is {@link Histogram#BUCKETS} atomic longs. Including the histograms held by each
+ * {@link TrackingContext}, each tracked computer costs at most {@code 4.5KiB} here, and {@code 4.5KiB} per context.
+ */
+final class ComputerCounters
+{
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final AtomicLong maxTime = new AtomicLong();
+
+    private final LongAdder serverCount = new LongAdder();
+    private final LongAdder serverTime = new LongAdder();
+
+    private final HistogramRecorder taskTimes = new HistogramRecorder();
+    private final HistogramRecorder serverTimes = new HistogramRecorder();
+    private final HistogramRecorder queueTimes = new HistogramRecorder();
+
+    private final Map<TrackingField, LongAdder> fields = new ConcurrentHashMap<>();
+
+    // The values as of the last drain. These are only accessed while publishing, which is single threaded.
+    private long publishedTasks;
+    private long publishedTotalTime;
+    private long publishedServerCount;
+    private long publishedServerTime;
+    private final Object2LongOpenHashMap<TrackingField> publishedFields = new Object2LongOpenHashMap<>();
+
+    void addTaskTiming( long time )
+    {
+        tasks.increment();
+        totalTime.add( time );
+
+        updateMax( maxTime, time );
+        taskTimes.record( time );
+    }
+
+    void addServerTiming( long time )
+    {
+        serverCount.increment();
+        serverTime.add( time );
+        serverTimes.record( time );
+    }
+
+    void addQueueTiming( long time )
+    {
+        queueTimes.record( time );
+    }
+
+    void addValue( TrackingField field, long change )
+    {
+        LongAdder adder = fields.get( field );
+        if( adder == null ) adder = fields.computeIfAbsent( field, x -> new LongAdder() );
+        adder.add( change );
+    }
+
+    /**
+     * Collect every value recorded since the last call to this method.
+     *
+     * @param computer The computer these counters belong to.
+     * @return The changes since the last drain, or {@code null} if nothing has changed.
+     */
+    @Nullable
+    ComputerTracker drain( Computer computer )
+    {
+        long tasks = this.tasks.sum(), totalTime = this.totalTime.sum();
+        long serverCount = this.serverCount.sum(), serverTime = this.serverTime.sum();
+        long maxTime = this.maxTime.getAndSet( 0 );
+
+        ComputerTracker delta = null;
+        if( tasks != publishedTasks || serverCount != publishedServerCount )
+        {
+            delta = new ComputerTracker( computer );
+            delta.addTimings(
+                tasks - publishedTasks, totalTime - publishedTotalTime, maxTime,
+                serverCount - publishedServerCount, serverTime - publishedServerTime
+            );
+
+            publishedTasks = tasks;
+            publishedTotalTime = totalTime;
+            publishedServerCount = serverCount;
+            publishedServerTime = serverTime;
+        }
+
+        Histogram taskTimes = this.taskTimes.drain();
+        Histogram serverTimes = this.serverTimes.drain();
+        Histogram queueTimes = this.queueTimes.drain();
+        if( taskTimes != null || serverTimes != null || queueTimes != null )
+        {
+            if( delta == null ) delta = new ComputerTracker( computer );
+            delta.addHistograms( taskTimes, serverTimes, queueTimes );
+        }
+
+        for( Map.Entry<TrackingField, LongAdder> entry : fields.entrySet() )
+        {
+            TrackingField field = entry.getKey();
+            long value = entry.getValue().sum();
+            long change = value - publishedFields.getLong( field );
+            if( change == 0 ) continue;
+
+            if( delta == null ) delta = new ComputerTracker( computer );
+            delta.addValue( field, change );
+            publishedFields.put( field, value );
+        }
+
+        return delta;
+    }
+
+    private static void updateMax( AtomicLong max, long value )
+    {
+        long current = max.get();
+        while( value > current && !max.compareAndSet( current, value ) ) current = max.get();
+    }
+
+    /**
+     * A histogram which may be recorded to from multiple threads at once.
+     */
+    private static final class HistogramRecorder
+    {
+        private final AtomicLongArray counts = new AtomicLongArray( Histogram.BUCKETS );
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record( long value )
+        {
+            updateMax( max, value );
+            sum.addAndGet( value );
+            counts.incrementAndGet( Histogram.bucket( value ) );
+        }
+
+        /**
+         * Take every value recorded since the last call.
+         *
+         * @return The recorded values, or {@code null} if none have been recorded.
+         */
+        @Nullable
+        Histogram drain()
+        {
+            Histogram histogram = null;
+            for( int i = 0; i < Histogram.BUCKETS; i++ )
+            {
+                if( counts.get( i ) == 0 ) continue;
+
+                long count = counts.getAndSet( i, 0 );
+                if( histogram == null ) histogram = new Histogram();
+                histogram.addBucket( i, count );
+            }
+
+            // The maximum and sum are updated before the count, so may be drained separately from it.
+            long sum = this.sum.getAndSet( 0 );
+            if( sum != 0 )
+            {
+                if( histogram == null ) histogram = new Histogram();
+                histogram.addSum( sum );
+            }
+
+            long max = this.max.getAndSet( 0 );
+            if( max != 0 )
+            {
+                if( histogram == null ) histogram = new Histogram();
+                histogram.updateMax( max );
+            }
+            return histogram;
+        }
+    }
+}
@@ -7,6 +7,7 @@
 package dan200.computercraft.core.tracking;
 
 import dan200.computercraft.core.computer.Computer;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
 import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 
 import javax.annotation.Nullable;
@@ -24,12 +25,19 @@ public class ComputerTracker
     private long serverCount;
     private long serverTime;
 
+    private final Histogram taskTimes;
+    private final Histogram serverTimes;
+    private final Histogram queueTimes;
+
     private final Object2LongOpenHashMap<TrackingField> fields;
 
     public ComputerTracker( Computer computer )
     {
         this.computer = new WeakReference<>( computer );
         computerId = computer.getID();
+        taskTimes = new Histogram();
+        serverTimes = new Histogram();
+        queueTimes = new Histogram();
         fields = new Object2LongOpenHashMap<>();
     }
 
@@ -45,6 +53,10 @@ public class ComputerTracker
         serverCount = timings.serverCount;
         serverTime = timings.serverTime;
 
+        taskTimes = new Histogram( timings.taskTimes );
+        serverTimes = new Histogram( timings.serverTimes );
+        queueTimes = new Histogram( timings.queueTimes );
+
         fields = new Object2LongOpenHashMap<>( timings.fields );
     }
 
@@ -79,17 +91,54 @@ public class ComputerTracker
         return totalTime / tasks;
     }
 
+    /**
+     * Get the distribution of how long tasks on the computer thread took.
+     *
+     * @return The task duration histogram.
+     */
+    public Histogram getTaskTimes()
+    {
+        return taskTimes;
+    }
+
+    /**
+     * Get the distribution of how long tasks on the server thread took.
+     *
+     * @return The server task duration histogram.
+     */
+    public Histogram getServerTimes()
+    {
+        return serverTimes;
+    }
+
+    /**
+     * Get the distribution of how long events waited in the computer's queue before being handled.
+     *
+     * @return The queue wait time histogram.
+     */
+    public Histogram getQueueTimes()
+    {
+        return queueTimes;
+    }
+
     void addTaskTiming( long time )
     {
         tasks++;
         totalTime += time;
         if( time > maxTime ) maxTime = time;
+        taskTimes.record( time );
     }
 
     void addMainTiming( long time )
     {
         serverCount++;
         serverTime += time;
+        serverTimes.record( time );
+    }
+
+    void addQueueTiming( long time )
+    {
+        queueTimes.record( time );
     }
 
     void addValue( TrackingField field, long change )
@@ -100,6 +149,48 @@ public class ComputerTracker
         }
     }
 
+    void addTimings( long tasks, long totalTime, long maxTime, long serverCount, long serverTime )
+    {
+        this.tasks += tasks;
+        this.totalTime += totalTime;
+        if( maxTime > this.maxTime ) this.maxTime = maxTime;
+
+        this.serverCount += serverCount;
+        this.serverTime += serverTime;
+    }
+
+    /**
+     * Merge another set of latency histograms into this one's.
+     *
+     * @param taskTimes   The computer task times to add, or {@code null} to leave them unchanged.
+     * @param serverTimes The server task times to add, or {@code null} to leave them unchanged.
+     * @param queueTimes  The queue times to add, or {@code null} to leave them unchanged.
+     */
+    void addHistograms( @Nullable Histogram taskTimes, @Nullable Histogram serverTimes, @Nullable Histogram queueTimes )
+    {
+        if( taskTimes != null ) this.taskTimes.add( taskTimes );
+        if( serverTimes != null ) this.serverTimes.add( serverTimes );
+        if( queueTimes != null ) this.queueTimes.add( queueTimes );
+    }
+
+    /**
+     * Merge another set of timings into this one.
+     *
+     * @param other The timings to add.
+     */
+    void add( ComputerTracker other )
+    {
+        addTimings( other.tasks, other.totalTime, other.maxTime, other.serverCount, other.serverTime );
+        addHistograms( other.taskTimes, other.serverTimes, other.queueTimes );
+        synchronized( fields )
+        {
+            for( Object2LongMap.Entry<TrackingField> entry : other.fields.object2LongEntrySet() )
+            {
+                fields.addTo( entry.getKey(), entry.getLongValue() );
+            }
+        }
+    }
+
     public long get( TrackingField field )
     {
         if( field == TrackingField.TASKS ) return tasks;
@@ -110,6 +201,20 @@ public class ComputerTracker
         if( field == TrackingField.SERVER_COUNT ) return serverCount;
         if( field == TrackingField.SERVER_TIME ) return serverTime;
 
+        if( field == TrackingField.TASK_P50 ) return taskTimes.getPercentile( 50 );
+        if( field == TrackingField.TASK_P95 ) return taskTimes.getPercentile( 95 );
+        if( field == TrackingField.TASK_P99 ) return taskTimes.getPercentile( 99 );
+
+        if( field == TrackingField.SERVER_P50 ) return serverTimes.getPercentile( 50 );
+        if( field == TrackingField.SERVER_P95 ) return serverTimes.getPercentile( 95 );
+        if( field == TrackingField.SERVER_P99 ) return serverTimes.getPercentile( 99 );
+        if( field == TrackingField.SERVER_MAX ) return serverTimes.getMax();
+
+        if( field == TrackingField.QUEUE_P50 ) return queueTimes.getPercentile( 50 );
+        if( field == TrackingField.QUEUE_P95 ) return queueTimes.getPercentile( 95 );
+        if( field == TrackingField.QUEUE_P99 ) return queueTimes.getPercentile( 99 );
+        if( field == TrackingField.QUEUE_MAX ) return queueTimes.getMax();
+
         synchronized( fields )
         {
             return fields.getLong( field );
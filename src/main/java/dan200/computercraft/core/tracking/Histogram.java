@@ -0,0 +1,203 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.tracking;
+
+/**
+ * A fixed-size histogram of durations, in the style of HdrHistogram.
+ *
+ * Durations are bucketed on a log-linear scale: each power of two is split into {@link #SUB_BUCKETS} equal buckets, so
+ * any recorded value is within 12.5% of its bucket's upper bound. Durations below {@link #RESOLUTION} nanoseconds all
+ * share buckets, and anything above {@link #MAX_VALUE} goes in the last bucket. The exact maximum is tracked
+ * separately, and so is always accurate.
+ *
+ * This uses {@link #BUCKETS} longs ({@code 1.5KiB}), which are only allocated once a value is recorded.
+ */
+public final class Histogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of bits to discard from every value. This gives us a resolution of about one microsecond.
+     */
+    private static final int RESOLUTION_BITS = 10;
+
+    /**
+     * The size of the smallest bucket, in nanoseconds.
+     */
+    static final long RESOLUTION = 1L << RESOLUTION_BITS;
+
+    /**
+     * The number of powers of two above {@link #RESOLUTION} which we track. This gives us a maximum of about a
+     * minute, well above the time a computer may run for without being terminated.
+     */
+    private static final int MAGNITUDES = 26;
+
+    /**
+     * The largest value which is bucketed accurately.
+     */
+    static final long MAX_VALUE = (1L << (RESOLUTION_BITS + MAGNITUDES)) - 1;
+
+    static final int BUCKETS = (MAGNITUDES - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private long[] counts;
+    private long count;
+    private long sum;
+    private long max;
+
+    public Histogram()
+    {
+    }
+
+    Histogram( Histogram other )
+    {
+        if( other.counts != null ) counts = other.counts.clone();
+        count = other.count;
+        sum = other.sum;
+        max = other.max;
+    }
+
+    /**
+     * Get the total number of values which have been recorded.
+     *
+     * @return The number of recorded values.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Get the total of every value which has been recorded.
+     *
+     * @return The sum of all recorded values, in nanoseconds.
+     */
+    public long getSum()
+    {
+        return sum;
+    }
+
+    /**
+     * Get the largest value which has been recorded.
+     *
+     * @return The largest value, in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * Get an approximation of a percentile. This is the upper bound of the bucket the percentile falls in, and so is
+     * never lower than the actual value, and at most 12.5% higher.
+     *
+     * @param percentile The percentile to find, between 0 and 100.
+     * @return The percentile, in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentile( double percentile )
+    {
+        if( count == 0 ) return 0;
+
+        long target = Math.max( 1, (long) Math.ceil( count * Math.min( Math.max( percentile, 0 ), 100 ) / 100 ) );
+        long seen = 0;
+        for( int i = 0; i < BUCKETS; i++ )
+        {
+            seen += counts[i];
+            if( seen >= target ) return Math.min( upperBound( i ), max );
+        }
+
+        return max;
+    }
+
+    void record( long value )
+    {
+        record( value, 1 );
+    }
+
+    void record( long value, long times )
+    {
+        if( counts == null ) counts = new long[BUCKETS];
+        counts[bucket( value )] += times;
+        count += times;
+        sum += value * times;
+        if( value > max ) max = value;
+    }
+
+    void addBucket( int bucket, long times )
+    {
+        if( counts == null ) counts = new long[BUCKETS];
+        counts[bucket] += times;
+        count += times;
+    }
+
+    void addSum( long value )
+    {
+        sum += value;
+    }
+
+    void updateMax( long value )
+    {
+        if( value > max ) max = value;
+    }
+
+    void add( Histogram other )
+    {
+        if( other.max > max ) max = other.max;
+        sum += other.sum;
+        if( other.count == 0 ) return;
+
+        if( counts == null ) counts = new long[BUCKETS];
+        for( int i = 0; i < BUCKETS; i++ ) counts[i] += other.counts[i];
+        count += other.count;
+    }
+
+    /**
+     * Find the bucket a value falls in.
+     *
+     * @param value The value, in nanoseconds.
+     * @return The bucket's index, between 0 and {@link #BUCKETS}.
+     */
+    static int bucket( long value )
+    {
+        long scaled = Math.max( value, 0 ) >>> RESOLUTION_BITS;
+        if( scaled < SUB_BUCKETS ) return (int) scaled;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros( scaled );
+        if( magnitude >= MAGNITUDES ) return BUCKETS - 1;
+
+        int subBucket = (int) (scaled >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Get the largest value which falls in a bucket.
+     *
+     * @param bucket The bucket's index.
+     * @return The bucket's upper bound, in nanoseconds.
+     */
+    static long upperBound( int bucket )
+    {
+        if( bucket >= BUCKETS - 1 ) return Long.MAX_VALUE;
+        return lowerBound( bucket + 1 ) - 1;
+    }
+
+    private static long lowerBound( int bucket )
+    {
+        if( bucket < SUB_BUCKETS ) return (long) bucket << RESOLUTION_BITS;
+
+        int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS)) << RESOLUTION_BITS;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "Histogram{count=%d, p50=%.1fms, p95=%.1fms, p99=%.1fms, max=%.1fms}", count,
+            getPercentile( 50 ) / 1e6, getPercentile( 95 ) / 1e6, getPercentile( 99 ) / 1e6, max / 1e6 );
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.tracking;
+
+import dan200.computercraft.ComputerCraft;
+import dan200.computercraft.core.computer.ComputerThread;
+import dan200.computercraft.core.computer.MainThread;
+import dan200.computercraft.core.lua.CoroutineExecutor;
+import dan200.computercraft.shared.util.ThreadUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Periodically writes metrics about computers, the computer threads and the main thread to a file, using Prometheus's
+ * text format.
+ *
+ * Per-computer values are gathered by our own {@link TrackingContext}, and so count from when the exporter was
+ * enabled. The context is drained on every export, and its trackers merged into running totals for each computer ID,
+ * so memory use does not grow as computers are unloaded and loaded again. Scheduler values are read from {@link ComputerThread}, {@link MainThread} and {@link CoroutineExecutor}.
+ *
+ * Values are collected on the server thread, as {@link MainThread}'s state is not thread safe. The file is then
+ * written on a background thread, to a temporary file which is moved into place, so readers never see a partial file.
+ */
+public final class MetricsExporter
+{
+    /**
+     * The ID of the {@link TrackingContext} used to collect per-computer values. This is distinct from any player's
+     * UUID, and from the context used by the server console.
+     */
+    private static final UUID CONTEXT_ID = new UUID( 0, 1 );
+
+    /**
+     * Fields which are exported explicitly (or derived from other fields), rather than as a generic counter.
+     */
+    private static final TrackingField[] TIMING_FIELDS = new TrackingField[] {
+        TrackingField.TASKS, TrackingField.TOTAL_TIME, TrackingField.AVERAGE_TIME, TrackingField.MAX_TIME,
+        TrackingField.SERVER_COUNT, TrackingField.SERVER_TIME,
+        TrackingField.TASK_P50, TrackingField.TASK_P95, TrackingField.TASK_P99,
+        TrackingField.SERVER_P50, TrackingField.SERVER_P95, TrackingField.SERVER_P99, TrackingField.SERVER_MAX,
+        TrackingField.QUEUE_P50, TrackingField.QUEUE_P95, TrackingField.QUEUE_P99, TrackingField.QUEUE_MAX,
+    };
+
+    private static final double[] QUANTILES = new double[] { 0.5, 0.95, 0.99 };
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor( ThreadUtils.factory( "Metrics" ) );
+    private static final AtomicBoolean writing = new AtomicBoolean();
+
+    private static TrackingContext context;
+    private static int ticks;
+
+    /**
+     * The totals for each computer ID. This is only modified on the server thread while no write is in progress, and
+     * replaced (rather than cleared) when reset, so the writer thread may read it without locking.
+     */
+    private static SortedMap<Integer, ComputerTracker> totals = new TreeMap<>();
+
+    private MetricsExporter() {}
+
+    /**
+     * Write metrics if enough time has passed. This should be called once per tick, from the server thread.
+     */
+    public static void tick()
+    {
+        if( !ComputerCraft.metricsEnabled )
+        {
+            if( context != null )
+            {
+                context.stop();
+                context = null;
+                totals = new TreeMap<>();
+            }
+            return;
+        }
+
+        if( context == null )
+        {
+            context = Tracking.getContext( CONTEXT_ID );
+            context.start();
+            ticks = 0;
+        }
+
+        if( ++ticks < ComputerCraft.metricsInterval * 20 ) return;
+        ticks = 0;
+
+        // Skip this write if the previous one is still going, rather than queuing up work behind a slow disk.
+        if( !writing.compareAndSet( false, true ) ) return;
+
+        mergeComputers( totals, context.drainTimings() );
+        Snapshot snapshot = new Snapshot( totals );
+        Path path = Paths.get( ComputerCraft.metricsFile );
+        writer.execute( () -> {
+            try
+            {
+                write( path, snapshot.format() );
+            }
+            finally
+            {
+                writing.set( false );
+            }
+        } );
+    }
+
+    /**
+     * Forget the current tracking context. This should be called whenever {@link Tracking#reset()} is.
+     */
+    public static void reset()
+    {
+        context = null;
+        ticks = 0;
+        totals = new TreeMap<>();
+    }
+
+    private static void write( Path path, String contents )
+    {
+        Path temp = path.resolveSibling( path.getFileName() + ".tmp" );
+        try
+        {
+            Files.write( temp, contents.getBytes( StandardCharsets.UTF_8 ) );
+            Files.move( temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( IOException e )
+        {
+            ComputerCraft.log.warn( "Failed to write metrics to " + path, e );
+        }
+    }
+
+    /**
+     * Add trackers to the totals for each computer ID. Trackers for the same computer ID (such as a computer which was
+     * unloaded and then loaded again) are merged, as each series must only appear once.
+     *
+     * @param computers The totals for each computer ID.
+     * @param timings   The trackers to add.
+     */
+    static void mergeComputers( Map<Integer, ComputerTracker> computers, Collection<ComputerTracker> timings )
+    {
+        for( ComputerTracker timing : timings )
+        {
+            ComputerTracker existing = computers.get( timing.getComputerId() );
+            if( existing == null )
+            {
+                computers.put( timing.getComputerId(), new ComputerTracker( timing ) );
+            }
+            else
+            {
+                existing.add( timing );
+            }
+        }
+    }
+
+    /**
+     * Write per-computer metrics.
+     *
+     * @param out       The buffer to write to.
+     * @param computers The totals for each computer ID, as built by {@link #mergeComputers(Map, Collection)}.
+     */
+    static void writeComputers( StringBuilder out, SortedMap<Integer, ComputerTracker> computers )
+    {
+
+        writeComputerField( out, computers, "computercraft_computer_tasks_total", "counter",
+            "Number of tasks executed by each computer.", TrackingField.TASKS, 1 );
+        writeComputerField( out, computers, "computercraft_computer_task_seconds_total", "counter",
+            "Time spent executing tasks on the computer thread.", TrackingField.TOTAL_TIME, 1e-9 );
+        writeComputerField( out, computers, "computercraft_computer_task_max_seconds", "gauge",
+            "Longest time spent executing a single task.", TrackingField.MAX_TIME, 1e-9 );
+        writeComputerField( out, computers, "computercraft_computer_server_tasks_total", "counter",
+            "Number of tasks executed on the server thread.", TrackingField.SERVER_COUNT, 1 );
+        writeComputerField( out, computers, "computercraft_computer_server_seconds_total", "counter",
+            "Time spent executing tasks on the server thread.", TrackingField.SERVER_TIME, 1e-9 );
+
+        writeComputerHistogram( out, computers, "computercraft_computer_task_latency_seconds",
+            "Distribution of task durations on the computer thread.", ComputerTracker::getTaskTimes );
+        writeComputerHistogram( out, computers, "computercraft_computer_server_latency_seconds",
+            "Distribution of task durations on the server thread.", ComputerTracker::getServerTimes );
+        writeComputerHistogram( out, computers, "computercraft_computer_queue_latency_seconds",
+            "Distribution of how long events waited before being handled.", ComputerTracker::getQueueTimes );
+
+        List<String> ids = new ArrayList<>( TrackingField.fields().keySet() );
+        for( TrackingField field : TIMING_FIELDS ) ids.remove( field.id() );
+        Collections.sort( ids );
+        for( String id : ids )
+        {
+            writeComputerField( out, computers, "computercraft_computer_" + sanitise( id ) + "_total", "counter",
+                "Total of the \"" + id + "\" tracking field.", TrackingField.fields().get( id ), 1 );
+        }
+    }
+
+    private static void writeComputerField( StringBuilder out, Map<Integer, ComputerTracker> computers, String name, String type, String help, TrackingField field, double scale )
+    {
+        writeHeader( out, name, type, help );
+        for( ComputerTracker timing : computers.values() )
+        {
+            out.append( name ).append( "{computer=\"" ).append( timing.getComputerId() ).append( "\"} " );
+            writeValue( out, timing.get( field ), scale );
+        }
+    }
+
+    /**
+     * Write a histogram as a summary, with its percentiles, sum and count. Quantile 1 is the exact maximum.
+     */
+    private static void writeComputerHistogram( StringBuilder out, Map<Integer, ComputerTracker> computers, String name, String help, Function<ComputerTracker, Histogram> getter )
+    {
+        writeHeader( out, name, "summary", help );
+        for( ComputerTracker timing : computers.values() )
+        {
+            Histogram histogram = getter.apply( timing );
+            if( histogram.getCount() == 0 ) continue;
+
+            String computer = "{computer=\"" + timing.getComputerId() + "\"";
+            for( double quantile : QUANTILES )
+            {
+                out.append( name ).append( computer ).append( ",quantile=\"" ).append( quantile ).append( "\"} " );
+                writeValue( out, histogram.getPercentile( quantile * 100 ), 1e-9 );
+            }
+
+            out.append( name ).append( computer ).append( ",quantile=\"1\"} " );
+            writeValue( out, histogram.getMax(), 1e-9 );
+
+            out.append( name ).append( "_sum" ).append( computer ).append( "} " );
+            writeValue( out, histogram.getSum(), 1e-9 );
+            out.append( name ).append( "_count" ).append( computer ).append( "} " );
+            writeValue( out, histogram.getCount(), 1 );
+        }
+    }
+
+    private static void writeHeader( StringBuilder out, String name, String type, String help )
+    {
+        out.append( "# HELP " ).append( name ).append( ' ' ).append( help ).append( '\n' );
+        out.append( "# TYPE " ).append( name ).append( ' ' ).append( type ).append( '\n' );
+    }
+
+    private static void writeMetric( StringBuilder out, String name, String type, String help, long value, double scale )
+    {
+        writeHeader( out, name, type, help );
+        out.append( name ).append( ' ' );
+        writeValue( out, value, scale );
+    }
+
+    private static void writeValue( StringBuilder out, long value, double scale )
+    {
+        if( scale == 1 )
+        {
+            out.append( value );
+        }
+        else
+        {
+            out.append( value * scale );
+        }
+        out.append( '\n' );
+    }
+
+    private static String sanitise( String id )
+    {
+        StringBuilder out = new StringBuilder( id.length() );
+        for( int i = 0; i < id.length(); i++ )
+        {
+            char c = id.charAt( i );
+            out.append( (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ? c : '_' );
+        }
+        return out.toString();
+    }
+
+    /**
+     * The values we export, captured on the server thread.
+     */
+    private static final class Snapshot
+    {
+        final SortedMap<Integer, ComputerTracker> computers;
+
+        final int computerQueued = ComputerThread.getQueuedCount();
+        final int computerIdle = ComputerThread.getIdleCount();
+        final long minimumVirtualRuntime = ComputerThread.getMinimumVirtualRuntime();
+        final long[] busyTimes = ComputerThread.getBusyTimes();
+
+        final long mainBudget = MainThread.getBudget();
+        final int mainCooling = MainThread.getCoolingCount();
+        final int mainQueued = MainThread.getQueuedCount();
+
+        final int coroutines = CoroutineExecutor.get().getActiveCount();
+
+        Snapshot( SortedMap<Integer, ComputerTracker> computers )
+        {
+            this.computers = computers;
+        }
+
+        String format()
+        {
+            StringBuilder out = new StringBuilder();
+
+            writeMetric( out, "computercraft_computer_thread_queued", "gauge",
+                "Number of computers waiting to run on the computer thread.", computerQueued, 1 );
+            writeMetric( out, "computercraft_computer_thread_idle_runners", "gauge",
+                "Number of computer thread runners waiting for work.", computerIdle, 1 );
+            writeMetric( out, "computercraft_computer_thread_min_vruntime_seconds", "gauge",
+                "Minimum virtual runtime of all queued and running computers.", minimumVirtualRuntime, 1e-9 );
+
+            String busy = "computercraft_computer_thread_busy_seconds_total";
+            writeHeader( out, busy, "counter", "Time each computer thread runner has spent executing computers." );
+            for( int i = 0; i < busyTimes.length; i++ )
+            {
+                out.append( busy ).append( "{runner=\"" ).append( i ).append( "\"} " );
+                writeValue( out, busyTimes[i], 1e-9 );
+            }
+
+            writeMetric( out, "computercraft_main_thread_budget_seconds", "gauge",
+                "Remaining time budget for server thread tasks this tick. This is negative when over budget.", mainBudget, 1e-9 );
+            writeMetric( out, "computercraft_main_thread_cooling", "gauge",
+                "Number of computers which went over their server thread budget, and are cooling down.", mainCooling, 1 );
+            writeMetric( out, "computercraft_main_thread_queued", "gauge",
+                "Number of computers waiting to run tasks on the server thread.", mainQueued, 1 );
+
+            writeMetric( out, "computercraft_coroutines_active", "gauge",
+                "Number of live Lua coroutines across all computers.", coroutines, 1 );
+
+            writeComputers( out, computers );
+            return out.toString();
+        }
+    }
+}
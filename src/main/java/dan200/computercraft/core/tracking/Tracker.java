@@ -34,6 +34,16 @@ public interface Tracker
     {
     }
 
+    /**
+     * Report how long an event waited in a computer's queue before it was handled.
+     *
+     * @param computer The computer which received this event.
+     * @param time     The time between the event being queued and the computer resuming with it.
+     */
+    default void addQueueTiming( Computer computer, long time )
+    {
+    }
+
     /**
      * Increment an arbitrary field by some value. Implementations may track how often this is called
      * as well as the change, to compute some level of "average".
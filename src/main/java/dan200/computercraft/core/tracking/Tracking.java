@@ -6,21 +6,42 @@
 
 package dan200.computercraft.core.tracking;
 
+import com.google.common.collect.MapMaker;
 import dan200.computercraft.core.computer.Computer;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Records timings and other values for each computer.
+ *
+ * Values are not written to each {@link TrackingContext} directly, as this would require computer threads to contend
+ * on a lock. Instead, they are accumulated in per-computer {@link ComputerCounters}, and periodically published to
+ * every context (see {@link #tick()}). Contexts also publish any outstanding values before they are read, so results
+ * are never stale.
+ */
 public final class Tracking
 {
+    /**
+     * How often (in ticks) to publish recorded values to each context.
+     */
+    private static final int PUBLISH_INTERVAL = 20;
+
     static final AtomicInteger tracking = new AtomicInteger( 0 );
 
     private static final Object lock = new Object();
     private static final HashMap<UUID, TrackingContext> contexts = new HashMap<>();
-    private static final List<Tracker> trackers = new ArrayList<>();
+    private static final List<Tracker> trackers = new CopyOnWriteArrayList<>();
+
+    private static final ConcurrentMap<Computer, ComputerCounters> counters = new MapMaker().weakKeys().makeMap();
+    private static final Object publishLock = new Object();
+    private static int ticks;
 
     private Tracking() {}
 
@@ -34,6 +55,12 @@ public final class Tracking
         }
     }
 
+    /**
+     * Register a tracker, which will receive every value as it is recorded. Trackers are called from multiple threads
+     * at once, without any locks held, and so must be thread safe.
+     *
+     * @param tracker The tracker to add.
+     */
     public static void add( Tracker tracker )
     {
         synchronized( lock )
@@ -47,32 +74,68 @@ public final class Tracking
     {
         if( tracking.get() == 0 ) return;
 
-        synchronized( contexts )
-        {
-            for( TrackingContext context : contexts.values() ) context.addTaskTiming( computer, time );
-            for( Tracker tracker : trackers ) tracker.addTaskTiming( computer, time );
-        }
+        getCounters( computer ).addTaskTiming( time );
+        for( Tracker tracker : trackers ) tracker.addTaskTiming( computer, time );
     }
 
     public static void addServerTiming( Computer computer, long time )
     {
         if( tracking.get() == 0 ) return;
 
-        synchronized( contexts )
-        {
-            for( TrackingContext context : contexts.values() ) context.addServerTiming( computer, time );
-            for( Tracker tracker : trackers ) tracker.addServerTiming( computer, time );
-        }
+        getCounters( computer ).addServerTiming( time );
+        for( Tracker tracker : trackers ) tracker.addServerTiming( computer, time );
+    }
+
+    public static void addQueueTiming( Computer computer, long time )
+    {
+        if( tracking.get() == 0 ) return;
+
+        getCounters( computer ).addQueueTiming( time );
+        for( Tracker tracker : trackers ) tracker.addQueueTiming( computer, time );
     }
 
     public static void addValue( Computer computer, TrackingField field, long change )
     {
         if( tracking.get() == 0 ) return;
 
-        synchronized( lock )
+        getCounters( computer ).addValue( field, change );
+        for( Tracker tracker : trackers ) tracker.addValue( computer, field, change );
+    }
+
+    /**
+     * Publish recorded values to each context. This should be called once per tick.
+     */
+    public static void tick()
+    {
+        if( ++ticks < PUBLISH_INTERVAL ) return;
+        ticks = 0;
+
+        if( tracking.get() != 0 ) publish();
+    }
+
+    /**
+     * Publish every value recorded since the last call to each context which is currently tracking.
+     *
+     * This must not be called while holding a {@link TrackingContext}'s lock.
+     */
+    static void publish()
+    {
+        synchronized( publishLock )
         {
-            for( TrackingContext context : contexts.values() ) context.addValue( computer, field, change );
-            for( Tracker tracker : trackers ) tracker.addValue( computer, field, change );
+            List<TrackingContext> contexts;
+            synchronized( lock )
+            {
+                contexts = new ArrayList<>( Tracking.contexts.values() );
+            }
+
+            for( Map.Entry<Computer, ComputerCounters> entry : counters.entrySet() )
+            {
+                Computer computer = entry.getKey();
+                ComputerTracker delta = entry.getValue().drain( computer );
+                if( delta == null ) continue;
+
+                for( TrackingContext context : contexts ) context.addTimings( computer, delta );
+            }
         }
     }
 
@@ -82,7 +145,18 @@ public final class Tracking
         {
             contexts.clear();
             trackers.clear();
+            counters.clear();
             tracking.set( 0 );
         }
     }
+
+    private static ComputerCounters getCounters( Computer computer )
+    {
+        ComputerCounters computerCounters = counters.get( computer );
+        if( computerCounters != null ) return computerCounters;
+
+        ComputerCounters newCounters = new ComputerCounters();
+        computerCounters = counters.putIfAbsent( computer, newCounters );
+        return computerCounters == null ? newCounters : computerCounters;
+    }
 }
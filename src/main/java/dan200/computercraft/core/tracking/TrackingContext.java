@@ -27,35 +27,71 @@ public class TrackingContext implements Tracker
     private final List<ComputerTracker> timings = new ArrayList<>();
     private final Map<Computer, ComputerTracker> timingLookup = new MapMaker().weakKeys().makeMap();
 
-    public synchronized void start()
+    public void start()
     {
-        if( !tracking ) Tracking.tracking.incrementAndGet();
-        tracking = true;
+        // Publish any values recorded before we started, so they are not included in our results.
+        Tracking.publish();
+        synchronized( this )
+        {
+            if( !tracking ) Tracking.tracking.incrementAndGet();
+            tracking = true;
 
-        timings.clear();
-        timingLookup.clear();
+            timings.clear();
+            timingLookup.clear();
+        }
     }
 
-    public synchronized boolean stop()
+    public boolean stop()
     {
-        if( !tracking ) return false;
+        Tracking.publish();
+        synchronized( this )
+        {
+            if( !tracking ) return false;
 
-        Tracking.tracking.decrementAndGet();
-        tracking = false;
-        timingLookup.clear();
-        return true;
+            Tracking.tracking.decrementAndGet();
+            tracking = false;
+            timingLookup.clear();
+            return true;
+        }
+    }
+
+    public List<ComputerTracker> getImmutableTimings()
+    {
+        Tracking.publish();
+        synchronized( this )
+        {
+            ArrayList<ComputerTracker> timings = new ArrayList<>( this.timings.size() );
+            for( ComputerTracker timing : this.timings ) timings.add( new ComputerTracker( timing ) );
+            return timings;
+        }
     }
 
-    public synchronized List<ComputerTracker> getImmutableTimings()
+    /**
+     * Take every tracker recorded since this context was started or last drained, and start afresh. Unlike
+     * {@link #getImmutableTimings()}, the trackers are not copied, and trackers for unloaded computers are forgotten,
+     * so a long-running context does not grow without limit.
+     *
+     * @return The trackers recorded since the last drain.
+     */
+    public List<ComputerTracker> drainTimings()
     {
-        ArrayList<ComputerTracker> timings = new ArrayList<>( this.timings.size() );
-        for( ComputerTracker timing : this.timings ) timings.add( new ComputerTracker( timing ) );
-        return timings;
+        Tracking.publish();
+        synchronized( this )
+        {
+            List<ComputerTracker> timings = new ArrayList<>( this.timings );
+            this.timings.clear();
+            timingLookup.clear();
+            return timings;
+        }
     }
 
-    public synchronized List<ComputerTracker> getTimings()
+    public List<ComputerTracker> getTimings()
     {
-        return new ArrayList<>( timings );
+        Tracking.publish();
+        synchronized( this )
+        {
+            return new ArrayList<>( timings );
+        }
     }
 
     @Override
@@ -65,15 +101,7 @@ public class TrackingContext implements Tracker
 
         synchronized( this )
         {
-            ComputerTracker computerTimings = timingLookup.get( computer );
-            if( computerTimings == null )
-            {
-                computerTimings = new ComputerTracker( computer );
-                timingLookup.put( computer, computerTimings );
-                timings.add( computerTimings );
-            }
-
-            computerTimings.addTaskTiming( time );
+            getTracker( computer ).addTaskTiming( time );
         }
     }
 
@@ -84,15 +112,18 @@ public class TrackingContext implements Tracker
 
         synchronized( this )
         {
-            ComputerTracker computerTimings = timingLookup.get( computer );
-            if( computerTimings == null )
-            {
-                computerTimings = new ComputerTracker( computer );
-                timingLookup.put( computer, computerTimings );
-                timings.add( computerTimings );
-            }
-
-            computerTimings.addMainTiming( time );
+            getTracker( computer ).addMainTiming( time );
+        }
+    }
+
+    @Override
+    public void addQueueTiming( Computer computer, long time )
+    {
+        if( !tracking ) return;
+
+        synchronized( this )
+        {
+            getTracker( computer ).addQueueTiming( time );
         }
     }
 
@@ -103,15 +134,35 @@ public class TrackingContext implements Tracker
 
         synchronized( this )
         {
-            ComputerTracker computerTimings = timingLookup.get( computer );
-            if( computerTimings == null )
-            {
-                computerTimings = new ComputerTracker( computer );
-                timingLookup.put( computer, computerTimings );
-                timings.add( computerTimings );
-            }
-
-            computerTimings.addValue( field, change );
+            getTracker( computer ).addValue( field, change );
+        }
+    }
+
+    /**
+     * Add a batch of values published by {@link Tracking#publish()}.
+     *
+     * @param computer The computer these values were recorded for.
+     * @param delta    The values to add. This is shared between contexts, and so is copied rather than stored.
+     */
+    void addTimings( Computer computer, ComputerTracker delta )
+    {
+        if( !tracking ) return;
+
+        synchronized( this )
+        {
+            getTracker( computer ).add( delta );
+        }
+    }
+
+    private ComputerTracker getTracker( Computer computer )
+    {
+        ComputerTracker computerTimings = timingLookup.get( computer );
+        if( computerTimings == null )
+        {
+            computerTimings = new ComputerTracker( computer );
+            timingLookup.put( computer, computerTimings );
+            timings.add( computerTimings );
         }
+        return computerTimings;
     }
 }
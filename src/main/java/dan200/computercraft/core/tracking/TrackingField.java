@@ -23,6 +23,20 @@ public final class TrackingField
     public static final TrackingField SERVER_COUNT = TrackingField.of( "server_count", x -> String.format( "%4d", x ) );
     public static final TrackingField SERVER_TIME = TrackingField.of( "server_time", x -> String.format( "%7.1fms", x / 1e6 ) );
 
+    public static final TrackingField TASK_P50 = TrackingField.of( "task_p50", TrackingField::formatTime );
+    public static final TrackingField TASK_P95 = TrackingField.of( "task_p95", TrackingField::formatTime );
+    public static final TrackingField TASK_P99 = TrackingField.of( "task_p99", TrackingField::formatTime );
+
+    public static final TrackingField SERVER_P50 = TrackingField.of( "server_p50", TrackingField::formatTime );
+    public static final TrackingField SERVER_P95 = TrackingField.of( "server_p95", TrackingField::formatTime );
+    public static final TrackingField SERVER_P99 = TrackingField.of( "server_p99", TrackingField::formatTime );
+    public static final TrackingField SERVER_MAX = TrackingField.of( "server_max", TrackingField::formatTime );
+
+    public static final TrackingField QUEUE_P50 = TrackingField.of( "queue_p50", TrackingField::formatTime );
+    public static final TrackingField QUEUE_P95 = TrackingField.of( "queue_p95", TrackingField::formatTime );
+    public static final TrackingField QUEUE_P99 = TrackingField.of( "queue_p99", TrackingField::formatTime );
+    public static final TrackingField QUEUE_MAX = TrackingField.of( "queue_max", TrackingField::formatTime );
+
     public static final TrackingField PERIPHERAL_OPS = TrackingField.of( "peripheral", TrackingField::formatDefault );
     public static final TrackingField FS_OPS = TrackingField.of( "fs", TrackingField::formatDefault );
     public static final TrackingField TURTLE_OPS = TrackingField.of( "turtle", TrackingField::formatDefault );
@@ -36,6 +50,7 @@ public final class TrackingField
 
     public static final TrackingField COROUTINES_CREATED = TrackingField.of( "coroutines_created", x -> String.format( "%4d", x ) );
     public static final TrackingField COROUTINES_DISPOSED = TrackingField.of( "coroutines_dead", x -> String.format( "%4d", x ) );
+    public static final TrackingField COROUTINES_MEMORY = TrackingField.of( "coroutines_memory", TrackingField::formatBytes );
 
     private final String id;
     private final String translationKey;
@@ -80,6 +95,11 @@ public final class TrackingField
         return String.format( "%6d", value );
     }
 
+    private static String formatTime( long value )
+    {
+        return String.format( "%5.1fms", value / 1e6 );
+    }
+
     /**
      * So technically a kibibyte, but let's not argue here.
      */
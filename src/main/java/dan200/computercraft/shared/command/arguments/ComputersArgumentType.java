@@ -84,7 +84,7 @@ public final class ComputersArgumentType implements ArgumentType<ComputersArgume
         {
             reader.skip();
             int id = reader.readInt();
-            computers = getComputers( x -> x.getID() == id );
+            computers = s -> ComputerCraft.serverComputerRegistry.lookupAll( id );
         }
         else
         {
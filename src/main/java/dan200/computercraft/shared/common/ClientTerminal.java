@@ -7,6 +7,7 @@
 package dan200.computercraft.shared.common;
 
 import dan200.computercraft.core.terminal.Terminal;
+import dan200.computercraft.shared.network.client.TerminalState;
 import net.minecraft.nbt.CompoundTag;
 
 public class ClientTerminal implements ITerminal
@@ -62,6 +63,20 @@ public class ClientTerminal implements ITerminal
         }
     }
 
+    public void read( TerminalState state )
+    {
+        m_colour = state.isColour();
+        if( state.hasTerminal() )
+        {
+            resizeTerminal( state.getWidth(), state.getHeight() );
+            state.apply( m_terminal );
+        }
+        else
+        {
+            deleteTerminal();
+        }
+    }
+
     private void resizeTerminal( int width, int height )
     {
         if( m_terminal == null )
@@ -7,16 +7,26 @@
 package dan200.computercraft.shared.common;
 
 import dan200.computercraft.core.terminal.Terminal;
+import dan200.computercraft.shared.network.client.TerminalState;
 import net.minecraft.nbt.CompoundTag;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ServerTerminal implements ITerminal
 {
+    /**
+     * The maximum number of ticks between two full copies of the terminal being sent to clients.
+     *
+     * @see #pollTerminalState(boolean)
+     */
+    private static final int KEYFRAME_INTERVAL = 20 * 30;
+
     private final boolean m_colour;
     private Terminal m_terminal;
     private final AtomicBoolean m_terminalChanged = new AtomicBoolean( false );
     private boolean m_terminalChangedLastFrame = false;
+    private int m_ticksSinceKeyframe = 0;
+    private boolean m_keyframeRequested = false;
 
     public ServerTerminal( boolean colour )
     {
@@ -57,12 +67,23 @@ public class ServerTerminal implements ITerminal
         m_terminalChanged.set( true );
     }
 
+    /**
+     * Mark the terminal as changed, and ensure the whole terminal is sent to viewers on the next update. This should be
+     * used when a new player starts viewing the terminal.
+     */
+    protected void markTerminalInvalid()
+    {
+        m_keyframeRequested = true;
+        markTerminalChanged();
+    }
+
     public void update()
     {
         Terminal terminal = m_terminal;
         if( terminal != null ) terminal.clearChanged();
 
         m_terminalChangedLastFrame = m_terminalChanged.getAndSet( false );
+        m_ticksSinceKeyframe++;
     }
 
     public boolean hasTerminalChanged()
@@ -86,6 +107,35 @@ public class ServerTerminal implements ITerminal
 
     // Networking stuff
 
+    /**
+     * Capture the entire state of this terminal, without affecting what is sent to other viewers.
+     *
+     * @return The terminal's current state.
+     */
+    public TerminalState getTerminalState()
+    {
+        return new TerminalState( m_colour, m_terminal, true, false );
+    }
+
+    /**
+     * Capture the changes to this terminal since it was last polled, to be sent to every viewer.
+     *
+     * This will periodically send a full copy of the terminal instead, just in case any client has missed an update.
+     *
+     * @param force Whether to always send the whole terminal.
+     * @return The changes to this terminal.
+     */
+    protected TerminalState pollTerminalState( boolean force )
+    {
+        boolean full = force || m_keyframeRequested || m_ticksSinceKeyframe >= KEYFRAME_INTERVAL;
+        if( full )
+        {
+            m_ticksSinceKeyframe = 0;
+            m_keyframeRequested = false;
+        }
+        return new TerminalState( m_colour, m_terminal, full, true );
+    }
+
     public void writeDescription( CompoundTag nbt )
     {
         nbt.putBoolean( "colour", m_colour );
@@ -6,21 +6,24 @@
 
 package dan200.computercraft.shared.computer.core;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 
 public class ComputerRegistry<TComputer extends IComputer>
 {
-    private Map<Integer, TComputer> m_computers;
+    private final Int2ObjectMap<TComputer> m_computers;
     private int m_nextUnusedInstanceID;
     private int m_sessionID;
 
     protected ComputerRegistry()
     {
-        m_computers = new HashMap<>();
-        reset();
+        m_computers = new Int2ObjectOpenHashMap<>();
+
+        // Subclasses' fields are not initialised yet, so we cannot call reset() here.
+        m_sessionID = new Random().nextInt();
     }
 
     public int getSessionID()
@@ -40,14 +43,7 @@ public class ComputerRegistry<TComputer extends IComputer>
 
     public TComputer get( int instanceID )
     {
-        if( instanceID >= 0 )
-        {
-            if( m_computers.containsKey( instanceID ) )
-            {
-                return m_computers.get( instanceID );
-            }
-        }
-        return null;
+        return instanceID >= 0 ? m_computers.get( instanceID ) : null;
     }
 
     public boolean contains( int instanceID )
@@ -0,0 +1,230 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.shared.computer.core;
+
+import dan200.computercraft.shared.network.NetworkHandler;
+import dan200.computercraft.shared.network.NetworkMessage;
+import net.minecraft.container.Container;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Tracks which players are interested in each {@link ServerComputer}, so that changes to a computer are only sent to
+ * those players, rather than everyone on the server.
+ *
+ * A player is subscribed to a computer if they are viewing its terminal (see {@link ServerComputer#isViewing}), or if
+ * the computer is within {@link #TRACKING_RANGE} blocks of them (which includes pocket computers in their inventory).
+ * Only viewers receive changes to the terminal. Players which become subscribed to a computer are sent its current
+ * state, as their copy may be out of date.
+ *
+ * Players are bucketed by world and {@code 64x64} column each tick, so finding a computer's nearby players only needs
+ * to consider a handful of cells. Nearby players are only re-checked every {@link #REFRESH_INTERVAL} ticks, staggered
+ * across computers. Viewers are found by looking at each player's open container, and so are always up to date.
+ *
+ * Updates are queued with {@link NetworkHandler#queueToPlayers}, so each message is only encoded once, and all of a
+ * player's updates in a tick are sent together.
+ */
+final class ComputerSubscriptions
+{
+    /**
+     * The distance within which players receive a computer's state.
+     */
+    static final int TRACKING_RANGE = 128;
+
+    /**
+     * How often (in ticks) to recompute which players are near each computer.
+     */
+    static final int REFRESH_INTERVAL = 10;
+
+    private static final int CELL_BITS = 6;
+
+    private final Map<ServerComputer, Set<PlayerEntity>> subscribers = new HashMap<>();
+
+    private final Map<World, Map<Long, List<PlayerEntity>>> players = new HashMap<>();
+    private final Map<ServerComputer, List<PlayerEntity>> viewers = new HashMap<>();
+    private final Set<PlayerEntity> online = new HashSet<>();
+    private int ticks;
+
+    /**
+     * Start a new tick, indexing every player on the server.
+     *
+     * @param server The current server.
+     */
+    void begin( MinecraftServer server )
+    {
+        ticks++;
+
+        for( PlayerEntity player : server.getPlayerManager().getPlayerList() )
+        {
+            online.add( player );
+
+            long cell = getCell( (int) Math.floor( player.x ) >> CELL_BITS, (int) Math.floor( player.z ) >> CELL_BITS );
+            players.computeIfAbsent( player.world, x -> new HashMap<>() )
+                .computeIfAbsent( cell, x -> new ArrayList<>() )
+                .add( player );
+
+            Container container = player.container;
+            if( container instanceof IContainerComputer )
+            {
+                IComputer computer = ((IContainerComputer) container).getComputer();
+                if( computer instanceof ServerComputer && ((ServerComputer) computer).isViewing( player ) )
+                {
+                    viewers.computeIfAbsent( (ServerComputer) computer, x -> new ArrayList<>() ).add( player );
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue any changes to this computer to be sent to its subscribers. This should be called after the computer is
+     * updated.
+     *
+     * @param computer The computer to update.
+     */
+    void update( ServerComputer computer )
+    {
+        PlayerEntity holder = computer.getHolder();
+        if( holder != null && online.contains( holder ) )
+        {
+            List<PlayerEntity> holderViewers = viewers.computeIfAbsent( computer, x -> new ArrayList<>( 1 ) );
+            if( !holderViewers.contains( holder ) ) holderViewers.add( holder );
+        }
+
+        List<PlayerEntity> viewing = viewers.get( computer );
+
+        // Nearby players are recomputed when the computer is first seen, and then every REFRESH_INTERVAL ticks.
+        Set<PlayerEntity> previous = subscribers.get( computer );
+        boolean refresh = previous == null || (computer.getInstanceID() + ticks) % REFRESH_INTERVAL == 0;
+
+        List<PlayerEntity> recipients = new ArrayList<>();
+        subscribers.put( computer, subscribe(
+            previous, refresh ? findNearby( computer ) : null, viewing, computer.hasOutputChanged(), recipients
+        ) );
+
+        if( !recipients.isEmpty() ) send( recipients, computer.createComputerPacket() );
+
+        if( computer.hasTerminalChanged() && viewing != null )
+        {
+            // We only compute the changes once, as computing them resets the terminal's dirty state.
+            send( viewing, computer.createTerminalUpdate() );
+        }
+    }
+
+    /**
+     * Update the players subscribed to a computer, and work out who should be sent its state. If the computer has
+     * changed, that is every subscriber. Otherwise, it is only those who have just subscribed, as their copy may be out
+     * of date.
+     *
+     * @param previous   The players previously subscribed to this computer, or {@code null} if this is the first time
+     *                   it has been seen. This set may be modified.
+     * @param nearby     The players now near this computer, or {@code null} if they have not been recomputed this
+     *                   tick. This must be given if {@code previous} is {@code null}.
+     * @param viewing    The players viewing this computer, or {@code null} if there are none.
+     * @param changed    Whether the computer's state has changed.
+     * @param recipients The collection to add players who should be sent the computer's state to.
+     * @param <T>        The type of player.
+     * @return The players now subscribed to this computer.
+     */
+    static <T> Set<T> subscribe( @Nullable Set<T> previous, @Nullable Set<T> nearby, @Nullable Collection<T> viewing, boolean changed, Collection<T> recipients )
+    {
+        Set<T> subscribed = nearby != null ? nearby : previous;
+        for( T player : viewing == null ? Collections.<T>emptyList() : viewing )
+        {
+            if( subscribed.add( player ) && nearby == null && !changed ) recipients.add( player );
+        }
+
+        if( changed || previous == null )
+        {
+            recipients.addAll( subscribed );
+        }
+        else if( nearby != null )
+        {
+            for( T player : subscribed )
+            {
+                if( !previous.contains( player ) ) recipients.add( player );
+            }
+        }
+
+        return subscribed;
+    }
+
+    /**
+     * Finish this tick, clearing any per-tick state.
+     */
+    void end()
+    {
+        online.clear();
+        players.clear();
+        viewers.clear();
+    }
+
+    void remove( ServerComputer computer )
+    {
+        subscribers.remove( computer );
+    }
+
+    void reset()
+    {
+        subscribers.clear();
+        online.clear();
+        players.clear();
+        viewers.clear();
+        ticks = 0;
+    }
+
+    private void send( Collection<PlayerEntity> players, NetworkMessage message )
+    {
+        // Subscribers are only refreshed periodically, so may include players which have since left.
+        List<PlayerEntity> recipients = new ArrayList<>( players.size() );
+        for( PlayerEntity player : players )
+        {
+            if( online.contains( player ) ) recipients.add( player );
+        }
+
+        NetworkHandler.queueToPlayers( recipients, message );
+    }
+
+    private Set<PlayerEntity> findNearby( ServerComputer computer )
+    {
+        Set<PlayerEntity> nearby = new HashSet<>();
+
+        World world = computer.getWorld();
+        BlockPos position = computer.getPosition();
+        Map<Long, List<PlayerEntity>> cells = world == null || position == null ? null : players.get( world );
+        if( cells == null ) return nearby;
+
+        int minX = (position.getX() - TRACKING_RANGE) >> CELL_BITS, maxX = (position.getX() + TRACKING_RANGE) >> CELL_BITS;
+        int minZ = (position.getZ() - TRACKING_RANGE) >> CELL_BITS, maxZ = (position.getZ() + TRACKING_RANGE) >> CELL_BITS;
+        double centreX = position.getX() + 0.5, centreZ = position.getZ() + 0.5;
+        for( int x = minX; x <= maxX; x++ )
+        {
+            for( int z = minZ; z <= maxZ; z++ )
+            {
+                List<PlayerEntity> cell = cells.get( getCell( x, z ) );
+                if( cell == null ) continue;
+
+                for( PlayerEntity player : cell )
+                {
+                    double dx = player.x - centreX, dz = player.z - centreZ;
+                    if( dx * dx + dz * dz <= TRACKING_RANGE * TRACKING_RANGE ) nearby.add( player );
+                }
+            }
+        }
+
+        return nearby;
+    }
+
+    private static long getCell( int x, int z )
+    {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
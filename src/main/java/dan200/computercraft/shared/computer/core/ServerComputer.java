@@ -16,6 +16,7 @@ import dan200.computercraft.core.apis.IAPIEnvironment;
 import dan200.computercraft.core.computer.Computer;
 import dan200.computercraft.core.computer.ComputerSide;
 import dan200.computercraft.core.computer.IComputerEnvironment;
+import dan200.computercraft.core.computer.ParallelTicker;
 import dan200.computercraft.shared.common.ServerTerminal;
 import dan200.computercraft.shared.network.NetworkHandler;
 import dan200.computercraft.shared.network.NetworkMessage;
@@ -48,6 +49,11 @@ public class ServerComputer extends ServerTerminal implements IComputer, IComput
     private boolean m_changedLastFrame;
     private int m_ticksSincePing;
 
+    /**
+     * The ID this computer is stored under in {@link ServerComputerRegistry}'s index, or -1 if it is not indexed.
+     */
+    int m_indexedID = -1;
+
     public ServerComputer( World world, int computerID, String label, int instanceID, ComputerFamily family, int terminalWidth, int terminalHeight )
     {
         super( family != ComputerFamily.Normal, terminalWidth, terminalHeight );
@@ -101,6 +107,10 @@ public class ServerComputer extends ServerTerminal implements IComputer, IComput
         return m_computer;
     }
 
+    /**
+     * Advance this computer by one tick. This may be called off the server thread (see {@link ParallelTicker}), and so
+     * must not modify the world.
+     */
     @Override
     public void update()
     {
@@ -147,43 +157,25 @@ public class ServerComputer extends ServerTerminal implements IComputer, IComput
         m_changed = true;
     }
 
-    private NetworkMessage createComputerPacket()
+    ComputerDataClientMessage createComputerPacket()
     {
         return new ComputerDataClientMessage( this );
     }
 
     protected NetworkMessage createTerminalPacket()
     {
-        CompoundTag tagCompound = new CompoundTag();
-        writeDescription( tagCompound );
-        return new ComputerTerminalClientMessage( getInstanceID(), tagCompound );
+        return new ComputerTerminalClientMessage( getInstanceID(), getTerminalState() );
     }
 
-    public void broadcastState( boolean force )
+    /**
+     * Capture the changes to this terminal since the last update, to be sent to every viewer. As this resets the
+     * terminal's dirty state, it should only be called once per tick.
+     *
+     * @return The message to send to every player viewing this computer.
+     */
+    ComputerTerminalClientMessage createTerminalUpdate()
     {
-        MinecraftServer server = m_world == null ? null : m_world.getServer();
-        if( server == null ) return;
-
-        if( hasOutputChanged() || force )
-        {
-            // Send computer state to all clients
-            NetworkHandler.sendToAllPlayers( server, createComputerPacket() );
-        }
-
-        if( hasTerminalChanged() || force )
-        {
-            // Send terminal state to clients who are currently interacting with the computer.
-
-            NetworkMessage packet = null;
-            for( PlayerEntity player : server.getPlayerManager().getPlayerList() )
-            {
-                if( isInteracting( player ) )
-                {
-                    if( packet == null ) packet = createTerminalPacket();
-                    NetworkHandler.sendToPlayer( player, packet );
-                }
-            }
-        }
+        return new ComputerTerminalClientMessage( getInstanceID(), pollTerminalState( false ) );
     }
 
     public void sendComputerState( PlayerEntity player )
@@ -209,6 +201,7 @@ public class ServerComputer extends ServerTerminal implements IComputer, IComput
     public void setID( int id )
     {
         m_computer.setID( id );
+        ComputerCraft.serverComputerRegistry.updateIndex( this );
     }
 
     // IComputer
@@ -375,4 +368,26 @@ public class ServerComputer extends ServerTerminal implements IComputer, IComput
     {
         return getContainer( player ) != null;
     }
+
+    /**
+     * Determine whether this player can see this computer's terminal, and so should receive any changes to it.
+     *
+     * @param player The player to check.
+     * @return Whether the player is viewing this terminal.
+     */
+    protected boolean isViewing( PlayerEntity player )
+    {
+        return isInteracting( player ) || player == getHolder();
+    }
+
+    /**
+     * Get the player who can always see this computer's terminal, even when not interacting with it.
+     *
+     * @return The current holder, or {@code null} if there is none.
+     */
+    @Nullable
+    protected PlayerEntity getHolder()
+    {
+        return null;
+    }
 }
@@ -6,12 +6,31 @@
 
 package dan200.computercraft.shared.computer.core;
 
-import java.util.Iterator;
+import dan200.computercraft.core.computer.ParallelTicker;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.server.MinecraftServer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
 
 public class ServerComputerRegistry extends ComputerRegistry<ServerComputer>
 {
-    public void update()
+    private final ComputerSubscriptions subscriptions = new ComputerSubscriptions();
+    private final List<ServerComputer> ticking = new ArrayList<>();
+
+    /**
+     * An index of computers by their computer ID. Several instances may share the same ID, so each ID maps to a list.
+     *
+     * @see #updateIndex(ServerComputer)
+     */
+    private final Int2ObjectMap<List<ServerComputer>> computersByID = new Int2ObjectOpenHashMap<>();
+
+    public void update( MinecraftServer server )
     {
+        subscriptions.begin( server );
+
         Iterator<ServerComputer> it = getComputers().iterator();
         while( it.hasNext() )
         {
@@ -21,26 +40,39 @@ public class ServerComputerRegistry extends ComputerRegistry<ServerComputer>
                 //System.out.println( "TIMED OUT SERVER COMPUTER " + computer.getInstanceID() );
                 computer.unload();
                 computer.broadcastDelete();
+                subscriptions.remove( computer );
+                removeIndex( computer );
                 it.remove();
                 //System.out.println( getComputers().size() + " SERVER COMPUTERS" );
             }
             else
             {
-                computer.update();
-                if( computer.hasTerminalChanged() || computer.hasOutputChanged() )
-                {
-                    computer.broadcastState( false );
-                }
+                ticking.add( computer );
             }
         }
+
+        // Updating computers does not touch the world, and so may be spread across several threads. Everything else
+        // happens back on the server thread.
+        ParallelTicker.tick( ticking, ServerComputer::update );
+
+        for( ServerComputer computer : ticking )
+        {
+            // Computers are assigned an ID the first time they need one, which may happen on the computer thread.
+            updateIndex( computer );
+            subscriptions.update( computer );
+        }
+        ticking.clear();
+
+        subscriptions.end();
     }
 
     @Override
     public void add( int instanceID, ServerComputer computer )
     {
         //System.out.println( "ADD SERVER COMPUTER " + instanceID );
+        // The computer's state will be sent to nearby players on the next update.
         super.add( instanceID, computer );
-        computer.broadcastState( true );
+        updateIndex( computer );
         //System.out.println( getComputers().size() + " SERVER COMPUTERS" );
     }
 
@@ -53,6 +85,8 @@ public class ServerComputerRegistry extends ComputerRegistry<ServerComputer>
         {
             computer.unload();
             computer.broadcastDelete();
+            subscriptions.remove( computer );
+            removeIndex( computer );
         }
         super.remove( instanceID );
         //System.out.println( getComputers().size() + " SERVER COMPUTERS" );
@@ -66,18 +100,65 @@ public class ServerComputerRegistry extends ComputerRegistry<ServerComputer>
         {
             computer.unload();
         }
+        subscriptions.reset();
+        computersByID.clear();
         super.reset();
         //System.out.println( getComputers().size() + " SERVER COMPUTERS" );
     }
 
+    /**
+     * Find a computer with the given computer ID.
+     *
+     * @param computerID The computer ID to find.
+     * @return A computer with this ID, or {@code null} if none are loaded. If several computers share this ID, any one
+     * of them may be returned.
+     */
+    @Nullable
     public ServerComputer lookup( int computerID )
     {
-        if( computerID < 0 ) return null;
+        List<ServerComputer> computers = computerID < 0 ? null : computersByID.get( computerID );
+        return computers == null ? null : computers.get( 0 );
+    }
+
+    /**
+     * Find every computer with the given computer ID.
+     *
+     * @param computerID The computer ID to find.
+     * @return All computers with this ID.
+     */
+    @Nonnull
+    public List<ServerComputer> lookupAll( int computerID )
+    {
+        List<ServerComputer> computers = computerID < 0 ? null : computersByID.get( computerID );
+        return computers == null ? Collections.emptyList() : Collections.unmodifiableList( new ArrayList<>( computers ) );
+    }
 
-        for( ServerComputer computer : getComputers() )
+    /**
+     * Update the index of computer IDs, after a computer's ID may have changed. This should be called from the server
+     * thread.
+     *
+     * @param computer The computer whose ID may have changed.
+     */
+    void updateIndex( ServerComputer computer )
+    {
+        int id = computer.getID();
+        if( id == computer.m_indexedID || get( computer.getInstanceID() ) != computer ) return;
+
+        removeIndex( computer );
+        if( id >= 0 )
         {
-            if( computer.getID() == computerID ) return computer;
+            computersByID.computeIfAbsent( id, x -> new ArrayList<>( 1 ) ).add( computer );
+            computer.m_indexedID = id;
         }
-        return null;
+    }
+
+    private void removeIndex( ServerComputer computer )
+    {
+        int id = computer.m_indexedID;
+        if( id < 0 ) return;
+
+        computer.m_indexedID = -1;
+        List<ServerComputer> computers = computersByID.get( id );
+        if( computers != null && computers.remove( computer ) && computers.isEmpty() ) computersByID.remove( id );
     }
 }
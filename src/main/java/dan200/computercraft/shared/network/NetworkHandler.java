@@ -9,6 +9,7 @@ package dan200.computercraft.shared.network;
 import dan200.computercraft.ComputerCraft;
 import dan200.computercraft.shared.network.client.*;
 import dan200.computercraft.shared.network.server.*;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
@@ -30,7 +31,9 @@ import net.minecraft.util.PacketByteBuf;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 
+import java.util.*;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -41,6 +44,21 @@ public final class NetworkHandler
 
     private static final Identifier ID = new Identifier( ComputerCraft.MOD_ID, "main" );
 
+    /**
+     * The ID of a packet containing several messages, each prefixed with its length.
+     *
+     * @see #queueToPlayers(Collection, NetworkMessage)
+     */
+    static final int BUNDLE_ID = 15;
+
+    /**
+     * The size at which we stop adding messages to a bundle, and start a new one. This is well below the maximum size of
+     * a custom payload packet, so that one player's updates do not hold up other packets for too long.
+     */
+    static final int MAX_BUNDLE_SIZE = 32 * 1024;
+
+    private static final Map<PlayerEntity, List<ByteBuf>> queued = new HashMap<>();
+
     private NetworkHandler()
     {
     }
@@ -66,10 +84,16 @@ public final class NetworkHandler
         registerMainThread( 12, ComputerDeletedClientMessage::new );
         registerMainThread( 13, ComputerTerminalClientMessage::new );
         registerMainThread( 14, PlayRecordClientMessage.class, PlayRecordClientMessage::new );
+
+        packetReaders.put( BUNDLE_ID, NetworkHandler::receiveBundle );
     }
 
     public static void sendToPlayer( PlayerEntity player, NetworkMessage packet )
     {
+        // Send anything already queued for this player first, so messages arrive in the order they were sent.
+        List<ByteBuf> pending = queued.remove( player );
+        if( pending != null ) flush( (ServerPlayerEntity) player, pending );
+
         ((ServerPlayerEntity) player).networkHandler.sendPacket(
             new CustomPayloadS2CPacket( ID, encode( packet ) )
         );
@@ -77,9 +101,122 @@ public final class NetworkHandler
 
     public static void sendToAllPlayers( MinecraftServer server, NetworkMessage packet )
     {
+        flush();
         server.getPlayerManager().sendToAll( new CustomPayloadS2CPacket( ID, encode( packet ) ) );
     }
 
+    /**
+     * Queue a message to be sent to several players at the end of the tick. The message is only encoded once, no
+     * matter how many players receive it.
+     *
+     * Every message queued for a player is sent in as few packets as possible by {@link #flush()}, and after any
+     * packets sent directly. This should only be called from the server thread.
+     *
+     * @param players The players to send this message to.
+     * @param packet  The message to send.
+     */
+    public static void queueToPlayers( Collection<? extends PlayerEntity> players, NetworkMessage packet )
+    {
+        if( players.isEmpty() ) return;
+
+        ByteBuf buf = encode( packet );
+        for( PlayerEntity player : players )
+        {
+            queued.computeIfAbsent( player, x -> new ArrayList<>() ).add( buf );
+        }
+    }
+
+    /**
+     * Send every message queued with {@link #queueToPlayers(Collection, NetworkMessage)}. Small messages for the same
+     * player are combined into a single packet.
+     *
+     * Messages sent directly to a player (such as with {@link #sendToPlayer(PlayerEntity, NetworkMessage)}) flush
+     * their queue first, so each player receives messages in the order they were sent.
+     */
+    public static void flush()
+    {
+        if( queued.isEmpty() ) return;
+
+        for( Map.Entry<PlayerEntity, List<ByteBuf>> entry : queued.entrySet() )
+        {
+            flush( (ServerPlayerEntity) entry.getKey(), entry.getValue() );
+        }
+
+        queued.clear();
+    }
+
+    private static void flush( ServerPlayerEntity player, List<ByteBuf> messages )
+    {
+        writeBundles( messages, buf -> player.networkHandler.sendPacket( new CustomPayloadS2CPacket( ID, buf ) ) );
+    }
+
+    /**
+     * Combine several encoded messages into as few packets as possible.
+     *
+     * @param messages The messages to send, in order.
+     * @param send     The function to send each packet.
+     */
+    static void writeBundles( List<ByteBuf> messages, Consumer<PacketByteBuf> send )
+    {
+        PacketByteBuf bundle = null;
+        for( ByteBuf message : messages )
+        {
+            // Each message is prefixed with its length, which takes up to 5 bytes.
+            int size = message.readableBytes() + 5;
+            boolean alone = messages.size() == 1 || size + 1 > MAX_BUNDLE_SIZE;
+
+            // Send the current bundle if this message will not fit in it. We also send it before any message sent on
+            // its own, so that messages arrive in the order they were queued.
+            if( bundle != null && (alone || bundle.writerIndex() + size > MAX_BUNDLE_SIZE) )
+            {
+                send.accept( bundle );
+                bundle = null;
+            }
+
+            if( alone )
+            {
+                // The buffer may be shared between players, so each packet is given its own view of it.
+                send.accept( new PacketByteBuf( message.duplicate() ) );
+                continue;
+            }
+
+            if( bundle == null )
+            {
+                bundle = new PacketByteBuf( Unpooled.buffer() );
+                bundle.writeByte( BUNDLE_ID );
+            }
+
+            bundle.writeVarInt( message.readableBytes() );
+            bundle.writeBytes( message, message.readerIndex(), message.readableBytes() );
+        }
+
+        if( bundle != null ) send.accept( bundle );
+    }
+
+    /**
+     * Split a bundle (without its {@link #BUNDLE_ID}) back into its messages.
+     *
+     * @param buffer  The bundle to read.
+     * @param receive The function to handle each message.
+     */
+    static void readBundle( PacketByteBuf buffer, Consumer<PacketByteBuf> receive )
+    {
+        // Messages are decoded immediately, and only handled later, so it is safe to read them from a slice.
+        while( buffer.isReadable() )
+        {
+            int length = buffer.readVarInt();
+            receive.accept( new PacketByteBuf( buffer.readSlice( length ) ) );
+        }
+    }
+
+    /**
+     * Drop any queued messages. This should be called when the server stops.
+     */
+    public static void reset()
+    {
+        queued.clear();
+    }
+
     public static void sendToServer( NetworkMessage packet )
     {
         MinecraftClient.getInstance().player.networkHandler.sendPacket(
@@ -89,6 +226,7 @@ public final class NetworkHandler
 
     public static void sendToAllAround( NetworkMessage packet, World world, Vec3d pos, double range )
     {
+        flush();
         world.getServer().getPlayerManager().sendToAround(
             null, pos.x, pos.y, pos.z, range, world.getDimension().getType(),
             new CustomPayloadS2CPacket( ID, encode( packet ) )
@@ -101,6 +239,11 @@ public final class NetworkHandler
         packetReaders.get( type ).accept( context, buffer );
     }
 
+    private static void receiveBundle( PacketContext context, PacketByteBuf buffer )
+    {
+        readBundle( buffer, message -> receive( context, message ) );
+    }
+
     private static PacketByteBuf encode( NetworkMessage message )
     {
         PacketByteBuf buf = new PacketByteBuf( Unpooled.buffer() );
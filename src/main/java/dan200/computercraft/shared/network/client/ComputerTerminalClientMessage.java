@@ -7,19 +7,18 @@
 package dan200.computercraft.shared.network.client;
 
 import net.fabricmc.fabric.api.network.PacketContext;
-import net.minecraft.nbt.CompoundTag;
 import net.minecraft.util.PacketByteBuf;
 
 import javax.annotation.Nonnull;
 
 public class ComputerTerminalClientMessage extends ComputerClientMessage
 {
-    private CompoundTag tag;
+    private TerminalState state;
 
-    public ComputerTerminalClientMessage( int instanceId, CompoundTag tag )
+    public ComputerTerminalClientMessage( int instanceId, TerminalState state )
     {
         super( instanceId );
-        this.tag = tag;
+        this.state = state;
     }
 
     public ComputerTerminalClientMessage()
@@ -30,19 +29,19 @@ public class ComputerTerminalClientMessage extends ComputerClientMessage
     public void toBytes( @Nonnull PacketByteBuf buf )
     {
         super.toBytes( buf );
-        buf.writeCompoundTag( tag ); // TODO: Do we need to compress this?
+        state.write( buf );
     }
 
     @Override
     public void fromBytes( @Nonnull PacketByteBuf buf )
     {
         super.fromBytes( buf );
-        tag = buf.readCompoundTag();
+        state = new TerminalState( buf );
     }
 
     @Override
     public void handle( PacketContext context )
     {
-        getComputer().readDescription( tag );
+        getComputer().read( state );
     }
 }
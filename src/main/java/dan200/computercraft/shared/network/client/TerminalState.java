@@ -0,0 +1,295 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.shared.network.client;
+
+import dan200.computercraft.core.terminal.Terminal;
+import dan200.computercraft.shared.util.Palette;
+import net.minecraft.util.PacketByteBuf;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.BitSet;
+
+/**
+ * A snapshot of a terminal's state, sent from the server to the client.
+ *
+ * This is either a "keyframe", which contains the entire terminal, or a delta, which only contains the rows, cursor
+ * and palette which have changed since the last snapshot. Rows are always sent in their entirety, so applying a delta
+ * twice (or on top of a newer keyframe) is harmless.
+ *
+ * Each row is packed as one byte per character, followed by one byte per character holding the foreground colour in
+ * the high nibble and the background colour in the low nibble.
+ */
+public class TerminalState
+{
+    private static final int FLAG_TERMINAL = 1;
+    private static final int FLAG_COLOUR = 1 << 1;
+    private static final int FLAG_FULL = 1 << 2;
+    private static final int FLAG_CURSOR = 1 << 3;
+    private static final int FLAG_PALETTE = 1 << 4;
+
+    private final boolean colour;
+    private final boolean full;
+
+    private final int width;
+    private final int height;
+
+    private final boolean hasCursor;
+    private int cursorX;
+    private int cursorY;
+    private boolean cursorBlink;
+    private int cursorColour;
+    private int cursorBackgroundColour;
+
+    private final int[] palette;
+
+    private final BitSet rows;
+    private final byte[] text;
+    private final byte[] colours;
+
+    /**
+     * Capture the state of a terminal.
+     *
+     * @param colour   Whether this terminal supports colour.
+     * @param terminal The terminal to capture, or {@code null} if it has been removed.
+     * @param full     Whether to send the entire terminal. Otherwise we only send the parts of the terminal which have
+     *                 changed since the last delta.
+     * @param poll     Whether to reset the terminal's dirty state. This should only be done for snapshots sent to
+     *                 every viewer of the terminal.
+     */
+    public TerminalState( boolean colour, @Nullable Terminal terminal, boolean full, boolean poll )
+    {
+        this.colour = colour;
+        this.full = full;
+
+        if( terminal == null )
+        {
+            width = height = 0;
+            hasCursor = false;
+            palette = null;
+            rows = null;
+            text = colours = null;
+            return;
+        }
+
+        synchronized( terminal )
+        {
+            width = terminal.getWidth();
+            height = terminal.getHeight();
+
+            BitSet dirtyRows = poll ? terminal.pollDirtyRows() : null;
+            boolean cursorDirty = poll && terminal.pollCursorDirty();
+            boolean paletteDirty = poll && terminal.pollPaletteDirty();
+
+            if( full )
+            {
+                rows = new BitSet( height );
+                rows.set( 0, height );
+            }
+            else if( dirtyRows != null )
+            {
+                rows = dirtyRows;
+                rows.clear( height, Math.max( height, rows.length() ) );
+            }
+            else
+            {
+                rows = new BitSet();
+            }
+
+            hasCursor = full || cursorDirty;
+            if( hasCursor )
+            {
+                cursorX = terminal.getCursorX();
+                cursorY = terminal.getCursorY();
+                cursorBlink = terminal.getCursorBlink();
+                cursorColour = terminal.getTextColour();
+                cursorBackgroundColour = terminal.getBackgroundColour();
+            }
+
+            Palette terminalPalette = terminal.getPalette();
+            if( (full || paletteDirty) && terminalPalette != null )
+            {
+                palette = new int[16];
+                for( int i = 0; i < palette.length; i++ ) palette[i] = Palette.encodeRGB8( terminalPalette.getColour( i ) );
+            }
+            else
+            {
+                palette = null;
+            }
+
+            int rowCount = rows.cardinality();
+            text = new byte[rowCount * width];
+            colours = new byte[rowCount * width];
+
+            // The terminal uses the same layout as we do, so we can copy rows across directly.
+            int offset = 0;
+            for( int y = rows.nextSetBit( 0 ); y >= 0; y = rows.nextSetBit( y + 1 ) )
+            {
+                terminal.readRow( y, text, colours, offset );
+                offset += width;
+            }
+        }
+    }
+
+    public TerminalState( @Nonnull PacketByteBuf buf )
+    {
+        int flags = buf.readUnsignedByte();
+        colour = (flags & FLAG_COLOUR) != 0;
+        full = (flags & FLAG_FULL) != 0;
+        hasCursor = (flags & FLAG_CURSOR) != 0;
+
+        if( (flags & FLAG_TERMINAL) == 0 )
+        {
+            width = height = 0;
+            palette = null;
+            rows = null;
+            text = colours = null;
+            return;
+        }
+
+        width = buf.readVarInt();
+        height = buf.readVarInt();
+
+        if( hasCursor )
+        {
+            cursorX = buf.readInt();
+            cursorY = buf.readInt();
+            int cursorColours = buf.readUnsignedByte();
+            cursorColour = cursorColours >> 4;
+            cursorBackgroundColour = cursorColours & 0xF;
+            cursorBlink = buf.readBoolean();
+        }
+
+        if( (flags & FLAG_PALETTE) != 0 )
+        {
+            palette = new int[16];
+            for( int i = 0; i < palette.length; i++ ) palette[i] = buf.readMedium() & 0xFFFFFF;
+        }
+        else
+        {
+            palette = null;
+        }
+
+        // Rows are sent as a list of ranges of consecutive rows.
+        rows = new BitSet( height );
+        int ranges = buf.readVarInt();
+        for( int i = 0; i < ranges; i++ )
+        {
+            int start = buf.readVarInt();
+            int count = buf.readVarInt();
+            rows.set( start, start + count );
+        }
+
+        int length = rows.cardinality() * width;
+        text = new byte[length];
+        colours = new byte[length];
+        buf.readBytes( text );
+        buf.readBytes( colours );
+    }
+
+    public void write( @Nonnull PacketByteBuf buf )
+    {
+        int flags = 0;
+        if( colour ) flags |= FLAG_COLOUR;
+        if( full ) flags |= FLAG_FULL;
+        if( hasCursor ) flags |= FLAG_CURSOR;
+        if( rows != null ) flags |= FLAG_TERMINAL;
+        if( palette != null ) flags |= FLAG_PALETTE;
+        buf.writeByte( flags );
+
+        if( rows == null ) return;
+
+        buf.writeVarInt( width );
+        buf.writeVarInt( height );
+
+        if( hasCursor )
+        {
+            buf.writeInt( cursorX );
+            buf.writeInt( cursorY );
+            buf.writeByte( (cursorColour & 0xF) << 4 | (cursorBackgroundColour & 0xF) );
+            buf.writeBoolean( cursorBlink );
+        }
+
+        if( palette != null )
+        {
+            for( int rgb : palette ) buf.writeMedium( rgb );
+        }
+
+        int ranges = 0;
+        for( int y = rows.nextSetBit( 0 ); y >= 0; y = rows.nextSetBit( rows.nextClearBit( y ) ) ) ranges++;
+        buf.writeVarInt( ranges );
+        for( int y = rows.nextSetBit( 0 ); y >= 0; y = rows.nextSetBit( y ) )
+        {
+            int end = rows.nextClearBit( y );
+            buf.writeVarInt( y );
+            buf.writeVarInt( end - y );
+            y = end;
+        }
+
+        buf.writeBytes( text );
+        buf.writeBytes( colours );
+    }
+
+    public boolean isColour()
+    {
+        return colour;
+    }
+
+    public boolean hasTerminal()
+    {
+        return rows != null;
+    }
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Apply this state to a terminal. The terminal should have already been resized to match this state.
+     *
+     * @param terminal The terminal to update.
+     */
+    public void apply( @Nonnull Terminal terminal )
+    {
+        if( rows == null ) return;
+
+        synchronized( terminal )
+        {
+            if( hasCursor )
+            {
+                terminal.setCursorPos( cursorX, cursorY );
+                terminal.setCursorBlink( cursorBlink );
+                terminal.setTextColour( cursorColour );
+                terminal.setBackgroundColour( cursorBackgroundColour );
+            }
+
+            Palette terminalPalette = terminal.getPalette();
+            if( palette != null && terminalPalette != null )
+            {
+                for( int i = 0; i < palette.length; i++ )
+                {
+                    double[] rgb = Palette.decodeRGB8( palette[i] );
+                    terminalPalette.setColour( i, rgb[0], rgb[1], rgb[2] );
+                }
+                terminal.setPaletteChanged();
+            }
+
+            int offset = 0;
+            for( int y = rows.nextSetBit( 0 ); y >= 0; y = rows.nextSetBit( y + 1 ) )
+            {
+                terminal.writeRow( y, text, colours, offset, width );
+                offset += width;
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.shared.peripheral.modem;
+
+import dan200.computercraft.api.network.IPacketNetwork;
+import dan200.computercraft.api.network.IPacketReceiver;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The receivers on an {@link IPacketNetwork}, indexed by which channels they are listening on. This allows networks to
+ * only deliver packets to receivers which have that channel open.
+ *
+ * Only {@link ModemPeripheral}s report which channels they have open. Any other receiver is assumed to listen on every
+ * channel, and is returned by {@link #getUnfiltered()}.
+ *
+ * This index is updated as modems {@link ModemState#open(int) open} and {@link ModemState#close(int) close} channels,
+ * from whichever thread does so. Consequently all methods are thread-safe, and do not block on the network itself.
+ */
+public final class ChannelIndex
+{
+    private final Map<Integer, Set<IPacketReceiver>> channels = new ConcurrentHashMap<>();
+    private final Set<IPacketReceiver> unfiltered = ConcurrentHashMap.newKeySet();
+    private final Map<IPacketReceiver, ModemState.ChannelListener> listeners = new ConcurrentHashMap<>();
+
+    public void add( @Nonnull IPacketReceiver receiver )
+    {
+        if( receiver instanceof ModemPeripheral )
+        {
+            ModemState.ChannelListener listener = ( channel, open ) -> {
+                if( open )
+                {
+                    subscribe( receiver, channel );
+                }
+                else
+                {
+                    unsubscribe( receiver, channel );
+                }
+            };
+            if( listeners.putIfAbsent( receiver, listener ) == null )
+            {
+                ((ModemPeripheral) receiver).getModemState().addListener( listener );
+            }
+        }
+        else
+        {
+            unfiltered.add( receiver );
+        }
+    }
+
+    public void remove( @Nonnull IPacketReceiver receiver )
+    {
+        ModemState.ChannelListener listener = listeners.remove( receiver );
+        if( listener != null )
+        {
+            ((ModemPeripheral) receiver).getModemState().removeListener( listener );
+        }
+        else
+        {
+            unfiltered.remove( receiver );
+        }
+    }
+
+    /**
+     * Get the receivers which have opened a specific channel. This does not include {@link #getUnfiltered() unfiltered}
+     * receivers.
+     *
+     * @param channel The channel to look up.
+     * @return The receivers listening on this channel.
+     */
+    @Nonnull
+    public Set<IPacketReceiver> getSubscribers( int channel )
+    {
+        Set<IPacketReceiver> subscribers = channels.get( channel );
+        return subscribers == null ? Collections.emptySet() : subscribers;
+    }
+
+    /**
+     * Get all receivers which do not report which channels they are listening on.
+     *
+     * @return All receivers which may listen on any channel.
+     */
+    @Nonnull
+    public Set<IPacketReceiver> getUnfiltered()
+    {
+        return unfiltered;
+    }
+
+    /**
+     * Determine whether a receiver may be listening on a channel.
+     *
+     * @param receiver The receiver to check.
+     * @param channel  The channel to check.
+     * @return Whether this receiver should be sent packets on this channel.
+     */
+    public boolean isListening( @Nonnull IPacketReceiver receiver, int channel )
+    {
+        return unfiltered.contains( receiver ) || getSubscribers( channel ).contains( receiver );
+    }
+
+    private void subscribe( IPacketReceiver receiver, int channel )
+    {
+        channels.compute( channel, ( k, receivers ) -> {
+            if( receivers == null ) receivers = ConcurrentHashMap.newKeySet();
+            receivers.add( receiver );
+            return receivers;
+        } );
+    }
+
+    private void unsubscribe( IPacketReceiver receiver, int channel )
+    {
+        channels.computeIfPresent( channel, ( k, receivers ) -> {
+            receivers.remove( receiver );
+            return receivers.isEmpty() ? null : receivers;
+        } );
+    }
+}
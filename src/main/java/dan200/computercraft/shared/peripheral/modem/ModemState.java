@@ -10,6 +10,8 @@ import dan200.computercraft.api.lua.LuaException;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ModemState
@@ -19,6 +21,7 @@ public class ModemState
 
     private boolean open = false;
     private final IntSet channels = new IntOpenHashSet();
+    private final List<ChannelListener> listeners = new ArrayList<>( 1 );
 
     public ModemState()
     {
@@ -63,6 +66,7 @@ public class ModemState
             {
                 if( channels.size() >= 128 ) throw new LuaException( "Too many open channels" );
                 channels.add( channel );
+                for( ChannelListener listener : listeners ) listener.onChannelChanged( channel, true );
                 setOpen( true );
             }
         }
@@ -72,7 +76,10 @@ public class ModemState
     {
         synchronized( channels )
         {
-            channels.remove( channel );
+            if( channels.remove( channel ) )
+            {
+                for( ChannelListener listener : listeners ) listener.onChannelChanged( channel, false );
+            }
             if( channels.isEmpty() ) setOpen( false );
         }
     }
@@ -81,8 +88,49 @@ public class ModemState
     {
         synchronized( channels )
         {
+            for( ChannelListener listener : listeners )
+            {
+                for( int channel : channels ) listener.onChannelChanged( channel, false );
+            }
             channels.clear();
             setOpen( false );
         }
     }
+
+    /**
+     * Add a listener which is notified whenever a channel is opened or closed. The listener is immediately notified of
+     * every channel which is currently open.
+     *
+     * Listeners are called while holding this modem's lock, so should not block.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener( ChannelListener listener )
+    {
+        synchronized( channels )
+        {
+            listeners.add( listener );
+            for( int channel : channels ) listener.onChannelChanged( channel, true );
+        }
+    }
+
+    /**
+     * Remove a listener, notifying it that every currently open channel has been closed.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener( ChannelListener listener )
+    {
+        synchronized( channels )
+        {
+            if( !listeners.remove( listener ) ) return;
+            for( int channel : channels ) listener.onChannelChanged( channel, false );
+        }
+    }
+
+    @FunctionalInterface
+    public interface ChannelListener
+    {
+        void onChannelChanged( int channel, boolean open );
+    }
 }
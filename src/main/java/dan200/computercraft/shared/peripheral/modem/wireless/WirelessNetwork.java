@@ -10,15 +10,42 @@ import dan200.computercraft.api.network.IPacketNetwork;
 import dan200.computercraft.api.network.IPacketReceiver;
 import dan200.computercraft.api.network.IPacketSender;
 import dan200.computercraft.api.network.Packet;
+import dan200.computercraft.shared.peripheral.modem.ChannelIndex;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
 
 import javax.annotation.Nonnull;
-import java.util.Collections;
-import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
 
+/**
+ * The network which all wireless modems are connected to.
+ *
+ * Receivers are indexed by world, and then by which {@code 64x64} column they are in. Transmissions only need to
+ * consider receivers in nearby columns, and receivers in other worlds are skipped entirely. Interdimensional receivers
+ * are kept in a separate list, as they receive every packet.
+ *
+ * Receivers are also indexed by the channels they have open (see {@link ChannelIndex}). When only a few modems are
+ * listening on a channel, we visit those directly rather than searching the spatial index at all.
+ */
 public class WirelessNetwork implements IPacketNetwork
 {
+    /**
+     * The width of each cell in the spatial index, as a power of two. This is the same as the default modem range.
+     */
+    private static final int CELL_BITS = 6;
+
+    /**
+     * The distance a receiver may move between refreshes of the index while still being found by a transmission.
+     */
+    private static final double MOVEMENT_SLACK = 8;
+
+    /**
+     * The maximum number of receivers listening on a channel for which we skip the spatial index, and just visit each
+     * listener. Busy channels (such as rednet's broadcast channel) instead use the spatial index and filter by channel.
+     */
+    private static final int CHANNEL_SCAN_LIMIT = 64;
+
     private static WirelessNetwork s_universalNetwork = null;
 
     public static WirelessNetwork getUniversal()
@@ -35,34 +62,227 @@ public class WirelessNetwork implements IPacketNetwork
         s_universalNetwork = null;
     }
 
-    private final Set<IPacketReceiver> m_receivers = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+    /**
+     * Mark the positions of all receivers as potentially out of date. This should be called once per tick.
+     *
+     * Receivers may move (such as modems on turtles and pocket computers), so the spatial index is refreshed before
+     * the first transmission after this is called.
+     */
+    public static void tick()
+    {
+        WirelessNetwork network = s_universalNetwork;
+        if( network != null ) network.m_stale = true;
+    }
+
+    private final Map<IPacketReceiver, Entry> m_receivers = new HashMap<>();
+    private final Map<World, Grid> m_grids = new HashMap<>();
+    private final Set<Entry> m_interdimensional = new HashSet<>();
+    private final ChannelIndex m_channels = new ChannelIndex();
+    private volatile boolean m_stale;
 
     @Override
     public void addReceiver( @Nonnull IPacketReceiver receiver )
     {
         Objects.requireNonNull( receiver, "device cannot be null" );
-        m_receivers.add( receiver );
+        synchronized( m_receivers )
+        {
+            if( m_receivers.containsKey( receiver ) ) return;
+
+            Entry entry = new Entry( receiver );
+            m_receivers.put( receiver, entry );
+            place( entry );
+        }
+        m_channels.add( receiver );
     }
 
     @Override
     public void removeReceiver( @Nonnull IPacketReceiver receiver )
     {
         Objects.requireNonNull( receiver, "device cannot be null" );
-        m_receivers.remove( receiver );
+        synchronized( m_receivers )
+        {
+            Entry entry = m_receivers.remove( receiver );
+            if( entry != null ) unplace( entry );
+        }
+        m_channels.remove( receiver );
     }
 
     @Override
     public void transmitSameDimension( @Nonnull Packet packet, double range )
     {
         Objects.requireNonNull( packet, "packet cannot be null" );
-        for( IPacketReceiver device : m_receivers ) tryTransmit( device, packet, range, false );
+
+        IPacketSender sender = packet.getSender();
+        World world = sender.getWorld();
+        Vec3d position = sender.getPosition();
+
+        int channel = packet.getChannel();
+        Set<IPacketReceiver> subscribers = m_channels.getSubscribers( channel );
+        if( subscribers.size() <= CHANNEL_SCAN_LIMIT )
+        {
+            // tryTransmit checks the actual position and range, so we don't need to consult the spatial index.
+            for( IPacketReceiver device : subscribers ) tryTransmit( device, packet, range, false );
+            for( IPacketReceiver device : m_channels.getUnfiltered() ) tryTransmit( device, packet, range, false );
+            return;
+        }
+
+        // Collect candidates under the lock, but deliver the packet outside of it, as receivers may do arbitrary work.
+        List<IPacketReceiver> candidates = new ArrayList<>();
+        synchronized( m_receivers )
+        {
+            if( m_stale ) refresh();
+
+            Grid grid = m_grids.get( world );
+            if( grid != null )
+            {
+                grid.collect( position, Math.max( range, grid.maxRange ) + MOVEMENT_SLACK, m_channels, channel, candidates );
+            }
+            for( Entry entry : m_interdimensional )
+            {
+                if( m_channels.isListening( entry.receiver, channel ) ) candidates.add( entry.receiver );
+            }
+        }
+
+        for( IPacketReceiver device : candidates ) tryTransmit( device, packet, range, false );
     }
 
     @Override
     public void transmitInterdimensional( @Nonnull Packet packet )
     {
         Objects.requireNonNull( packet, "packet cannot be null" );
-        for( IPacketReceiver device : m_receivers ) tryTransmit( device, packet, 0, true );
+
+        for( IPacketReceiver device : m_channels.getSubscribers( packet.getChannel() ) ) tryTransmit( device, packet, 0, true );
+        for( IPacketReceiver device : m_channels.getUnfiltered() ) tryTransmit( device, packet, 0, true );
+    }
+
+    /**
+     * Update the position, range and dimension of every receiver, moving it to a different cell if required.
+     */
+    private void refresh()
+    {
+        m_stale = false;
+        for( Grid grid : m_grids.values() ) grid.maxRange = 0;
+
+        for( Entry entry : m_receivers.values() )
+        {
+            IPacketReceiver receiver = entry.receiver;
+            World world = receiver.getWorld();
+            boolean interdimensional = receiver.isInterdimensional();
+            long cell = interdimensional ? 0 : getCell( receiver.getPosition() );
+
+            if( world != entry.world || interdimensional != entry.interdimensional || cell != entry.cell )
+            {
+                unplace( entry );
+                place( entry );
+            }
+            else if( !interdimensional )
+            {
+                Grid grid = m_grids.get( world );
+                grid.maxRange = Math.max( grid.maxRange, receiver.getRange() );
+            }
+        }
+    }
+
+    private void place( Entry entry )
+    {
+        IPacketReceiver receiver = entry.receiver;
+        entry.world = receiver.getWorld();
+        entry.interdimensional = receiver.isInterdimensional();
+        if( entry.interdimensional )
+        {
+            entry.cell = 0;
+            m_interdimensional.add( entry );
+            return;
+        }
+
+        entry.cell = getCell( receiver.getPosition() );
+        Grid grid = m_grids.computeIfAbsent( entry.world, x -> new Grid() );
+        grid.cells.computeIfAbsent( entry.cell, x -> new ArrayList<>() ).add( entry );
+        grid.maxRange = Math.max( grid.maxRange, receiver.getRange() );
+    }
+
+    private void unplace( Entry entry )
+    {
+        if( entry.interdimensional )
+        {
+            m_interdimensional.remove( entry );
+            return;
+        }
+
+        Grid grid = m_grids.get( entry.world );
+        List<Entry> cell = grid.cells.get( entry.cell );
+        cell.remove( entry );
+        if( cell.isEmpty() ) grid.cells.remove( entry.cell );
+        if( grid.cells.isEmpty() ) m_grids.remove( entry.world );
+    }
+
+    private static long getCell( Vec3d position )
+    {
+        return getCell( MathHelper.floor( position.x ) >> CELL_BITS, MathHelper.floor( position.z ) >> CELL_BITS );
+    }
+
+    private static long getCell( int x, int z )
+    {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    private static final class Entry
+    {
+        final IPacketReceiver receiver;
+        World world;
+        boolean interdimensional;
+        long cell;
+
+        Entry( IPacketReceiver receiver )
+        {
+            this.receiver = receiver;
+        }
+    }
+
+    /**
+     * The receivers within a single world, bucketed by their horizontal position.
+     */
+    private static final class Grid
+    {
+        final Map<Long, List<Entry>> cells = new HashMap<>();
+
+        /**
+         * The largest range of any receiver in this world. Packets are received if they are within range of the
+         * sender <em>or</em> the receiver, so we must search at least this far.
+         */
+        double maxRange;
+
+        void collect( Vec3d position, double range, ChannelIndex channels, int channel, List<IPacketReceiver> candidates )
+        {
+            int minX = MathHelper.floor( position.x - range ) >> CELL_BITS, maxX = MathHelper.floor( position.x + range ) >> CELL_BITS;
+            int minZ = MathHelper.floor( position.z - range ) >> CELL_BITS, maxZ = MathHelper.floor( position.z + range ) >> CELL_BITS;
+
+            if( (long) (maxX - minX + 1) * (maxZ - minZ + 1) >= cells.size() )
+            {
+                // If the search area covers more cells than exist, it's cheaper to just visit every one.
+                for( List<Entry> cell : cells.values() )
+                {
+                    for( Entry entry : cell )
+                    {
+                        if( channels.isListening( entry.receiver, channel ) ) candidates.add( entry.receiver );
+                    }
+                }
+                return;
+            }
+
+            for( int x = minX; x <= maxX; x++ )
+            {
+                for( int z = minZ; z <= maxZ; z++ )
+                {
+                    List<Entry> cell = cells.get( getCell( x, z ) );
+                    if( cell == null ) continue;
+                    for( Entry entry : cell )
+                    {
+                        if( channels.isListening( entry.receiver, channel ) ) candidates.add( entry.receiver );
+                    }
+                }
+            }
+        }
     }
 
     private static void tryTransmit( IPacketReceiver receiver, Packet packet, double range, boolean interdimensional )
@@ -7,6 +7,7 @@
 package dan200.computercraft.shared.peripheral.monitor;
 
 import com.mojang.blaze3d.platform.GlStateManager;
+import dan200.computercraft.client.render.TerminalMesh;
 import dan200.computercraft.shared.common.ClientTerminal;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
@@ -25,6 +26,7 @@ public class ClientMonitor extends ClientTerminal
     public long lastRenderFrame = -1;
     public BlockPos lastRenderPos = null;
     public int[] renderDisplayLists = null;
+    public TerminalMesh renderMesh = null;
 
     public ClientMonitor( boolean colour, TileMonitor origin )
     {
@@ -37,12 +39,20 @@ public class ClientMonitor extends ClientTerminal
         return origin;
     }
 
+    /**
+     * Create the display lists for this monitor, replacing any existing ones if the number of lists has changed.
+     *
+     * @param count The number of display lists required.
+     * @return Whether new lists were created.
+     */
     @Environment( EnvType.CLIENT )
-    public void createLists()
+    public boolean createLists( int count )
     {
+        if( renderDisplayLists != null && renderDisplayLists.length != count ) destroy();
+
         if( renderDisplayLists == null )
         {
-            renderDisplayLists = new int[3];
+            renderDisplayLists = new int[count];
 
             for( int i = 0; i < renderDisplayLists.length; i++ )
             {
@@ -53,7 +63,10 @@ public class ClientMonitor extends ClientTerminal
             {
                 allMonitors.add( this );
             }
+            return true;
         }
+
+        return false;
     }
 
     @Environment( EnvType.CLIENT )
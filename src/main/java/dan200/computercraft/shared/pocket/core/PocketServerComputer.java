@@ -14,7 +14,6 @@ import dan200.computercraft.core.computer.ComputerSide;
 import dan200.computercraft.shared.common.IColouredItem;
 import dan200.computercraft.shared.computer.core.ComputerFamily;
 import dan200.computercraft.shared.computer.core.ServerComputer;
-import dan200.computercraft.shared.network.NetworkHandler;
 import dan200.computercraft.shared.pocket.items.ItemPocketComputer;
 import dan200.computercraft.shared.util.NBTUtil;
 import net.minecraft.entity.Entity;
@@ -168,7 +167,7 @@ public class PocketServerComputer extends ServerComputer implements IPocketAcces
         }
 
         // If a new entity has picked it up then rebroadcast the terminal to them
-        if( entity != m_entity && entity instanceof ServerPlayerEntity ) markTerminalChanged();
+        if( entity != m_entity && entity instanceof ServerPlayerEntity ) markTerminalInvalid();
 
         m_entity = entity;
         m_stack = stack;
@@ -180,19 +179,10 @@ public class PocketServerComputer extends ServerComputer implements IPocketAcces
         }
     }
 
+    @Nullable
     @Override
-    public void broadcastState( boolean force )
+    protected PlayerEntity getHolder()
     {
-        super.broadcastState( force );
-
-        if( (hasTerminalChanged() || force) && m_entity instanceof ServerPlayerEntity )
-        {
-            // Broadcast the state to the current entity if they're not already interacting with it.
-            ServerPlayerEntity player = (ServerPlayerEntity) m_entity;
-            if( player.networkHandler != null && !isInteracting( player ) )
-            {
-                NetworkHandler.sendToPlayer( player, createTerminalPacket() );
-            }
-        }
+        return m_entity instanceof PlayerEntity ? (PlayerEntity) m_entity : null;
     }
 }
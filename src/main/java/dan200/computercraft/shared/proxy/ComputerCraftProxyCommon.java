@@ -12,6 +12,7 @@ import dan200.computercraft.api.media.IMedia;
 import dan200.computercraft.api.peripheral.IPeripheralTile;
 import dan200.computercraft.api.turtle.event.TurtleEvent;
 import dan200.computercraft.core.computer.MainThread;
+import dan200.computercraft.core.tracking.MetricsExporter;
 import dan200.computercraft.core.tracking.Tracking;
 import dan200.computercraft.shared.Registry;
 import dan200.computercraft.shared.TurtlePermissions;
@@ -99,8 +100,12 @@ public class ComputerCraftProxyCommon
 
         ServerTickCallback.EVENT.register( server -> {
             MainThread.executePendingTasks();
-            ComputerCraft.serverComputerRegistry.update();
+            ComputerCraft.serverComputerRegistry.update( server );
             TickScheduler.tick();
+            WirelessNetwork.tick();
+            Tracking.tick();
+            MetricsExporter.tick();
+            NetworkHandler.flush();
         } );
 
         ServerStartCallback.EVENT.register( server -> {
@@ -109,6 +114,7 @@ public class ComputerCraftProxyCommon
             WirelessNetwork.resetNetworks();
             MainThread.reset();
             Tracking.reset();
+            MetricsExporter.reset();
         } );
 
         ServerStopCallback.EVENT.register( server -> {
@@ -116,6 +122,8 @@ public class ComputerCraftProxyCommon
             WirelessNetwork.resetNetworks();
             MainThread.reset();
             Tracking.reset();
+            MetricsExporter.reset();
+            NetworkHandler.reset();
             ComputerCraftProxyCommon.server = null;
         } );
 
@@ -35,6 +35,9 @@ public class Config
     @Comment( "\nVarious options relating to turtles." )
     public Turtle turtle = new Turtle();
 
+    @Comment( "\nExport performance metrics about computers to a file, in Prometheus's text format." )
+    public Metrics metrics = new Metrics();
+
     public static class General
     {
         @Comment( "\nThe disk space limit for computers and turtles, in bytes" )
@@ -78,6 +81,26 @@ public class Config
             "Note, we will quite possibly go over this limit, as there's no way to tell how long a will take - this aims " +
             "to be the upper bound of the average time." )
         public long max_main_computer_time = TimeUnit.NANOSECONDS.toMillis( ComputerCraft.maxMainComputerTime );
+
+        @Comment( "\nHow Lua coroutines are run. Each coroutine needs its own thread while it is alive.\n" +
+            "\"pool\" creates a new platform thread for every coroutine, \"bounded\" uses at most " +
+            "\"coroutine_max_threads\" platform threads, making coroutine.create fail beyond that, and \"virtual\" " +
+            "uses virtual threads where the JVM supports them." )
+        public String coroutine_executor = ComputerCraft.coroutineExecutor;
+
+        @Comment( "\nThe maximum number of coroutines alive at once across all computers when \"coroutine_executor\" is " +
+            "\"bounded\". Each computer's main coroutine is not counted." )
+        public int coroutine_max_threads = ComputerCraft.coroutineMaxThreads;
+
+        @Comment( "\nThe maximum number of coroutines a single computer can have alive at once. Once this is reached, " +
+            "coroutine.create and coroutine.wrap will error. Suspended coroutines are only counted as dead once they " +
+            "are garbage collected, so a low limit may break programs which abandon coroutines. Set to 0 for unlimited." )
+        public int coroutine_limit = ComputerCraft.coroutineLimit;
+
+        @Comment( "\nThe number of threads used to update computers each tick. Set to 1 to update them on the server " +
+            "thread. Higher values can reduce tick times on servers with many computers, but may cause issues with " +
+            "mods whose computer APIs are not thread safe." )
+        public int tick_threads = ComputerCraft.computerTickThreads;
     }
 
     public static class Http
@@ -169,6 +192,20 @@ public class Config
         public String[] disabled_actions = new String[0];
     }
 
+    public static class Metrics
+    {
+        @Comment( "\nPeriodically write metrics about computers and the computer threads to \"file\". This can be " +
+            "read by Prometheus's node exporter (using the textfile collector) or any other tool which understands " +
+            "Prometheus's text format." )
+        public boolean enabled = ComputerCraft.metricsEnabled;
+
+        @Comment( "\nThe file to write metrics to, relative to the server's directory." )
+        public String file = ComputerCraft.metricsFile;
+
+        @Comment( "\nHow often to write metrics, in seconds." )
+        public int interval = ComputerCraft.metricsInterval;
+    }
+
     private static transient Path configPath;
     private static transient Config config;
     public static final transient Config defaultConfig = new Config();
@@ -236,6 +273,10 @@ public class Config
         ComputerCraft.computer_threads = Math.max( 1, config.execution.computer_threads );
         ComputerCraft.maxMainGlobalTime = TimeUnit.MILLISECONDS.toNanos( Math.max( 1, config.execution.max_main_global_time ) );
         ComputerCraft.maxMainComputerTime = TimeUnit.MILLISECONDS.toNanos( Math.max( 1, config.execution.max_main_computer_time ) );
+        ComputerCraft.coroutineExecutor = config.execution.coroutine_executor;
+        ComputerCraft.coroutineMaxThreads = Math.max( 1, config.execution.coroutine_max_threads );
+        ComputerCraft.coroutineLimit = Math.max( 0, config.execution.coroutine_limit );
+        ComputerCraft.computerTickThreads = Math.max( 1, config.execution.tick_threads );
 
         // HTTP
         ComputerCraft.http_enable = config.http.enabled;
@@ -278,5 +319,10 @@ public class Config
                 ComputerCraft.log.error( "Unknown turtle action " + value );
             }
         }
+
+        // Metrics
+        ComputerCraft.metricsEnabled = config.metrics.enabled;
+        ComputerCraft.metricsFile = config.metrics.file;
+        ComputerCraft.metricsInterval = Math.max( 1, config.metrics.interval );
     }
 }
@@ -16,6 +16,7 @@ import net.minecraft.world.World;
 
 import javax.annotation.Nonnull;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -25,6 +26,15 @@ public final class WiredNetwork implements IWiredNetwork
     HashSet<WiredNode> nodes;
     private HashMap<String, IPeripheral> peripherals = new HashMap<>();
 
+    /**
+     * The shortest paths from a node to every node with receivers, computed on the first transmission from that node.
+     *
+     * Routes only depend on the network's topology, so this is cleared whenever a node is connected, disconnected or
+     * removed. It is also cleared when a node gains receivers (see {@link #invalidateRoutes()}), which may happen
+     * without holding the network's lock, hence the concurrent map.
+     */
+    private volatile Map<WiredNode, Routes> routes;
+
     WiredNetwork( WiredNode node )
     {
         nodes = new HashSet<>( 1 );
@@ -67,6 +77,7 @@ public final class WiredNetwork implements IWiredNetwork
                     Collection<WiredNode> otherNodes = other.nodes;
 
                     // Move all nodes across into this network, destroying the original nodes.
+                    other.invalidateRoutes();
                     nodes.addAll( otherNodes );
                     for( WiredNode node : otherNodes ) node.network = this;
                     other.nodes = null;
@@ -93,6 +104,7 @@ public final class WiredNetwork implements IWiredNetwork
 
             boolean added = wiredU.neighbours.add( wiredV );
             if( added ) wiredV.neighbours.add( wiredU );
+            invalidateRoutes();
 
             InvariantChecker.checkNetwork( this );
             InvariantChecker.checkNode( wiredU );
@@ -123,6 +135,7 @@ public final class WiredNetwork implements IWiredNetwork
             // If there was no connection to remove then split.
             if( !wiredU.neighbours.remove( wiredV ) ) return false;
             wiredV.neighbours.remove( wiredU );
+            invalidateRoutes();
 
             // Determine if there is still some connection from u to v.
             // Note this is an inlining of reachableNodes which short-circuits
@@ -204,6 +217,7 @@ public final class WiredNetwork implements IWiredNetwork
             HashSet<WiredNode> neighbours = wired.neighbours;
 
             // Remove this node and move into a separate network.
+            invalidateRoutes();
             nodes.remove( wired );
             for( WiredNode neighbour : neighbours ) neighbour.neighbours.remove( wired );
 
@@ -320,15 +334,73 @@ public final class WiredNetwork implements IWiredNetwork
         }
     }
 
+    /**
+     * Discard all cached routes. This must be called whenever the network's topology changes.
+     */
+    void invalidateRoutes()
+    {
+        routes = null;
+    }
+
     static void transmitPacket( WiredNode start, Packet packet, double range, boolean interdimensional )
+    {
+        if( start.element.getWorld() != packet.getSender().getWorld() )
+        {
+            // Senders are almost always in the same world as their node, so we don't bother caching this case.
+            for( TransmitPoint point : computeRoutes( start, Double.POSITIVE_INFINITY, true ).values() )
+            {
+                point.node.tryTransmit( packet, point.distance, point.interdimensional, range, interdimensional );
+            }
+            return;
+        }
+
+        // Distances are relative to the start node, so offset them by the distance to the sender.
+        double offset = start.element.getPosition().distanceTo( packet.getSender().getPosition() );
+        Routes routes = start.network.getRoutes( start );
+        for( int i = 0; i < routes.nodes.length; i++ )
+        {
+            routes.nodes[i].tryTransmit( packet, offset + routes.distances[i], routes.interdimensional[i], range, interdimensional );
+        }
+    }
+
+    /**
+     * Get the shortest path from a node to every reachable node with receivers, computing it if required. This should
+     * be called while holding the network's read lock.
+     *
+     * @param start The node to find routes from.
+     * @return The routes from this node.
+     */
+    @Nonnull
+    Routes getRoutes( WiredNode start )
+    {
+        Map<WiredNode, Routes> routes = this.routes;
+        if( routes == null ) this.routes = routes = new ConcurrentHashMap<>();
+
+        // If the cache is invalidated while computing, our result is stored in the discarded map, so is never used.
+        Routes result = routes.get( start );
+        if( result == null )
+        {
+            result = new Routes( computeRoutes( start, 0, false ).values() );
+            routes.put( start, result );
+        }
+        return result;
+    }
+
+    /**
+     * Find the shortest path from a node to every other node in the network.
+     *
+     * @param start                 The node to start from.
+     * @param startDistance         The distance of the start node from the sender.
+     * @param startInterdimensional Whether the start node is in a different dimension to the sender.
+     * @return Every reachable node and its distance from the sender.
+     */
+    static Map<WiredNode, TransmitPoint> computeRoutes( WiredNode start, double startDistance, boolean startInterdimensional )
     {
         Map<WiredNode, TransmitPoint> points = new HashMap<>();
         TreeSet<TransmitPoint> transmitTo = new TreeSet<>();
 
         {
-            TransmitPoint startEntry = start.element.getWorld() != packet.getSender().getWorld()
-                ? new TransmitPoint( start, Double.POSITIVE_INFINITY, true )
-                : new TransmitPoint( start, start.element.getPosition().distanceTo( packet.getSender().getPosition() ), false );
+            TransmitPoint startEntry = new TransmitPoint( start, startDistance, startInterdimensional );
             points.put( start, startEntry );
             transmitTo.add( startEntry );
         }
@@ -373,10 +445,7 @@ public final class WiredNetwork implements IWiredNetwork
             }
         }
 
-        for( TransmitPoint point : points.values() )
-        {
-            point.node.tryTransmit( packet, point.distance, point.interdimensional, range, interdimensional );
-        }
+        return points;
     }
 
     private void removeSingleNode( WiredNode wired, WiredNetwork wiredNetwork )
@@ -407,7 +476,37 @@ public final class WiredNetwork implements IWiredNetwork
         }
     }
 
-    private static class TransmitPoint implements Comparable<TransmitPoint>
+    /**
+     * The nodes with receivers reachable from a node, and the distance to each.
+     */
+    static final class Routes
+    {
+        final WiredNode[] nodes;
+        final double[] distances;
+        final boolean[] interdimensional;
+
+        Routes( Collection<TransmitPoint> points )
+        {
+            int count = 0;
+            for( TransmitPoint point : points ) if( point.node.hasReceivers() ) count++;
+
+            nodes = new WiredNode[count];
+            distances = new double[count];
+            interdimensional = new boolean[count];
+
+            int i = 0;
+            for( TransmitPoint point : points )
+            {
+                if( !point.node.hasReceivers() ) continue;
+                nodes[i] = point.node;
+                distances[i] = point.distance;
+                interdimensional[i] = point.interdimensional;
+                i++;
+            }
+        }
+    }
+
+    static final class TransmitPoint implements Comparable<TransmitPoint>
     {
         final WiredNode node;
         double distance;
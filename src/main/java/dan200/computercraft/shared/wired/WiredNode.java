@@ -13,6 +13,7 @@ import dan200.computercraft.api.network.wired.IWiredNetwork;
 import dan200.computercraft.api.network.wired.IWiredNode;
 import dan200.computercraft.api.network.wired.IWiredSender;
 import dan200.computercraft.api.peripheral.IPeripheral;
+import dan200.computercraft.shared.peripheral.modem.ChannelIndex;
 
 import javax.annotation.Nonnull;
 import java.util.*;
@@ -20,7 +21,7 @@ import java.util.concurrent.locks.Lock;
 
 public final class WiredNode implements IWiredNode
 {
-    private Set<IPacketReceiver> receivers;
+    private volatile ChannelIndex receivers;
 
     final IWiredElement element;
     Map<String, IPeripheral> peripherals = Collections.emptyMap();
@@ -37,7 +38,13 @@ public final class WiredNode implements IWiredNode
     @Override
     public synchronized void addReceiver( @Nonnull IPacketReceiver receiver )
     {
-        if( receivers == null ) receivers = new HashSet<>();
+        if( receivers == null )
+        {
+            receivers = new ChannelIndex();
+
+            // Cached routes skip nodes without receivers, so must be recomputed.
+            network.invalidateRoutes();
+        }
         receivers.add( receiver );
     }
 
@@ -47,26 +54,42 @@ public final class WiredNode implements IWiredNode
         if( receivers != null ) receivers.remove( receiver );
     }
 
-    synchronized void tryTransmit( Packet packet, double packetDistance, boolean packetInterdimensional, double range, boolean interdimensional )
+    boolean hasReceivers()
+    {
+        return receivers != null;
+    }
+
+    void tryTransmit( Packet packet, double packetDistance, boolean packetInterdimensional, double range, boolean interdimensional )
     {
+        ChannelIndex receivers = this.receivers;
         if( receivers == null ) return;
 
-        for( IPacketReceiver receiver : receivers )
+        // Only visit receivers which are listening on this channel. The index is safe to read without holding our lock.
+        for( IPacketReceiver receiver : receivers.getSubscribers( packet.getChannel() ) )
+        {
+            tryTransmit( receiver, packet, packetDistance, packetInterdimensional, range, interdimensional );
+        }
+        for( IPacketReceiver receiver : receivers.getUnfiltered() )
         {
-            if( !packetInterdimensional )
+            tryTransmit( receiver, packet, packetDistance, packetInterdimensional, range, interdimensional );
+        }
+    }
+
+    private void tryTransmit( IPacketReceiver receiver, Packet packet, double packetDistance, boolean packetInterdimensional, double range, boolean interdimensional )
+    {
+        if( !packetInterdimensional )
+        {
+            double receiveRange = Math.max( range, receiver.getRange() ); // Ensure range is symmetrical
+            if( interdimensional || receiver.isInterdimensional() || packetDistance < receiveRange )
             {
-                double receiveRange = Math.max( range, receiver.getRange() ); // Ensure range is symmetrical
-                if( interdimensional || receiver.isInterdimensional() || packetDistance < receiveRange )
-                {
-                    receiver.receiveSameDimension( packet, packetDistance + element.getPosition().distanceTo( receiver.getPosition() ) );
-                }
+                receiver.receiveSameDimension( packet, packetDistance + element.getPosition().distanceTo( receiver.getPosition() ) );
             }
-            else
+        }
+        else
+        {
+            if( interdimensional || receiver.isInterdimensional() )
             {
-                if( interdimensional || receiver.isInterdimensional() )
-                {
-                    receiver.receiveDifferentDimension( packet );
-                }
+                receiver.receiveDifferentDimension( packet );
             }
         }
     }
@@ -713,6 +713,7 @@ if http then
         checkKey( options, "headers", "table", true )
         checkKey( options, "method", "string", true )
         checkKey( options, "redirect", "boolean", true )
+        checkKey( options, "stream", "boolean", true )
 
         if options.method and not methods[options.method] then
             error( "Unsupported HTTP method", 3 )
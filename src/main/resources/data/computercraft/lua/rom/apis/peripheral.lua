@@ -81,6 +81,11 @@ end
 
 function wrap( _sSide )
     expect(1, _sSide, "string")
+    if native.isPresent( _sSide ) then
+        -- Local peripherals can be wrapped natively, binding each method directly rather than looking it up by name
+        -- on every call.
+        return native.wrap( _sSide )
+    end
     if peripheral.isPresent( _sSide ) then
         local tMethods = peripheral.getMethods( _sSide )
         local tResult = {}
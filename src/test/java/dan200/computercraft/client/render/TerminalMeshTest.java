@@ -0,0 +1,124 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.client.render;
+
+import dan200.computercraft.core.terminal.Terminal;
+import net.minecraft.nbt.CompoundTag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TerminalMeshTest
+{
+    @Test
+    public void testBuildsEverythingInitially()
+    {
+        Terminal terminal = new Terminal( 10, 10 );
+        TerminalMesh mesh = new TerminalMesh( 4 );
+
+        assertTrue( mesh.update( terminal, terminal.pollDirtyRows(), false, false, 1, 1 ) );
+        assertEquals( 3, mesh.getBands().length );
+
+        // Each row of a blank terminal is a single quad, plus one each for the top and bottom margins.
+        assertEquals( (10 + 2) * 6, mesh.getRebuiltVertices() );
+        for( TerminalMesh.Band band : mesh.getBands() )
+        {
+            assertTrue( band.isDirty() );
+            assertEquals( 0, band.getTextVertices() );
+        }
+    }
+
+    @Test
+    public void testOnlyRebuildsChangedBands()
+    {
+        Terminal terminal = new Terminal( 10, 10 );
+        TerminalMesh mesh = new TerminalMesh( 4 );
+        mesh.update( terminal, terminal.pollDirtyRows(), true, false, 1, 1 );
+        for( TerminalMesh.Band band : mesh.getBands() ) band.clearDirty();
+
+        assertFalse( mesh.update( terminal, terminal.pollDirtyRows(), false, false, 1, 1 ) );
+        assertEquals( 0, mesh.getRebuiltVertices() );
+
+        terminal.setCursorPos( 0, 5 );
+        terminal.write( "Hi" );
+        assertTrue( mesh.update( terminal, terminal.pollDirtyRows(), false, false, 1, 1 ) );
+
+        TerminalMesh.Band[] bands = mesh.getBands();
+        assertFalse( bands[0].isDirty() );
+        assertTrue( bands[1].isDirty() );
+        assertFalse( bands[2].isDirty() );
+
+        // Four rows of background, and one quad for each character.
+        assertEquals( 2 * 6, bands[1].getTextVertices() );
+        assertEquals( 4 * 6, bands[1].getBackgroundVertices() );
+        assertEquals( 6 * 6, mesh.getRebuiltVertices() );
+    }
+
+    @Test
+    public void testMergesBackgroundRuns()
+    {
+        Terminal terminal = new Terminal( 10, 1 );
+        terminal.blit( "          ", "0000000000", "ffff0000ff" );
+
+        TerminalMesh mesh = new TerminalMesh( 4 );
+        mesh.update( terminal, terminal.pollDirtyRows(), true, false, 1, 1 );
+
+        // Three runs in the row itself, and three in both the top and bottom margins.
+        assertEquals( 9 * 6, mesh.getBands()[0].getBackgroundVertices() );
+    }
+
+    @Test
+    public void testResizeRebuildsEverything()
+    {
+        Terminal terminal = new Terminal( 10, 10 );
+        TerminalMesh mesh = new TerminalMesh( 4 );
+        mesh.update( terminal, terminal.pollDirtyRows(), true, false, 1, 1 );
+
+        terminal.resize( 10, 13 );
+        terminal.pollDirtyRows();
+        assertTrue( mesh.update( terminal, null, false, false, 1, 1 ) );
+        assertEquals( 4, mesh.getBands().length );
+        for( TerminalMesh.Band band : mesh.getBands() ) assertTrue( band.isDirty() );
+    }
+
+    /**
+     * Monitors are synced by sending their whole terminal as NBT. Only rows which actually changed should be rebuilt.
+     */
+    @Test
+    public void testNBTOnlyRebuildsChangedBands()
+    {
+        Terminal server = new Terminal( 10, 10 );
+        Terminal client = new Terminal( 10, 10 );
+        TerminalMesh mesh = new TerminalMesh( 4 );
+
+        client.readFromNBT( server.writeToNBT( new CompoundTag() ) );
+        mesh.update( client, client.pollDirtyRows(), client.pollPaletteDirty(), false, 1, 1 );
+        for( TerminalMesh.Band band : mesh.getBands() ) band.clearDirty();
+
+        // Sending the same contents again should not rebuild anything.
+        client.readFromNBT( server.writeToNBT( new CompoundTag() ) );
+        assertFalse( mesh.update( client, client.pollDirtyRows(), client.pollPaletteDirty(), false, 1, 1 ) );
+        assertEquals( 0, mesh.getRebuiltVertices() );
+
+        server.setCursorPos( 0, 9 );
+        server.write( "Hi" );
+        client.readFromNBT( server.writeToNBT( new CompoundTag() ) );
+        assertTrue( mesh.update( client, client.pollDirtyRows(), client.pollPaletteDirty(), false, 1, 1 ) );
+
+        TerminalMesh.Band[] bands = mesh.getBands();
+        assertFalse( bands[0].isDirty() );
+        assertFalse( bands[1].isDirty() );
+        assertTrue( bands[2].isDirty() );
+        for( TerminalMesh.Band band : bands ) band.clearDirty();
+
+        // Changing the palette must still rebuild everything.
+        server.getPalette().setColour( 3, 0.5, 0.5, 0.5 );
+        client.readFromNBT( server.writeToNBT( new CompoundTag() ) );
+        assertTrue( mesh.update( client, client.pollDirtyRows(), client.pollPaletteDirty(), false, 1, 1 ) );
+        for( TerminalMesh.Band band : mesh.getBands() ) assertTrue( band.isDirty() );
+    }
+}
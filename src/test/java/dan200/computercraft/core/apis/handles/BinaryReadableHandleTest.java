@@ -10,6 +10,8 @@ import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.core.apis.ObjectWrapper;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -60,6 +62,32 @@ public class BinaryReadableHandleTest
         assertEquals( 1000, wrapper.<byte[]>callOf( "read", 11000 ).length );
     }
 
+    @Test
+    public void testReadLongNonSeekable() throws LuaException
+    {
+        ObjectWrapper wrapper = fromStream( 20000 );
+        assertEquals( 9000, wrapper.<byte[]>callOf( "read", 9000 ).length );
+        assertEquals( 11000, wrapper.<byte[]>callOf( "read", 12000 ).length );
+        assertNull( wrapper.call( "read", 1 ) );
+    }
+
+    @Test
+    public void testReadAll() throws LuaException
+    {
+        ObjectWrapper wrapper = fromLength( 20000 );
+        assertEquals( 5, wrapper.<byte[]>callOf( "read", 5 ).length );
+        assertEquals( 19995, wrapper.<byte[]>callOf( "readAll" ).length );
+        assertNull( wrapper.call( "readAll" ) );
+    }
+
+    @Test
+    public void testReadAllNonSeekable() throws LuaException
+    {
+        ObjectWrapper wrapper = fromStream( 20000 );
+        assertEquals( 20000, wrapper.<byte[]>callOf( "readAll" ).length );
+        assertNull( wrapper.call( "readAll" ) );
+    }
+
     @Test
     public void testReadLine() throws LuaException
     {
@@ -84,4 +112,11 @@ public class BinaryReadableHandleTest
         Arrays.fill( input, (byte) 'A' );
         return new ObjectWrapper( new BinaryReadableHandle( new ArrayByteChannel( input ) ) );
     }
+
+    private static ObjectWrapper fromStream( int length )
+    {
+        byte[] input = new byte[length];
+        Arrays.fill( input, (byte) 'A' );
+        return new ObjectWrapper( new BinaryReadableHandle( Channels.newChannel( new ByteArrayInputStream( input ) ) ) );
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.apis.handles;
+
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.core.apis.ObjectWrapper;
+import dan200.computercraft.shared.util.StringUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Utf8ReadableHandleTest
+{
+    private static final String[] INPUTS = new String[] {
+        "",
+        "hello",
+        "hello\nworld\n",
+        "hello\r\nworld\r!\r\r\n\n",
+        "café à la crème\n☃ snowman\n",
+        "emoji 😀😀\nend",
+    };
+
+    @Test
+    public void testReadChar() throws LuaException
+    {
+        ObjectWrapper wrapper = fromLength( 5 );
+        assertArrayEquals( bytes( "A" ), wrapper.callOf( "read" ) );
+    }
+
+    @Test
+    public void testReadShortComplete() throws LuaException
+    {
+        ObjectWrapper wrapper = fromLength( 10 );
+        assertArrayEquals( bytes( "AAAAA" ), wrapper.callOf( "read", 5 ) );
+    }
+
+    @Test
+    public void testReadShortPartial() throws LuaException
+    {
+        ObjectWrapper wrapper = fromLength( 5 );
+        assertArrayEquals( bytes( "AAAAA" ), wrapper.callOf( "read", 10 ) );
+    }
+
+    @Test
+    public void testReadLongComplete() throws LuaException
+    {
+        ObjectWrapper wrapper = fromLength( 10000 );
+        assertEquals( 9000, wrapper.<byte[]>callOf( "read", 9000 ).length );
+    }
+
+    @Test
+    public void testReadLongPartial() throws LuaException
+    {
+        ObjectWrapper wrapper = fromLength( 10000 );
+        assertEquals( 10000, wrapper.<byte[]>callOf( "read", 11000 ).length );
+    }
+
+    @Test
+    public void testReadLongPartialSmaller() throws LuaException
+    {
+        ObjectWrapper wrapper = fromLength( 1000 );
+        assertEquals( 1000, wrapper.<byte[]>callOf( "read", 11000 ).length );
+    }
+
+    @Test
+    public void testReadLongLine() throws LuaException
+    {
+        byte[] input = new byte[20000];
+        Arrays.fill( input, (byte) 'A' );
+        input[15000] = '\n';
+
+        ObjectWrapper wrapper = new ObjectWrapper( new Utf8ReadableHandle( new ArrayByteChannel( input ) ) );
+        assertEquals( 15000, wrapper.<byte[]>callOf( "readLine" ).length );
+        assertEquals( 4999, wrapper.<byte[]>callOf( "readLine" ).length );
+        assertNull( wrapper.call( "readLine" ) );
+    }
+
+    @Test
+    public void testMalformed() throws LuaException
+    {
+        byte[] input = new byte[] { 'a', (byte) 0xe2, (byte) 0x82, '\n', (byte) 0xff, 'b', (byte) 0xc3 };
+        assertEquivalent( input, "readLine", "readLine", "readLine" );
+        assertEquivalent( input, "readAll" );
+        assertEquivalent( input, "read:2", "read:2", "read:2", "read:2" );
+    }
+
+    @Test
+    public void testStaticReadAll() throws LuaException
+    {
+        for( String input : INPUTS )
+        {
+            byte[] contents = bytes( input );
+            ObjectWrapper wrapper = new ObjectWrapper( new Utf8ReadableHandle( new ArrayByteChannel( contents ) ) );
+            assertArrayEquals( wrapper.<byte[]>callOf( "readAll" ), Utf8ReadableHandle.readAll( contents ), input );
+        }
+    }
+
+    @Test
+    public void testMatchesEncodedHandle() throws LuaException
+    {
+        for( String input : INPUTS )
+        {
+            byte[] bytes = input.getBytes( StandardCharsets.UTF_8 );
+            assertEquivalent( bytes, "readAll", "readAll" );
+            assertEquivalent( bytes, "readLine", "readLine", "readLine", "readLine", "readLine", "readLine" );
+            assertEquivalent( bytes, "readLine:true", "readLine:true", "readLine:true", "readAll" );
+            assertEquivalent( bytes, "read:1", "readLine", "read:7", "readAll", "read:1" );
+            assertEquivalent( bytes, "read:6", "read:1", "read:1", "readLine", "read:3", "read:100" );
+            assertEquivalent( bytes, "readLine", "readLine", "read:3", "readLine:true", "read:1", "readAll" );
+        }
+    }
+
+    /**
+     * Run a sequence of operations on a {@link Utf8ReadableHandle} and an {@link EncodedReadableHandle}, and check
+     * they return the same results.
+     *
+     * @param input      The file's contents.
+     * @param operations The operations to run, in the form {@code method} or {@code method:argument}.
+     * @throws LuaException If any operation failed.
+     */
+    private static void assertEquivalent( byte[] input, String... operations ) throws LuaException
+    {
+        ObjectWrapper expected = new ObjectWrapper( new EncodedReadableHandle( EncodedReadableHandle.openUtf8( new ArrayByteChannel( input ) ) ) );
+        ObjectWrapper actual = new ObjectWrapper( new Utf8ReadableHandle( new ArrayByteChannel( input ) ) );
+
+        for( String operation : operations )
+        {
+            int split = operation.indexOf( ':' );
+            String method = split < 0 ? operation : operation.substring( 0, split );
+            Object[] args = split < 0 ? new Object[0] : new Object[] { parseArgument( operation.substring( split + 1 ) ) };
+
+            Object[] expectedResult = expected.call( method, args );
+            Object[] actualResult = actual.call( method, args );
+
+            String message = "Calling " + operation + " on " + Arrays.toString( input );
+            if( expectedResult == null )
+            {
+                assertNull( actualResult, message );
+            }
+            else
+            {
+                assertNotNull( actualResult, message );
+                assertArrayEquals( StringUtil.encodeString( (String) expectedResult[0] ), (byte[]) actualResult[0], message );
+            }
+        }
+    }
+
+    private static Object parseArgument( String argument )
+    {
+        return argument.equals( "true" ) ? (Object) true : (Object) Integer.parseInt( argument );
+    }
+
+    private static byte[] bytes( String value )
+    {
+        return value.getBytes( StandardCharsets.UTF_8 );
+    }
+
+    private static ObjectWrapper fromLength( int length )
+    {
+        byte[] input = new byte[length];
+        Arrays.fill( input, (byte) 'A' );
+        return new ObjectWrapper( new Utf8ReadableHandle( new ArrayByteChannel( input ) ) );
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.apis.http.request;
+
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.core.apis.IAPIEnvironment;
+import dan200.computercraft.core.apis.ObjectWrapper;
+import dan200.computercraft.core.apis.http.ResourceGroup;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpResponseStreamTest
+{
+    private final List<String> events = new ArrayList<>();
+
+    private ResourceGroup<HttpRequest> group;
+    private HttpRequest request;
+    private EmbeddedChannel channel;
+    private HttpResponseStream stream;
+
+    @BeforeEach
+    public void before()
+    {
+        IAPIEnvironment environment = (IAPIEnvironment) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] { IAPIEnvironment.class },
+            ( proxy, method, args ) -> {
+                if( method.getName().equals( "queueEvent" ) ) events.add( (String) args[0] );
+                return null;
+            }
+        );
+
+        group = new ResourceGroup<>( () -> 1 );
+        group.startup();
+        request = new HttpRequest( group, environment, "http://example.com", null, new DefaultHttpHeaders(), true, true, true );
+        assertTrue( group.queue( request, () -> { } ) );
+
+        channel = new EmbeddedChannel();
+        stream = new HttpResponseStream( request, channel );
+    }
+
+    /**
+     * Reading should stop once the buffer is full, and resume once half of it has been read.
+     */
+    @Test
+    public void testPausesWhenFull()
+    {
+        stream.offer( Unpooled.wrappedBuffer( new byte[HttpResponseStream.MAX_BUFFER - 1] ) );
+        assertTrue( channel.config().isAutoRead() );
+
+        stream.offer( Unpooled.wrappedBuffer( new byte[1] ) );
+        assertFalse( channel.config().isAutoRead() );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals( HttpResponseStream.MAX_BUFFER / 2 - 1, stream.take( out, HttpResponseStream.MAX_BUFFER / 2 - 1 ) );
+        assertFalse( channel.config().isAutoRead() );
+
+        assertEquals( 1, stream.take( out, 1 ) );
+        assertTrue( channel.config().isAutoRead() );
+    }
+
+    @Test
+    public void testTakeLineAcrossChunks()
+    {
+        offer( "ab" );
+        offer( "c\r" );
+        offer( "\nde" );
+        offer( "f\n" );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue( stream.takeLine( out ) );
+        assertEquals( "abc\r\n", out.toString() );
+
+        out.reset();
+        assertTrue( stream.takeLine( out ) );
+        assertEquals( "def\n", out.toString() );
+
+        out.reset();
+        assertFalse( stream.takeLine( out ) );
+        assertEquals( 0, out.size() );
+    }
+
+    @Test
+    public void testReadLineStripsTerminator() throws LuaException
+    {
+        offer( "ab" );
+        offer( "c\r\nde" );
+        stream.finish();
+
+        ObjectWrapper wrapper = new ObjectWrapper( new HttpStreamHandle( request, stream ) );
+        assertArrayEquals( bytes( "abc" ), wrapper.callOf( "readLine" ) );
+        assertArrayEquals( bytes( "de" ), wrapper.callOf( "readLine" ) );
+        assertNull( wrapper.call( "readLine" ) );
+    }
+
+    /**
+     * Reading a fixed number of bytes should wait for all of them to arrive, rather than returning a short read.
+     */
+    @Test
+    public void testReadWaitsForCount() throws LuaException
+    {
+        offer( "ab" );
+
+        ObjectWrapper wrapper = new ObjectWrapper( new HttpStreamHandle( request, stream ) )
+        {
+            @Nonnull
+            @Override
+            public Object[] pullEvent( String filter )
+            {
+                assertEquals( HttpResponseStream.WAKE_EVENT, filter );
+                offer( "cd" );
+                stream.finish();
+                return new Object[] { filter };
+            }
+        };
+
+        assertArrayEquals( bytes( "abc" ), wrapper.callOf( "read", 3 ) );
+        assertArrayEquals( bytes( "d" ), wrapper.callOf( "read", 3 ) );
+    }
+
+    @Test
+    public void testReadShortAtEnd() throws LuaException
+    {
+        offer( "ab" );
+        stream.finish();
+
+        ObjectWrapper wrapper = new ObjectWrapper( new HttpStreamHandle( request, stream ) );
+        assertArrayEquals( bytes( "ab" ), wrapper.callOf( "read", 4 ) );
+        assertNull( wrapper.call( "read", 4 ) );
+    }
+
+    /**
+     * Data received before a failure can still be read, after which reading fails.
+     */
+    @Test
+    public void testFailAfterDrain() throws LuaException
+    {
+        offer( "abc" );
+        stream.fail( "Oh no" );
+        assertNull( stream.getError() );
+
+        ObjectWrapper wrapper = new ObjectWrapper( new HttpStreamHandle( request, stream ) );
+        assertArrayEquals( bytes( "abc" ), wrapper.callOf( "read", 5 ) );
+        assertEquals( "Oh no", stream.getError() );
+
+        LuaException error = assertThrows( LuaException.class, () -> wrapper.call( "read", 5 ) );
+        assertEquals( "Oh no", error.getMessage() );
+    }
+
+    @Test
+    public void testWakesWaitingReader()
+    {
+        assertTrue( stream.startWaiting() );
+        offer( "a" );
+        offer( "b" );
+
+        // Only one event should be queued, as the reader stops waiting once it is woken.
+        assertEquals( 1, events.size() );
+        assertEquals( HttpResponseStream.WAKE_EVENT, events.get( 0 ) );
+    }
+
+    /**
+     * Closing the handle should discard any buffered data and release the request.
+     */
+    @Test
+    public void testCloseReleasesRequest() throws LuaException
+    {
+        offer( "abc" );
+
+        ObjectWrapper wrapper = new ObjectWrapper( new HttpStreamHandle( request, stream ) );
+        wrapper.call( "close" );
+
+        assertTrue( request.isClosed() );
+        assertFalse( stream.hasData() );
+        assertEquals( "Stream closed", stream.getError() );
+
+        HttpRequest other = new HttpRequest( group, request.environment(), "http://example.com", null, new DefaultHttpHeaders(), true, true, true );
+        assertTrue( group.queue( other, () -> { } ), "Request should have been released" );
+    }
+
+    private void offer( String contents )
+    {
+        stream.offer( Unpooled.wrappedBuffer( bytes( contents ) ) );
+    }
+
+    private static byte[] bytes( String contents )
+    {
+        return contents.getBytes( StandardCharsets.UTF_8 );
+    }
+}
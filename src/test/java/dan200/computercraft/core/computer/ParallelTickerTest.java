@@ -0,0 +1,110 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.computer;
+
+import dan200.computercraft.ComputerCraft;
+import dan200.computercraft.core.terminal.Terminal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelTickerTest
+{
+    private int threads;
+
+    @BeforeEach
+    public void before()
+    {
+        threads = ComputerCraft.computerTickThreads;
+        ComputerCraft.computerTickThreads = 4;
+    }
+
+    @AfterEach
+    public void after()
+    {
+        ComputerCraft.computerTickThreads = threads;
+    }
+
+    /**
+     * Every item should be ticked exactly once, no matter how many items there are.
+     */
+    @Test
+    public void testTicksOnce()
+    {
+        for( int size : new int[] { 0, 1, ParallelTicker.PARALLEL_THRESHOLD - 1, ParallelTicker.PARALLEL_THRESHOLD, 1000, 4321 } )
+        {
+            List<AtomicInteger> items = new ArrayList<>( size );
+            for( int i = 0; i < size; i++ ) items.add( new AtomicInteger() );
+
+            for( int round = 0; round < 10; round++ ) ParallelTicker.tick( items, AtomicInteger::incrementAndGet );
+
+            for( int i = 0; i < size; i++ ) assertEquals( 10, items.get( i ).get(), "Item " + i + " of " + size );
+        }
+    }
+
+    /**
+     * Ticking many computers in parallel should give the same results as ticking them one at a time.
+     */
+    @Test
+    public void testMatchesSequential()
+    {
+        int count = 2000, ticks = 200;
+
+        List<Computer> sequential = new ArrayList<>( count ), parallel = new ArrayList<>( count );
+        for( int i = 0; i < count; i++ )
+        {
+            sequential.add( new Computer( new BasicEnvironment(), new Terminal( 51, 19 ), i ) );
+            parallel.add( new Computer( new BasicEnvironment(), new Terminal( 51, 19 ), i ) );
+        }
+
+        Random random = new Random( 0 );
+        for( int tick = 0; tick < ticks; tick++ )
+        {
+            // Apply the same changes to both sets of computers.
+            for( int i = 0; i < count; i++ )
+            {
+                if( random.nextInt( 4 ) != 0 ) continue;
+
+                ComputerSide side = ComputerSide.valueOf( random.nextInt( ComputerSide.COUNT ) );
+                int output = random.nextInt( 16 ), bundled = random.nextInt( 1 << 16 );
+                boolean blink = random.nextBoolean();
+                int x = random.nextInt( 60 ) - 5, y = random.nextInt( 25 ) - 3;
+
+                for( Computer computer : new Computer[] { sequential.get( i ), parallel.get( i ) } )
+                {
+                    computer.getEnvironment().setOutput( side, output );
+                    computer.getEnvironment().setBundledOutput( side, bundled );
+                    computer.getEnvironment().setRedstoneInput( side, output );
+                    computer.getEnvironment().getTerminal().setCursorBlink( blink );
+                    computer.getEnvironment().getTerminal().setCursorPos( x, y );
+                }
+            }
+
+            for( Computer computer : sequential ) computer.tick();
+            ParallelTicker.tick( parallel, Computer::tick );
+
+            boolean[] expected = new boolean[count * 2], actual = new boolean[count * 2];
+            for( int i = 0; i < count; i++ )
+            {
+                expected[i * 2] = sequential.get( i ).pollAndResetChanged();
+                expected[i * 2 + 1] = sequential.get( i ).isBlinking();
+                actual[i * 2] = parallel.get( i ).pollAndResetChanged();
+                actual[i * 2 + 1] = parallel.get( i ).isBlinking();
+            }
+
+            assertArrayEquals( expected, actual, "Tick " + tick );
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.computer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerWheelTest
+{
+    /**
+     * Ensures timers fire on exactly the requested tick, including those which must be cascaded down from the upper
+     * wheels.
+     */
+    @Test
+    public void testFiresOnTime()
+    {
+        TimerWheel wheel = new TimerWheel();
+        List<Long> fired = new ArrayList<>();
+        long[] now = { 0 };
+
+        long[] delays = { 0, 1, 2, 63, 64, 65, 4095, 4096, 4097, 300000 };
+        for( long delay : delays ) wheel.schedule( delay, () -> fired.add( now[0] ) );
+
+        for( int tick = 0; tick < 300000; tick++ )
+        {
+            now[0]++;
+            wheel.tick();
+        }
+
+        assertEquals( 0, wheel.size() );
+        assertEquals( delays.length, fired.size() );
+        for( int i = 0; i < delays.length; i++ ) assertEquals( Math.max( delays[i], 1 ), (long) fired.get( i ) );
+    }
+
+    @Test
+    public void testCancel()
+    {
+        TimerWheel wheel = new TimerWheel();
+        boolean[] fired = { false };
+
+        TimerWheel.Timer timer = wheel.schedule( 100, () -> fired[0] = true );
+        for( int tick = 0; tick < 50; tick++ ) wheel.tick();
+
+        assertTrue( timer.cancel() );
+        assertFalse( timer.cancel() );
+        assertEquals( 0, wheel.size() );
+
+        for( int tick = 0; tick < 100; tick++ ) wheel.tick();
+        assertFalse( fired[0] );
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.filesystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileMountTest
+{
+    private static final File ROOT = new File( "test-files/file-mount" );
+    private static final long CAPACITY = 1000000;
+
+    /**
+     * Ensures a new mount picks up the used space saved by a previous one.
+     */
+    @Test
+    public void testUsesIndex() throws IOException
+    {
+        FileMount mount = createMount();
+        write( mount, "data.txt", 2000 );
+        mount.saveIndex();
+        assertTrue( mount.getIndexFile().isFile(), "Index should have been saved" );
+
+        FileMount other = new FileMount( ROOT, CAPACITY );
+        assertEquals( mount.getRemainingSpace(), other.getRemainingSpace() );
+    }
+
+    /**
+     * Ensures an incorrect index is corrected by a reconciliation scan.
+     */
+    @Test
+    public void testReconcilesIndex() throws IOException
+    {
+        FileMount mount = createMount();
+        write( mount, "data.txt", 2000 );
+        long expected = mount.getRemainingSpace();
+        mount.saveIndex();
+
+        Files.write( mount.getIndexFile().toPath(), "123456".getBytes( StandardCharsets.UTF_8 ) );
+
+        FileMount other = new FileMount( ROOT, CAPACITY );
+        other.reconcile();
+        assertEquals( expected, other.getRemainingSpace() );
+    }
+
+    /**
+     * Ensures a mount which had no index saves one after measuring the directory.
+     */
+    @Test
+    public void testSavesInitialMeasurement() throws IOException
+    {
+        FileMount mount = createMount();
+        write( mount, "data.txt", 2000 );
+        mount.saveIndex();
+        Files.delete( mount.getIndexFile().toPath() );
+
+        FileMount other = new FileMount( ROOT, CAPACITY );
+        assertTrue( other.getIndexFile().isFile(), "Index should have been saved" );
+        assertEquals( mount.getRemainingSpace(), new FileMount( ROOT, CAPACITY ).getRemainingSpace() );
+    }
+
+    /**
+     * Ensures a new mount flushes a previous mount's pending save, rather than reading a stale index.
+     */
+    @Test
+    public void testFlushesPendingSave() throws IOException
+    {
+        FileMount mount = createMount();
+        write( mount, "data.txt", 2000 );
+        mount.saveIndex();
+
+        // This write schedules a save, which has not happened yet.
+        write( mount, "other.txt", 3000 );
+
+        FileMount other = new FileMount( ROOT, CAPACITY );
+        assertEquals( mount.getRemainingSpace(), other.getRemainingSpace() );
+    }
+
+    private static FileMount createMount() throws IOException
+    {
+        if( ROOT.exists() )
+        {
+            File[] files = ROOT.listFiles();
+            if( files != null ) for( File file : files ) Files.delete( file.toPath() );
+            Files.delete( ROOT.toPath() );
+        }
+
+        FileMount mount = new FileMount( ROOT, CAPACITY );
+        Files.deleteIfExists( mount.getIndexFile().toPath() );
+        return mount;
+    }
+
+    private static void write( FileMount mount, String path, int size ) throws IOException
+    {
+        try( WritableByteChannel channel = mount.openChannelForWrite( path ) )
+        {
+            channel.write( ByteBuffer.allocate( size ) );
+        }
+    }
+}
@@ -17,8 +17,11 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class FileSystemTest
 {
@@ -51,4 +54,211 @@ public class FileSystemTest
 
         assertEquals( "Tiny line", Files.toString( new File( ROOT, "out.txt" ), StandardCharsets.UTF_8 ) );
     }
+
+    @Test
+    public void testNestedMounts() throws FileSystemException
+    {
+        FileSystem fs = createFileSystem();
+
+        assertEquals( "hdd", fs.getMountLabel( "startup.lua" ) );
+        assertEquals( "rom", fs.getMountLabel( "rom" ) );
+        assertEquals( "rom", fs.getMountLabel( "rom/programs/ls.lua" ) );
+        assertEquals( "extra", fs.getMountLabel( "rom/programs/extra" ) );
+        assertEquals( "extra", fs.getMountLabel( "rom/programs/extra/hello.lua" ) );
+
+        // Only whole path segments select a mount.
+        assertEquals( "rom", fs.getMountLabel( "rom/programs/extras" ) );
+        assertEquals( "hdd", fs.getMountLabel( "romx" ) );
+
+        assertTrue( fs.isDir( "rom/programs/extra" ) );
+        assertTrue( fs.exists( "rom/programs/extra/hello.lua" ) );
+        assertFalse( fs.exists( "rom/programs/hello.lua" ) );
+    }
+
+    @Test
+    public void testOverlappingMounts() throws FileSystemException
+    {
+        FileSystem fs = createFileSystem();
+
+        // Mounting at the same location replaces the existing mount.
+        fs.mount( "other", "disk", new MemoryMount().addFile( "other.lua", "" ) );
+        assertEquals( "other", fs.getMountLabel( "disk/other.lua" ) );
+        assertFalse( fs.exists( "disk/x.lua" ) );
+
+        // A mount inside another takes priority over it.
+        fs.mount( "apis", "rom/apis", new MemoryMount().addFile( "keys.lua", "" ) );
+        assertArrayEquals( new String[] { "keys.lua" }, fs.list( "rom/apis" ) );
+        assertFalse( fs.exists( "rom/apis/colors.lua" ) );
+        assertEquals( "rom", fs.getMountLabel( "rom/programs/ls.lua" ) );
+    }
+
+    @Test
+    public void testMountShadowsDirectory() throws FileSystemException
+    {
+        MemoryMount root = new MemoryMount()
+            .addFile( "data/a.txt", "" )
+            .addFile( "data/nested/b.txt", "" );
+        FileSystem fs = new FileSystem( "hdd", root );
+        fs.mount( "data", "data", new MemoryMount().addFile( "c.txt", "" ) );
+
+        assertArrayEquals( new String[] { "c.txt" }, fs.list( "data" ) );
+        assertFalse( fs.exists( "data/a.txt" ) );
+        assertFalse( fs.isDir( "data/nested" ) );
+        assertTrue( fs.exists( "data/c.txt" ) );
+        assertTrue( fs.isReadOnly( "data/c.txt" ) );
+
+        // Unmounting reveals the original directory again.
+        fs.unmount( "data" );
+        assertArrayEquals( new String[] { "a.txt", "nested" }, fs.list( "data" ) );
+    }
+
+    @Test
+    public void testListIncludesMounts() throws FileSystemException
+    {
+        FileSystem fs = createFileSystem();
+
+        assertArrayEquals( new String[] { "data", "disk", "rom", "startup.lua" }, fs.list( "" ) );
+        assertArrayEquals( new String[] { "apis", "programs", "startup.lua" }, fs.list( "rom" ) );
+        assertArrayEquals( new String[] { "extra", "ls.lua" }, fs.list( "rom/programs" ) );
+        assertArrayEquals( new String[] { "hello.lua" }, fs.list( "rom/programs/extra" ) );
+    }
+
+    @Test
+    public void testUnmountParentKeepsChildren() throws FileSystemException
+    {
+        FileSystem fs = createFileSystem();
+        fs.unmount( "rom" );
+
+        assertFalse( fs.exists( "rom/programs/ls.lua" ) );
+        assertEquals( "hdd", fs.getMountLabel( "rom/programs" ) );
+
+        assertEquals( "extra", fs.getMountLabel( "rom/programs/extra/hello.lua" ) );
+        assertTrue( fs.exists( "rom/programs/extra/hello.lua" ) );
+        assertArrayEquals( new String[] { "hello.lua" }, fs.list( "rom/programs/extra" ) );
+    }
+
+    @Test
+    public void testFindLiteralSegments() throws FileSystemException
+    {
+        FileSystem fs = createFileSystem();
+
+        assertArrayEquals( new String[] { "rom/programs/ls.lua" }, fs.find( "rom/programs/ls.lua" ) );
+        assertArrayEquals( new String[] { "rom/programs/ls.lua" }, fs.find( "rom/*/ls.lua" ) );
+        assertArrayEquals( new String[] { "rom/apis/turtle/turtle.lua" }, fs.find( "*/apis/*/turtle.lua" ) );
+        assertArrayEquals( new String[0], fs.find( "rom/*/missing.lua" ) );
+        assertArrayEquals( new String[0], fs.find( "missing/*" ) );
+
+        assertFindMatches( fs,
+            "rom/programs/ls.lua", "rom/*/ls.lua", "*/programs/ls.lua", "*/apis/*/turtle.lua", "rom/*/missing.lua",
+            "missing/*", "startup.lua/*", "rom/programs/extra/hello.lua"
+        );
+    }
+
+    @Test
+    public void testFindAcrossMounts() throws FileSystemException
+    {
+        FileSystem fs = createFileSystem();
+
+        assertArrayEquals( new String[] { "data", "disk", "rom", "startup.lua" }, fs.find( "*" ) );
+        assertArrayEquals( new String[] { "rom/apis/turtle/turtle.lua", "rom/programs/extra/hello.lua" }, fs.find( "rom/*/*/*" ) );
+        assertArrayEquals( new String[] { "data/b.lua", "disk/x.lua", "rom/startup.lua" }, fs.find( "*/*.lua" ) );
+
+        assertFindMatches( fs,
+            "*", "*/*", "*/*/*", "*/*/*/*", "*/*.lua", "rom/*/*", "rom/programs/*", "rom/programs/*/*",
+            "rom/programs/e*/h*.lua", "d*/*", "*/*/*.lua"
+        );
+    }
+
+    /**
+     * {@code ?} is not a wildcard, and is removed from paths like any other illegal character.
+     */
+    @Test
+    public void testFindQuestionMarks() throws FileSystemException
+    {
+        FileSystem fs = createFileSystem();
+
+        assertArrayEquals( new String[] { "startup.lua" }, fs.find( "s?tartup*" ) );
+        assertArrayEquals( fs.find( "rom/*/*.lua" ), fs.find( "rom/?*/*?.lua" ) );
+        assertArrayEquals( fs.find( "rom/*" ), fs.find( "rom/?/*" ) );
+
+        assertFindMatches( fs, "s?tartup*", "rom/?*/*?.lua", "?*", "d?*/*/*", "rom/?/*" );
+    }
+
+    @Test
+    public void testFindOrder() throws FileSystemException
+    {
+        FileSystem fs = createFileSystem();
+
+        assertArrayEquals(
+            new String[] { "data/a.txt", "data/b.lua", "data/sub", "disk/x.lua", "rom/apis", "rom/programs", "rom/startup.lua" },
+            fs.find( "*/*" )
+        );
+        assertArrayEquals(
+            new String[] { "data/sub/c.lua", "rom/apis/colors.lua", "rom/apis/turtle", "rom/programs/extra", "rom/programs/ls.lua" },
+            fs.find( "*/*/*" )
+        );
+
+        assertFindMatches( fs, "*/*", "*/*/*", "*/*/*/*" );
+    }
+
+    /**
+     * Check {@link FileSystem#find(String)} returns the same results, in the same order, as the original
+     * implementation did.
+     */
+    private static void assertFindMatches( FileSystem fs, String... patterns ) throws FileSystemException
+    {
+        for( String pattern : patterns ) assertArrayEquals( findOriginal( fs, pattern ), fs.find( pattern ), pattern );
+    }
+
+    /**
+     * The original implementation of {@link FileSystem#find(String)}, which converts the pattern to a regular
+     * expression and tests it against every file below the first wildcard.
+     */
+    private static String[] findOriginal( FileSystem fs, String wildPath ) throws FileSystemException
+    {
+        wildPath = fs.combine( "", wildPath );
+
+        int starIndex = wildPath.indexOf( '*' );
+        if( starIndex == -1 ) return fs.exists( wildPath ) ? new String[] { wildPath } : new String[0];
+
+        int prevDir = wildPath.substring( 0, starIndex ).lastIndexOf( '/' );
+        String startDir = prevDir == -1 ? "" : wildPath.substring( 0, prevDir );
+        if( !fs.isDir( startDir ) ) return new String[0];
+
+        Pattern wildPattern = Pattern.compile( "^\\Q" + wildPath.replaceAll( "\\*", "\\\\E[^\\\\/]*\\\\Q" ) + "\\E$" );
+        List<String> matches = new ArrayList<>();
+        findOriginalIn( fs, startDir, matches, wildPattern );
+        return matches.toArray( new String[0] );
+    }
+
+    private static void findOriginalIn( FileSystem fs, String dir, List<String> matches, Pattern wildPattern ) throws FileSystemException
+    {
+        for( String entry : fs.list( dir ) )
+        {
+            String entryPath = dir.isEmpty() ? entry : dir + "/" + entry;
+            if( wildPattern.matcher( entryPath ).matches() ) matches.add( entryPath );
+            if( fs.isDir( entryPath ) ) findOriginalIn( fs, entryPath, matches, wildPattern );
+        }
+    }
+
+    /**
+     * Create a file system with several mounts, some nested within each other.
+     */
+    private static FileSystem createFileSystem() throws FileSystemException
+    {
+        FileSystem fs = new FileSystem( "hdd", new MemoryMount()
+            .addFile( "startup.lua", "" )
+            .addFile( "data/a.txt", "" )
+            .addFile( "data/b.lua", "" )
+            .addFile( "data/sub/c.lua", "" ) );
+
+        fs.mount( "rom", "rom", new MemoryMount()
+            .addFile( "startup.lua", "" )
+            .addFile( "apis/colors.lua", "" )
+            .addFile( "apis/turtle/turtle.lua", "" )
+            .addFile( "programs/ls.lua", "" ) );
+        fs.mount( "extra", "rom/programs/extra", new MemoryMount().addFile( "hello.lua", "" ) );
+        fs.mount( "disk", "disk", new MemoryMount().addFile( "x.lua", "" ) );
+        return fs;
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.filesystem;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GlobPatternTest
+{
+    @Test
+    public void testMatches()
+    {
+        assertTrue( new GlobPattern( "*" ).matches( "" ) );
+        assertTrue( new GlobPattern( "*" ).matches( "startup.lua" ) );
+        assertTrue( new GlobPattern( "startup*" ).matches( "startup" ) );
+        assertTrue( new GlobPattern( "startup*" ).matches( "startup.lua" ) );
+        assertTrue( new GlobPattern( "*.lua" ).matches( "startup.lua" ) );
+        assertTrue( new GlobPattern( "*a*b*" ).matches( "xaxbx" ) );
+        assertTrue( new GlobPattern( "a*a" ).matches( "aa" ) );
+        assertTrue( new GlobPattern( "a**b" ).matches( "ab" ) );
+    }
+
+    @Test
+    public void testDoesNotMatch()
+    {
+        assertFalse( new GlobPattern( "startup*" ).matches( "start" ) );
+        assertFalse( new GlobPattern( "*.lua" ).matches( "startup.luac" ) );
+        assertFalse( new GlobPattern( "*a*b*" ).matches( "xbxax" ) );
+        assertFalse( new GlobPattern( "a*a" ).matches( "a" ) );
+        assertFalse( new GlobPattern( "a*ba*a" ).matches( "aba" ) );
+    }
+}
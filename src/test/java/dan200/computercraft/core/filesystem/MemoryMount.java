@@ -118,10 +118,17 @@ public class MemoryMount implements IWritableMount
     @Override
     public void list( @Nonnull String path, @Nonnull List<String> files )
     {
-        for( String file : this.files.keySet() )
-        {
-            if( file.startsWith( path ) ) files.add( file.substring( path.length() + 1 ) );
-        }
+        String prefix = path.isEmpty() ? "" : path + "/";
+        for( String file : this.files.keySet() ) addChild( prefix, file, files );
+        for( String directory : directories ) addChild( prefix, directory, files );
+    }
+
+    private static void addChild( String prefix, String path, List<String> files )
+    {
+        if( path.length() <= prefix.length() || !path.startsWith( prefix ) ) return;
+
+        String name = path.substring( prefix.length() );
+        if( name.indexOf( '/' ) < 0 ) files.add( name );
     }
 
     @Override
@@ -140,6 +147,9 @@ public class MemoryMount implements IWritableMount
 
     public MemoryMount addFile( String file, String contents )
     {
+        String parent = new File( file ).getParent();
+        if( parent != null ) makeDirectory( parent );
+
         files.put( file, contents.getBytes() );
         return this;
     }
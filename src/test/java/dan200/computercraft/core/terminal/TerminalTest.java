@@ -0,0 +1,146 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.terminal;
+
+import net.minecraft.nbt.CompoundTag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TerminalTest
+{
+    @Test
+    public void testWrite()
+    {
+        Terminal terminal = new Terminal( 5, 2 );
+        terminal.setTextColour( 1 );
+        terminal.setBackgroundColour( 2 );
+        terminal.setCursorPos( 3, 1 );
+        terminal.write( "Hello" );
+
+        assertLines( terminal, "     ", "   He" );
+        assertEquals( "00011", terminal.getTextColourLine( 1 ).toString() );
+        assertEquals( "fff22", terminal.getBackgroundColourLine( 1 ).toString() );
+    }
+
+    @Test
+    public void testBlit()
+    {
+        Terminal terminal = new Terminal( 5, 1 );
+        terminal.setCursorPos( 1, 0 );
+        terminal.blit( "abc", "e?1", "0 a" );
+
+        assertLines( terminal, " abc " );
+        assertEquals( "0e010", terminal.getTextColourLine( 0 ).toString() );
+        assertEquals( "f0faf", terminal.getBackgroundColourLine( 0 ).toString() );
+    }
+
+    @Test
+    public void testScroll()
+    {
+        Terminal terminal = create( "a", "b", "c", "d" );
+
+        terminal.setBackgroundColour( 1 );
+        terminal.scroll( 1 );
+        assertLines( terminal, "b", "c", "d", " " );
+        assertEquals( "1", terminal.getBackgroundColourLine( 3 ).toString() );
+        assertEquals( "f", terminal.getBackgroundColourLine( 2 ).toString() );
+
+        terminal.scroll( -2 );
+        assertLines( terminal, " ", " ", "b", "c" );
+
+        terminal.scroll( 3 );
+        assertLines( terminal, "c", " ", " ", " " );
+
+        terminal.scroll( 10 );
+        assertLines( terminal, " ", " ", " ", " " );
+    }
+
+    @Test
+    public void testScrollThenWrite()
+    {
+        Terminal terminal = create( "a", "b", "c" );
+        for( int i = 0; i < 5; i++ )
+        {
+            terminal.scroll( 1 );
+            terminal.setCursorPos( 0, 2 );
+            terminal.write( Integer.toString( i ) );
+        }
+
+        assertLines( terminal, "2", "3", "4" );
+    }
+
+    @Test
+    public void testResize()
+    {
+        Terminal terminal = create( "ab", "cd", "ef" );
+        terminal.scroll( 1 );
+
+        terminal.resize( 3, 2 );
+        assertLines( terminal, "cd ", "ef " );
+
+        terminal.resize( 1, 3 );
+        assertLines( terminal, "c", "e", " " );
+    }
+
+    @Test
+    public void testRows()
+    {
+        Terminal terminal = create( "ab", "cd" );
+        terminal.scroll( 1 );
+
+        byte[] text = new byte[2];
+        byte[] colours = new byte[2];
+        terminal.readRow( 0, text, colours, 0 );
+        assertEquals( 'c', text[0] );
+        assertEquals( 0x0f, colours[0] );
+
+        terminal.writeRow( 1, new byte[] { 'x', 'y' }, new byte[] { 0x12, 0x34 }, 0, 2 );
+        assertLines( terminal, "cd", "xy" );
+        assertEquals( "13", terminal.getTextColourLine( 1 ).toString() );
+        assertEquals( "24", terminal.getBackgroundColourLine( 1 ).toString() );
+    }
+
+    @Test
+    public void testNBT()
+    {
+        Terminal terminal = create( "ab", "cd" );
+        terminal.scroll( 1 );
+        terminal.setCursorPos( 0, 1 );
+        terminal.blit( "xy", "12", "34" );
+
+        Terminal other = new Terminal( 2, 2 );
+        other.readFromNBT( terminal.writeToNBT( new CompoundTag() ) );
+        assertLines( other, "cd", "xy" );
+        assertEquals( "12", other.getTextColourLine( 1 ).toString() );
+        assertEquals( "34", other.getBackgroundColourLine( 1 ).toString() );
+    }
+
+    @Test
+    public void testLinesAreReadOnly()
+    {
+        Terminal terminal = new Terminal( 2, 2 );
+        assertThrows( UnsupportedOperationException.class, () -> terminal.getLine( 0 ).write( "x" ) );
+    }
+
+    private static Terminal create( String... lines )
+    {
+        Terminal terminal = new Terminal( lines[0].length(), lines.length );
+        for( int y = 0; y < lines.length; y++ )
+        {
+            terminal.setCursorPos( 0, y );
+            terminal.write( lines[y] );
+        }
+        return terminal;
+    }
+
+    private static void assertLines( Terminal terminal, String... lines )
+    {
+        assertEquals( lines.length, terminal.getHeight() );
+        for( int y = 0; y < lines.length; y++ ) assertEquals( lines[y], terminal.getLine( y ).toString(), "Line " + (y + 1) );
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.tracking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest
+{
+    /**
+     * Every value should fall within its bucket, and buckets should be contiguous.
+     */
+    @Test
+    public void testBucketBounds()
+    {
+        for( int i = 1; i < Histogram.BUCKETS; i++ )
+        {
+            long lower = Histogram.upperBound( i - 1 ) + 1;
+            assertEquals( i, Histogram.bucket( lower ), "Lower bound of bucket " + i );
+            assertEquals( i - 1, Histogram.bucket( lower - 1 ), "Upper bound of bucket " + (i - 1) );
+        }
+
+        assertEquals( 0, Histogram.bucket( 0 ) );
+        assertEquals( 0, Histogram.bucket( -1 ) );
+        assertEquals( Histogram.BUCKETS - 1, Histogram.bucket( Histogram.MAX_VALUE ) );
+        assertEquals( Histogram.BUCKETS - 1, Histogram.bucket( Long.MAX_VALUE ) );
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        Histogram histogram = new Histogram();
+        assertEquals( 0, histogram.getCount() );
+        assertEquals( 0, histogram.getMax() );
+        assertEquals( 0, histogram.getPercentile( 50 ) );
+    }
+
+    /**
+     * Percentiles should never be below the real value, and at most 12.5% above it.
+     */
+    @Test
+    public void testPercentileAccuracy()
+    {
+        Random random = new Random( 0 );
+        long[] values = new long[10_000];
+        Histogram histogram = new Histogram();
+        for( int i = 0; i < values.length; i++ )
+        {
+            // Spread values between 10us and 1s, with most of them at the lower end.
+            values[i] = (long) Math.pow( 10, 4 + random.nextDouble() * 5 );
+            histogram.record( values[i] );
+        }
+        Arrays.sort( values );
+
+        assertEquals( values.length, histogram.getCount() );
+        assertEquals( values[values.length - 1], histogram.getMax() );
+
+        for( double percentile : new double[] { 1, 50, 90, 95, 99, 99.9 } )
+        {
+            long expected = values[(int) Math.ceil( values.length * percentile / 100 ) - 1];
+            long actual = histogram.getPercentile( percentile );
+            assertTrue( actual >= expected, "p" + percentile + ": " + actual + " < " + expected );
+            assertTrue( actual <= expected * 1.125 + Histogram.RESOLUTION, "p" + percentile + ": " + actual + " >> " + expected );
+        }
+
+        assertEquals( histogram.getMax(), histogram.getPercentile( 100 ) );
+    }
+
+    /**
+     * A few large outliers should show up in the tail, without affecting the median.
+     */
+    @Test
+    public void testOutliers()
+    {
+        Histogram histogram = new Histogram();
+        for( int i = 0; i < 990; i++ ) histogram.record( 5_000_000 );
+        for( int i = 0; i < 10; i++ ) histogram.record( 40_000_000 );
+
+        assertTrue( histogram.getPercentile( 50 ) >= 5_000_000 && histogram.getPercentile( 50 ) < 5_700_000 );
+        assertTrue( histogram.getPercentile( 95 ) < 5_700_000 );
+        assertEquals( 40_000_000, histogram.getPercentile( 99.5 ) );
+        assertEquals( 40_000_000, histogram.getMax() );
+    }
+
+    @Test
+    public void testAdd()
+    {
+        Histogram first = new Histogram(), second = new Histogram(), combined = new Histogram();
+        for( int i = 0; i < 100; i++ )
+        {
+            first.record( i * 100_000L );
+            second.record( i * 300_000L );
+            combined.record( i * 100_000L );
+            combined.record( i * 300_000L );
+        }
+
+        first.add( second );
+        first.add( new Histogram() );
+        assertEquals( combined.getCount(), first.getCount() );
+        assertEquals( combined.getMax(), first.getMax() );
+        for( double percentile : new double[] { 10, 50, 99 } )
+        {
+            assertEquals( combined.getPercentile( percentile ), first.getPercentile( percentile ) );
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.tracking;
+
+import dan200.computercraft.core.computer.BasicEnvironment;
+import dan200.computercraft.core.computer.Computer;
+import dan200.computercraft.core.terminal.Terminal;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsExporterTest
+{
+    @Test
+    public void testWritesComputers()
+    {
+        ComputerTracker first = new ComputerTracker( createComputer( 3 ) );
+        first.addTaskTiming( 1_500_000_000L );
+        first.addTaskTiming( 500_000_000L );
+        first.addValue( TrackingField.FS_OPS, 4 );
+
+        ComputerTracker second = new ComputerTracker( createComputer( 1 ) );
+        second.addMainTiming( 250_000_000L );
+
+        String metrics = write( Arrays.asList( first, second ) );
+
+        assertTrue( metrics.contains( "# TYPE computercraft_computer_tasks_total counter\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_tasks_total{computer=\"1\"} 0\ncomputercraft_computer_tasks_total{computer=\"3\"} 2\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_task_seconds_total{computer=\"3\"} 2.0\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_task_max_seconds{computer=\"3\"} 1.5\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_server_seconds_total{computer=\"1\"} 0.25\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_fs_total{computer=\"3\"} 4\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_coroutines_created_total{computer=\"1\"} 0\n" ), metrics );
+
+        assertTrue( metrics.contains( "computercraft_computer_task_latency_seconds{computer=\"3\",quantile=\"1\"} 1.5\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_task_latency_seconds{computer=\"3\",quantile=\"0.5\"} " ), metrics );
+        assertFalse( metrics.contains( "computercraft_computer_task_latency_seconds{computer=\"1\"" ), metrics );
+
+        // Histograms are exported as summaries, with a sum and count.
+        assertTrue( metrics.contains( "# TYPE computercraft_computer_task_latency_seconds summary\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_task_latency_seconds_sum{computer=\"3\"} 2.0\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_task_latency_seconds_count{computer=\"3\"} 2\n" ), metrics );
+
+        // Derived fields are not exported as counters.
+        assertFalse( metrics.contains( "average" ), metrics );
+        assertFalse( metrics.contains( "p50" ), metrics );
+    }
+
+    /**
+     * Each series may only appear once, so trackers for the same computer should be merged.
+     */
+    @Test
+    public void testMergesSameComputer()
+    {
+        ComputerTracker first = new ComputerTracker( createComputer( 2 ) );
+        first.addTaskTiming( 10 );
+        first.addValue( TrackingField.FS_OPS, 1 );
+
+        ComputerTracker second = new ComputerTracker( createComputer( 2 ) );
+        second.addTaskTiming( 30 );
+        second.addValue( TrackingField.FS_OPS, 2 );
+
+        String metrics = write( Arrays.asList( first, second ) );
+
+        assertTrue( metrics.contains( "computercraft_computer_tasks_total{computer=\"2\"} 2\n" ), metrics );
+        assertTrue( metrics.contains( "computercraft_computer_fs_total{computer=\"2\"} 3\n" ), metrics );
+        assertFalse( metrics.contains( "computercraft_computer_fs_total{computer=\"2\"} 1\n" ), metrics );
+    }
+
+    /**
+     * Totals are kept across exports, even once the original trackers are gone.
+     */
+    @Test
+    public void testKeepsTotals()
+    {
+        SortedMap<Integer, ComputerTracker> computers = new TreeMap<>();
+
+        ComputerTracker first = new ComputerTracker( createComputer( 2 ) );
+        first.addTaskTiming( 10 );
+        MetricsExporter.mergeComputers( computers, Collections.singletonList( first ) );
+
+        ComputerTracker second = new ComputerTracker( createComputer( 2 ) );
+        second.addTaskTiming( 30 );
+        MetricsExporter.mergeComputers( computers, Collections.singletonList( second ) );
+
+        assertEquals( 1, computers.size() );
+        assertEquals( 2, computers.get( 2 ).getTasks() );
+        assertEquals( 1, first.getTasks(), "Trackers should not be modified" );
+    }
+
+    private static String write( List<ComputerTracker> timings )
+    {
+        SortedMap<Integer, ComputerTracker> computers = new TreeMap<>();
+        MetricsExporter.mergeComputers( computers, timings );
+
+        StringBuilder out = new StringBuilder();
+        MetricsExporter.writeComputers( out, computers );
+        return out.toString();
+    }
+
+    private static Computer createComputer( int id )
+    {
+        return new Computer( new BasicEnvironment(), new Terminal( 51, 19 ), id );
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.core.tracking;
+
+import dan200.computercraft.core.computer.BasicEnvironment;
+import dan200.computercraft.core.computer.Computer;
+import dan200.computercraft.core.terminal.Terminal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TrackingTest
+{
+    @AfterEach
+    public void tearDown()
+    {
+        Tracking.reset();
+    }
+
+    @Test
+    public void testRecordsValues()
+    {
+        Computer computer = createComputer( 1 );
+        TrackingContext context = Tracking.getContext( UUID.randomUUID() );
+        context.start();
+
+        Tracking.addTaskTiming( computer, 10 );
+        Tracking.addTaskTiming( computer, 30 );
+        Tracking.addServerTiming( computer, 5 );
+        Tracking.addValue( computer, TrackingField.FS_OPS, 3 );
+
+        List<ComputerTracker> timings = context.getImmutableTimings();
+        assertEquals( 1, timings.size() );
+
+        ComputerTracker timing = timings.get( 0 );
+        assertEquals( 2, timing.getTasks() );
+        assertEquals( 40, timing.getTotalTime() );
+        assertEquals( 30, timing.getMaxTime() );
+        assertEquals( 1, timing.get( TrackingField.SERVER_COUNT ) );
+        assertEquals( 5, timing.get( TrackingField.SERVER_TIME ) );
+        assertEquals( 3, timing.get( TrackingField.FS_OPS ) );
+
+        // Values published by an earlier read are not counted twice.
+        Tracking.addTaskTiming( computer, 20 );
+        timing = context.getImmutableTimings().get( 0 );
+        assertEquals( 3, timing.getTasks() );
+        assertEquals( 60, timing.getTotalTime() );
+        assertEquals( 30, timing.getMaxTime() );
+        assertEquals( 3, timing.get( TrackingField.FS_OPS ) );
+    }
+
+    @Test
+    public void testRecordsHistograms()
+    {
+        Computer computer = createComputer( 1 );
+        TrackingContext context = Tracking.getContext( UUID.randomUUID() );
+        context.start();
+
+        for( int i = 0; i < 99; i++ ) Tracking.addTaskTiming( computer, 1_000_000 );
+        Tracking.addTaskTiming( computer, 40_000_000 );
+        Tracking.addQueueTiming( computer, 2_000_000 );
+        context.getImmutableTimings();
+
+        // Histograms are published incrementally, like any other value.
+        Tracking.addQueueTiming( computer, 8_000_000 );
+
+        ComputerTracker timing = context.getImmutableTimings().get( 0 );
+        assertEquals( 100, timing.getTaskTimes().getCount() );
+        assertTrue( timing.get( TrackingField.TASK_P50 ) >= 1_000_000 && timing.get( TrackingField.TASK_P50 ) < 1_125_000 );
+        assertTrue( timing.get( TrackingField.TASK_P95 ) < 1_125_000 );
+        assertEquals( 40_000_000, timing.getTaskTimes().getMax() );
+        assertEquals( 139_000_000, timing.getTaskTimes().getSum() );
+
+        assertEquals( 2, timing.getQueueTimes().getCount() );
+        assertEquals( 10_000_000, timing.getQueueTimes().getSum() );
+        assertEquals( 8_000_000, timing.get( TrackingField.QUEUE_MAX ) );
+        assertEquals( 0, timing.getServerTimes().getCount() );
+        assertEquals( 0, timing.get( TrackingField.SERVER_P99 ) );
+    }
+
+    /**
+     * Values recorded before a context was started should not be included in it, even if they had not been published
+     * yet.
+     */
+    @Test
+    public void testStartExcludesEarlierValues()
+    {
+        Computer computer = createComputer( 1 );
+        TrackingContext first = Tracking.getContext( UUID.randomUUID() );
+        first.start();
+
+        Tracking.addValue( computer, TrackingField.FS_OPS, 5 );
+
+        TrackingContext second = Tracking.getContext( UUID.randomUUID() );
+        second.start();
+        Tracking.addValue( computer, TrackingField.FS_OPS, 2 );
+
+        assertEquals( 7, first.getImmutableTimings().get( 0 ).get( TrackingField.FS_OPS ) );
+        assertEquals( 2, second.getImmutableTimings().get( 0 ).get( TrackingField.FS_OPS ) );
+    }
+
+    /**
+     * Draining a context should hand over its trackers and start afresh, so it does not keep every computer it has
+     * ever seen.
+     */
+    @Test
+    public void testDrainForgetsTrackers()
+    {
+        Computer computer = createComputer( 1 );
+        TrackingContext context = Tracking.getContext( UUID.randomUUID() );
+        context.start();
+
+        Tracking.addTaskTiming( computer, 10 );
+        List<ComputerTracker> timings = context.drainTimings();
+        assertEquals( 1, timings.size() );
+        assertEquals( 1, timings.get( 0 ).getTasks() );
+
+        assertEquals( 0, context.drainTimings().size() );
+        assertEquals( 0, context.getImmutableTimings().size() );
+
+        // New values go to a new tracker, rather than the drained one.
+        Tracking.addTaskTiming( computer, 20 );
+        assertEquals( 1, context.drainTimings().get( 0 ).getTasks() );
+        assertEquals( 1, timings.get( 0 ).getTasks() );
+    }
+
+    /**
+     * Record values from several threads while publishing, and ensure none are lost.
+     */
+    @Test
+    public void testConcurrentRecording() throws InterruptedException
+    {
+        int threadCount = 4, iterations = 100_000;
+
+        Computer[] computers = new Computer[] { createComputer( 1 ), createComputer( 2 ) };
+        TrackingContext context = Tracking.getContext( UUID.randomUUID() );
+        context.start();
+
+        Thread[] threads = new Thread[threadCount];
+        for( int i = 0; i < threadCount; i++ )
+        {
+            Computer computer = computers[i % computers.length];
+            threads[i] = new Thread( () -> {
+                for( int j = 0; j < iterations; j++ )
+                {
+                    Tracking.addTaskTiming( computer, 1 );
+                    Tracking.addQueueTiming( computer, 1 );
+                    Tracking.addValue( computer, TrackingField.FS_OPS, 1 );
+                }
+            } );
+            threads[i].start();
+        }
+
+        boolean running = true;
+        while( running )
+        {
+            Tracking.publish();
+
+            running = false;
+            for( Thread thread : threads ) running |= thread.isAlive();
+        }
+        for( Thread thread : threads ) thread.join();
+
+        List<ComputerTracker> timings = context.getImmutableTimings();
+        assertEquals( computers.length, timings.size() );
+
+        long tasks = 0;
+        for( ComputerTracker timing : timings )
+        {
+            assertEquals( timing.getTasks(), timing.getTotalTime() );
+            assertEquals( timing.getTasks(), timing.get( TrackingField.FS_OPS ) );
+            assertEquals( timing.getTasks(), timing.getTaskTimes().getCount() );
+            assertEquals( timing.getTasks(), timing.getQueueTimes().getCount() );
+            assertTrue( timing.getMaxTime() <= 1 );
+            tasks += timing.getTasks();
+        }
+        assertEquals( (long) threadCount * iterations, tasks );
+    }
+
+    private static Computer createComputer( int id )
+    {
+        return new Computer( new BasicEnvironment(), new Terminal( 51, 19 ), id );
+    }
+}
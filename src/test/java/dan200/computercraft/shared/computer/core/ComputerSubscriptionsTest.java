@@ -0,0 +1,109 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.shared.computer.core;
+
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ComputerSubscriptionsTest
+{
+    @Test
+    public void testFirstUpdateSendsToEveryone()
+    {
+        List<String> recipients = new ArrayList<>();
+        Set<String> subscribed = ComputerSubscriptions.subscribe(
+            null, Sets.newHashSet( "a" ), Collections.singletonList( "b" ), false, recipients
+        );
+
+        assertEquals( Sets.newHashSet( "a", "b" ), subscribed );
+        assertEquals( Sets.newHashSet( "a", "b" ), new HashSet<>( recipients ) );
+    }
+
+    @Test
+    public void testUnchangedSendsNothing()
+    {
+        Set<String> subscribed = Sets.newHashSet( "a" );
+
+        List<String> recipients = new ArrayList<>();
+        subscribed = ComputerSubscriptions.subscribe( subscribed, null, null, false, recipients );
+        assertEquals( Collections.emptyList(), recipients );
+
+        subscribed = ComputerSubscriptions.subscribe( subscribed, Sets.newHashSet( "a" ), null, false, recipients );
+        assertEquals( Sets.newHashSet( "a" ), subscribed );
+        assertEquals( Collections.emptyList(), recipients );
+    }
+
+    @Test
+    public void testChangedSendsToSubscribers()
+    {
+        List<String> recipients = new ArrayList<>();
+        ComputerSubscriptions.subscribe( Sets.newHashSet( "a", "b" ), null, null, true, recipients );
+
+        assertEquals( Sets.newHashSet( "a", "b" ), new HashSet<>( recipients ) );
+    }
+
+    @Test
+    public void testResubscribesAfterRefresh()
+    {
+        Set<String> subscribed = Sets.newHashSet( "a", "b" );
+
+        // "b" moves out of range, and so is unsubscribed.
+        List<String> recipients = new ArrayList<>();
+        subscribed = ComputerSubscriptions.subscribe( subscribed, Sets.newHashSet( "a" ), null, false, recipients );
+        assertEquals( Sets.newHashSet( "a" ), subscribed );
+        assertEquals( Collections.emptyList(), recipients );
+
+        // Changes are no longer sent to "b".
+        subscribed = ComputerSubscriptions.subscribe( subscribed, null, null, true, recipients );
+        assertEquals( Collections.singletonList( "a" ), recipients );
+
+        // "b" moves back in range, and so is sent the computer's state again, as its copy is out of date.
+        recipients.clear();
+        subscribed = ComputerSubscriptions.subscribe( subscribed, Sets.newHashSet( "a", "b" ), null, false, recipients );
+        assertEquals( Sets.newHashSet( "a", "b" ), subscribed );
+        assertEquals( Collections.singletonList( "b" ), recipients );
+    }
+
+    @Test
+    public void testViewerJoinsBetweenRefreshes()
+    {
+        Set<String> subscribed = Sets.newHashSet( "a" );
+
+        // "b" starts viewing the computer. It is subscribed immediately, without waiting for a refresh.
+        List<String> recipients = new ArrayList<>();
+        subscribed = ComputerSubscriptions.subscribe( subscribed, null, Collections.singletonList( "b" ), false, recipients );
+        assertEquals( Sets.newHashSet( "a", "b" ), subscribed );
+        assertEquals( Collections.singletonList( "b" ), recipients );
+
+        // It is not sent the state again on later ticks, or at the next refresh.
+        recipients.clear();
+        subscribed = ComputerSubscriptions.subscribe( subscribed, null, Collections.singletonList( "b" ), false, recipients );
+        assertEquals( Collections.emptyList(), recipients );
+
+        subscribed = ComputerSubscriptions.subscribe( subscribed, Sets.newHashSet( "a" ), Collections.singletonList( "b" ), false, recipients );
+        assertEquals( Sets.newHashSet( "a", "b" ), subscribed );
+        assertEquals( Collections.emptyList(), recipients );
+    }
+
+    @Test
+    public void testViewerJoinsWhenChanged()
+    {
+        // A new viewer is sent the state once, even if it has also changed.
+        List<String> recipients = new ArrayList<>();
+        Set<String> subscribed = ComputerSubscriptions.subscribe(
+            Sets.newHashSet( "a" ), null, Collections.singletonList( "b" ), true, recipients
+        );
+
+        assertEquals( Sets.newHashSet( "a", "b" ), subscribed );
+        assertEquals( 2, recipients.size() );
+        assertEquals( Sets.newHashSet( "a", "b" ), new HashSet<>( recipients ) );
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2019. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+
+package dan200.computercraft.shared.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import net.minecraft.util.PacketByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetworkHandlerTest
+{
+    @Test
+    public void testSingleMessageSentAlone()
+    {
+        ByteBuf message = message( 1, 10 );
+        List<PacketByteBuf> packets = write( Collections.singletonList( message ) );
+
+        assertEquals( 1, packets.size() );
+        assertArrayEquals( ByteBufUtil.getBytes( message ), ByteBufUtil.getBytes( packets.get( 0 ) ) );
+        assertEquals( 0, message.readerIndex(), "Original message should not be consumed" );
+    }
+
+    @Test
+    public void testSmallMessagesBundled()
+    {
+        List<ByteBuf> messages = Arrays.asList( message( 1, 10 ), message( 2, 20 ), message( 3, 30 ) );
+        List<PacketByteBuf> packets = write( messages );
+
+        assertEquals( 1, packets.size() );
+        assertEquals( messages, read( packets ) );
+    }
+
+    @Test
+    public void testSplitsAtMaxBundleSize()
+    {
+        List<ByteBuf> messages = new ArrayList<>();
+        for( int i = 0; i < 10; i++ ) messages.add( message( i, NetworkHandler.MAX_BUNDLE_SIZE / 4 ) );
+
+        List<PacketByteBuf> packets = write( messages );
+
+        assertTrue( packets.size() > 1, "Should be split into several bundles" );
+        for( PacketByteBuf packet : packets )
+        {
+            assertTrue( packet.readableBytes() <= NetworkHandler.MAX_BUNDLE_SIZE, "Bundle is too large" );
+        }
+        assertEquals( messages, read( packets ) );
+    }
+
+    @Test
+    public void testLargeMessageKeepsOrder()
+    {
+        List<ByteBuf> messages = Arrays.asList(
+            message( 1, 10 ), message( 2, NetworkHandler.MAX_BUNDLE_SIZE ), message( 3, 10 )
+        );
+        List<PacketByteBuf> packets = write( messages );
+
+        assertEquals( 3, packets.size() );
+        assertEquals( NetworkHandler.BUNDLE_ID, packets.get( 0 ).getByte( 0 ) );
+        assertArrayEquals( ByteBufUtil.getBytes( messages.get( 1 ) ), ByteBufUtil.getBytes( packets.get( 1 ) ) );
+        assertEquals( NetworkHandler.BUNDLE_ID, packets.get( 2 ).getByte( 0 ) );
+        assertEquals( messages, read( packets ) );
+    }
+
+    private static List<PacketByteBuf> write( List<ByteBuf> messages )
+    {
+        List<PacketByteBuf> packets = new ArrayList<>();
+        NetworkHandler.writeBundles( messages, packets::add );
+        return packets;
+    }
+
+    /**
+     * Read a list of packets back into their messages, as the client would.
+     *
+     * @param packets The packets to read.
+     * @return The messages contained in these packets.
+     */
+    private static List<ByteBuf> read( List<PacketByteBuf> packets )
+    {
+        List<ByteBuf> messages = new ArrayList<>();
+        for( PacketByteBuf packet : packets )
+        {
+            if( packet.getByte( packet.readerIndex() ) == NetworkHandler.BUNDLE_ID )
+            {
+                packet.readByte();
+                NetworkHandler.readBundle( packet, message -> messages.add( Unpooled.copiedBuffer( message ) ) );
+            }
+            else
+            {
+                messages.add( Unpooled.copiedBuffer( packet ) );
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Create a message whose first byte (and so packet id) is {@code id}.
+     *
+     * @param id   The id of this message. This should not be {@link NetworkHandler#BUNDLE_ID}.
+     * @param size The size of this message, in bytes.
+     * @return The encoded message.
+     */
+    private static ByteBuf message( int id, int size )
+    {
+        ByteBuf buffer = Unpooled.buffer( size );
+        buffer.writeByte( id );
+        for( int i = 1; i < size; i++ ) buffer.writeByte( id + i );
+        return buffer;
+    }
+}
@@ -11,6 +11,8 @@ import com.google.common.collect.Sets;
 import dan200.computercraft.api.ComputerCraftAPI;
 import dan200.computercraft.api.lua.ILuaContext;
 import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.network.IPacketReceiver;
+import dan200.computercraft.api.network.Packet;
 import dan200.computercraft.api.network.wired.IWiredElement;
 import dan200.computercraft.api.network.wired.IWiredNetwork;
 import dan200.computercraft.api.network.wired.IWiredNetworkChange;
@@ -27,6 +29,7 @@ import org.junit.jupiter.api.Test;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -245,6 +248,58 @@ public class NetworkTest
         assertEquals( Sets.newHashSet(), cE.allPeripherals().keySet(), "C's peripheral set should be empty" );
     }
 
+    @Test
+    public void testRoutes()
+    {
+        NetworkElement
+            aE = new NetworkElement( null, new Vec3d( 0, 0, 0 ), "a" ),
+            bE = new NetworkElement( null, new Vec3d( 1, 0, 0 ), "b" ),
+            cE = new NetworkElement( null, new Vec3d( 2, 0, 0 ), "c" ),
+            dE = new NetworkElement( null, new Vec3d( 2, 0, 1 ), "d" ),
+            eE = new NetworkElement( null, new Vec3d( 1, 0, 1 ), "e" );
+
+        IWiredNode
+            aN = aE.getNode(),
+            bN = bE.getNode(),
+            cN = cE.getNode(),
+            dN = dE.getNode(),
+            eN = eE.getNode();
+
+        aN.addReceiver( new NetworkReceiver() );
+        cN.addReceiver( new NetworkReceiver() );
+        eN.addReceiver( new NetworkReceiver() );
+
+        aN.getNetwork().connect( aN, bN );
+        aN.getNetwork().connect( bN, cN );
+        aN.getNetwork().connect( cN, dN );
+        aN.getNetwork().connect( dN, eN );
+
+        Map<WiredNode, Double> routes = assertRoutes( aN );
+        assertEquals( Sets.newHashSet( aN, cN, eN ), routes.keySet(), "A should route to A, C and E" );
+        assertEquals( 4, routes.get( eN ), 1e-9, "A to E should go via C and D" );
+        assertSame( routes( aN ), routes( aN ), "Routes should be cached" );
+
+        WiredNetwork.Routes oldRoutes = routes( aN );
+        aN.getNetwork().connect( aN, eN );
+        assertNotSame( oldRoutes, routes( aN ), "Connecting should invalidate routes" );
+        assertEquals( Math.sqrt( 2 ), assertRoutes( aN ).get( eN ), 1e-9, "A to E should be direct" );
+
+        oldRoutes = routes( aN );
+        bN.addReceiver( new NetworkReceiver() );
+        assertNotSame( oldRoutes, routes( aN ), "Adding a receiver should invalidate routes" );
+        assertEquals( Sets.newHashSet( aN, bN, cN, eN ), assertRoutes( aN ).keySet(), "A should route to B" );
+
+        oldRoutes = routes( aN );
+        aN.getNetwork().disconnect( aN, eN );
+        assertNotSame( oldRoutes, routes( aN ), "Disconnecting should invalidate routes" );
+        assertEquals( 4, assertRoutes( aN ).get( eN ), 1e-9, "A to E should go via C and D" );
+
+        aN.getNetwork().remove( cN );
+        assertEquals( Sets.newHashSet( aN, bN ), assertRoutes( aN ).keySet(), "A should route to A and B" );
+        assertEquals( Sets.newHashSet( eN ), assertRoutes( eN ).keySet(), "E should route to E" );
+        assertEquals( Sets.newHashSet( cN ), assertRoutes( cN ).keySet(), "C should route to C" );
+    }
+
     @Test
     @Disabled( "Takes a long time to run, mostly for stress testing" )
     public void testLarge()
@@ -419,6 +474,45 @@ public class NetworkTest
         }
     }
 
+    private static class NetworkReceiver implements IPacketReceiver
+    {
+        @Nonnull
+        @Override
+        public World getWorld()
+        {
+            return null;
+        }
+
+        @Nonnull
+        @Override
+        public Vec3d getPosition()
+        {
+            return Vec3d.ZERO;
+        }
+
+        @Override
+        public double getRange()
+        {
+            return 0;
+        }
+
+        @Override
+        public boolean isInterdimensional()
+        {
+            return false;
+        }
+
+        @Override
+        public void receiveSameDimension( @Nonnull Packet packet, double distance )
+        {
+        }
+
+        @Override
+        public void receiveDifferentDimension( @Nonnull Packet packet )
+        {
+        }
+    }
+
     private static class Grid<T>
     {
         private final int size;
@@ -488,6 +582,34 @@ public class NetworkTest
         return ((WiredNetwork) network).nodes;
     }
 
+    private static WiredNetwork.Routes routes( IWiredNode node )
+    {
+        WiredNode wired = (WiredNode) node;
+        return wired.network.getRoutes( wired );
+    }
+
+    /**
+     * Check the cached routes from a node match a freshly computed set of routes.
+     *
+     * @param node The node to find routes from.
+     * @return The cached distance to each node with receivers.
+     */
+    private static Map<WiredNode, Double> assertRoutes( IWiredNode node )
+    {
+        Map<WiredNode, Double> expected = new HashMap<>();
+        for( WiredNetwork.TransmitPoint point : WiredNetwork.computeRoutes( (WiredNode) node, 0, false ).values() )
+        {
+            if( point.node.hasReceivers() ) expected.put( point.node, point.distance );
+        }
+
+        Map<WiredNode, Double> actual = new HashMap<>();
+        WiredNetwork.Routes routes = routes( node );
+        for( int i = 0; i < routes.nodes.length; i++ ) actual.put( routes.nodes[i], routes.distances[i] );
+
+        assertEquals( expected, actual, "Cached routes should match computed routes" );
+        return actual;
+    }
+
     private static Set<WiredNode> neighbours( IWiredNode node )
     {
         return ((WiredNode) node).neighbours;